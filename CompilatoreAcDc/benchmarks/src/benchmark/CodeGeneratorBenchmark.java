@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.NodeProgram;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * Throughput of {@link CodeGeneratorVisitor} over a type checked program.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeGeneratorBenchmark {
+
+    /**
+     * Program parsed and type checked once per trial: code generation only
+     * assigns registers, which every run starts again from a new compilation.
+     */
+    @State(Scope.Thread)
+    public static class CheckedProgram {
+        NodeProgram ast;
+
+        @Setup
+        public void setUp(ProgramState program) throws SyntacticException {
+            ast = new Parser(new Scanner(new StringReader(program.source))).parse();
+            TypeCheckingVisitor visitor = new TypeCheckingVisitor();
+            ast.accept(visitor);
+            if (visitor.hasErrors())
+                throw new IllegalStateException(visitor.getLoggerString());
+        }
+    }
+
+    @Benchmark
+    public String generateCode(CheckedProgram program) {
+        CodeGeneratorVisitor visitor = new CodeGeneratorVisitor();
+        program.ast.accept(visitor);
+        return visitor.getCode();
+    }
+}
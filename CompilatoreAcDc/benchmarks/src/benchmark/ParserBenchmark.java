@@ -0,0 +1,41 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.FlatAst;
+import ast.NodeProgram;
+import exception.SyntacticException;
+import parser.FlatParser;
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Throughput of {@link Parser#parse()} and {@link FlatParser#parse()},
+ * scanning included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Benchmark
+    public NodeProgram parse(ProgramState program) throws SyntacticException {
+        return new Parser(new Scanner(new StringReader(program.source))).parse();
+    }
+
+    @Benchmark
+    public FlatAst parseFlat(ProgramState program) throws SyntacticException {
+        return new FlatParser(new Scanner(new StringReader(program.source))).parse();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Source of the program every benchmark compiles, generated once per trial by
+ * {@link Programs}.
+ */
+@State(Scope.Benchmark)
+public class ProgramState {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int statements;
+
+    @Param({ "1", "8", "64" })
+    public int depth;
+
+    @Param({ "0", "50", "100" })
+    public int floatPercent;
+
+    String source;
+
+    @Setup
+    public void setUp() {
+        source = Programs.generate(statements, depth, floatPercent);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Generator of well typed ac programs of a given shape.
+ * </p>
+ *
+ * <p>
+ * A program declares {@value #VARIABLES} int and {@value #VARIABLES} float
+ * variables, then assigns them in turn. Each assignment has {@code depth}
+ * operands joined by random operators; about one statement in ten is a print.
+ * The same arguments always yield the same program.
+ * </p>
+ */
+final class Programs {
+
+    static final int VARIABLES = 8;
+
+    private static final char[] OPERATORS = { '+', '-', '*', '/' };
+
+    private Programs() {
+    }
+
+    /**
+     * Returns the source of a program.
+     *
+     * @param statements   the number of statements, declarations excluded.
+     * @param depth        the number of operands of each assignment.
+     * @param floatPercent the percentage of assignments to float variables.
+     * @return the source of the program.
+     */
+    static String generate(int statements, int depth, int floatPercent) {
+        Random random = new Random(42);
+        StringBuilder source = new StringBuilder(statements * (depth * 5 + 8));
+        for (int i = 0; i < VARIABLES; i++) {
+            source.append("int ").append(intVariable(i)).append(";\n");
+            source.append("float ").append(floatVariable(i)).append(";\n");
+        }
+        for (int i = 0; i < statements; i++) {
+            boolean isFloat = random.nextInt(100) < floatPercent;
+            String target = isFloat ? floatVariable(random.nextInt(VARIABLES)) : intVariable(random.nextInt(VARIABLES));
+            if (random.nextInt(10) == 0) {
+                source.append("print ").append(target).append(";\n");
+                continue;
+            }
+            source.append(target).append(" = ");
+            appendExpression(source, random, depth, isFloat);
+            source.append(";\n");
+        }
+        return source.toString();
+    }
+
+    /**
+     * Appends a chain of operands. In a float expression every term (a chain of
+     * {@code *} and {@code /}) is either all int or led by a float, and the first
+     * term is led by a float, so that int operands are only ever converted.
+     */
+    private static void appendExpression(StringBuilder source, Random random, int depth, boolean isFloat) {
+        boolean floatTerm = isFloat;
+        appendOperand(source, random, floatTerm);
+        for (int i = 1; i < depth; i++) {
+            char operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            if (operator == '+' || operator == '-')
+                floatTerm = isFloat && random.nextBoolean();
+            source.append(' ').append(operator).append(' ');
+            appendOperand(source, random, floatTerm && (operator == '+' || operator == '-' || random.nextBoolean()));
+        }
+    }
+
+    private static void appendOperand(StringBuilder source, Random random, boolean isFloat) {
+        int choice = random.nextInt(VARIABLES + 2);
+        if (choice >= VARIABLES)
+            source.append(random.nextInt(9) + 1).append(isFloat ? ".5" : "");
+        else
+            source.append(isFloat ? floatVariable(choice) : intVariable(choice));
+    }
+
+    private static String intVariable(int i) {
+        return "i" + (char) ('a' + i);
+    }
+
+    private static String floatVariable(int i) {
+        return "f" + (char) ('a' + i);
+    }
+}
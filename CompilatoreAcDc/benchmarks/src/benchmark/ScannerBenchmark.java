@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.LexicalException;
+import scanner.Scanner;
+import token.TokenType;
+
+/**
+ * Throughput of {@link Scanner#nextToken()} and of the allocation free
+ * {@link Scanner#advance()} cursor over a whole program.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark {
+
+    @Benchmark
+    public int nextToken(ProgramState program) throws IOException, LexicalException {
+        Scanner scanner = new Scanner(new StringReader(program.source));
+        int tokens = 0;
+        while (scanner.nextToken().getType() != TokenType.EOF)
+            tokens++;
+        return tokens;
+    }
+
+    @Benchmark
+    public int advance(ProgramState program) throws IOException, LexicalException {
+        Scanner scanner = new Scanner(new StringReader(program.source));
+        int tokens = 0;
+        while (scanner.advance() != TokenType.EOF)
+            tokens++;
+        return tokens;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import symboltable.NameTable;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * Throughput of {@link TypeCheckingVisitor} over a freshly parsed program,
+ * resolving symbols by the ids given by the scanner.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeCheckBenchmark {
+
+    /**
+     * Program parsed again before every check, since the check decorates the AST
+     * and inserts conversions into it.
+     */
+    @State(Scope.Thread)
+    public static class ParsedProgram {
+        NodeProgram ast;
+        NameTable names;
+
+        @Setup(Level.Invocation)
+        public void setUp(ProgramState program) throws SyntacticException {
+            Scanner scanner = new Scanner(new StringReader(program.source));
+            ast = new Parser(scanner).parse();
+            names = scanner.getNames();
+        }
+    }
+
+    @Benchmark
+    public boolean typeCheck(ParsedProgram program) {
+        TypeCheckingVisitor visitor = new TypeCheckingVisitor(new CompilationContext(program.names));
+        program.ast.accept(visitor);
+        return visitor.hasErrors();
+    }
+}
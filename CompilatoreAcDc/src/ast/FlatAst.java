@@ -0,0 +1,447 @@
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import symboltable.Attributes;
+import symboltable.NameTable;
+
+/**
+ * <p>
+ * Compact representation of a whole program: the nodes are rows of parallel
+ * {@code int} arrays instead of objects.
+ * </p>
+ *
+ * <p>
+ * Nodes are stored in post-order: the operands of an operation come before it,
+ * and the nodes of a statement before the statement itself. A single pass in
+ * index order therefore visits a program as the visitors do. Constants and
+ * identifiers are interned, so each distinct text is stored once and nodes
+ * refer to it by index: identifiers by their id in a {@link NameTable}.
+ * </p>
+ *
+ * <p>
+ * A conversion is not a node but a flag on the converted operand.
+ * {@link #toNodeProgram()} builds the equivalent {@link NodeProgram}, as a view
+ * for the code working on node objects.
+ * </p>
+ */
+public final class FlatAst {
+
+    public static final int DECL = 0;
+    public static final int ASSIGN = 1;
+    public static final int PRINT = 2;
+    public static final int CONST = 3;
+    public static final int DEREF = 4;
+    public static final int BINOP = 5;
+
+    private static final int NONE = -1;
+    private static final int UNCHECKED = 0;
+    private static final int CONVERTED = 0x100;
+    private static final LangType[] LANG_TYPES = LangType.values();
+    private static final LangOper[] OPERATORS = LangOper.values();
+    private static final TypeDescriptor[] TYPES = TypeDescriptor.values();
+
+    /**
+     * Node columns. {@code operators} holds the {@link LangOper} of an operation
+     * or the {@link LangType} of a declaration or constant, {@code types} the
+     * checked {@link TypeDescriptor} plus one and the conversion flag,
+     * {@code values} the interned constant or identifier.
+     */
+    private int[] kinds;
+    private int[] operators;
+    private int[] lefts;
+    private int[] rights;
+    private int[] types;
+    private int[] values;
+    private int size;
+
+    private int[] statements = new int[16];
+    private int statementCount;
+
+    private List<String> constants = new ArrayList<>();
+    private Map<String, Integer> constantIndexes = new HashMap<>();
+    private NameTable names;
+    private Attributes[] definitions = new Attributes[16];
+
+    /**
+     * Class constructor of an empty program.
+     */
+    public FlatAst() {
+        this(new NameTable());
+    }
+
+    /**
+     * Class constructor of an empty program, whose identifiers are interned in
+     * the names of the scanner reading it.
+     *
+     * @param names the names identifiers are interned in.
+     */
+    public FlatAst(NameTable names) {
+        this(64, names);
+    }
+
+    /**
+     * Class constructor of an empty program.
+     *
+     * @param capacity the number of nodes expected.
+     */
+    public FlatAst(int capacity) {
+        this(capacity, new NameTable());
+    }
+
+    private FlatAst(int capacity, NameTable names) {
+        this.names = names;
+        capacity = Math.max(capacity, 1);
+        kinds = new int[capacity];
+        operators = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        types = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds a declaration statement.
+     *
+     * @param type the declared type.
+     * @param name the variable name.
+     * @return the index of the node.
+     */
+    public int addDecl(LangType type, String name) {
+        return addStatement(add(DECL, type.ordinal(), NONE, NONE, names.intern(name)));
+    }
+
+    /**
+     * Adds an assignment statement, after the nodes of its expression.
+     *
+     * @param name the variable name.
+     * @param expr the index of the root of the expression.
+     * @return the index of the node.
+     */
+    public int addAssign(String name, int expr) {
+        return addStatement(add(ASSIGN, NONE, expr, NONE, names.intern(name)));
+    }
+
+    /**
+     * Adds a print statement.
+     *
+     * @param name the variable name.
+     * @return the index of the node.
+     */
+    public int addPrint(String name) {
+        return addStatement(add(PRINT, NONE, NONE, NONE, names.intern(name)));
+    }
+
+    /**
+     * Adds a constant.
+     *
+     * @param value the constant text.
+     * @param type  the constant type.
+     * @return the index of the node.
+     */
+    public int addConst(String value, LangType type) {
+        return add(CONST, type.ordinal(), NONE, NONE, intern(value, constants, constantIndexes));
+    }
+
+    /**
+     * Adds the dereferencing of a variable.
+     *
+     * @param name the variable name.
+     * @return the index of the node.
+     */
+    public int addDeref(String name) {
+        return add(DEREF, NONE, NONE, NONE, names.intern(name));
+    }
+
+    /**
+     * Adds an operation, after the nodes of its operands.
+     *
+     * @param left  the index of the left operand.
+     * @param right the index of the right operand.
+     * @param op    the operator.
+     * @return the index of the node.
+     */
+    public int addBinOp(int left, int right, LangOper op) {
+        return add(BINOP, op.ordinal(), left, right, NONE);
+    }
+
+    private int add(int kind, int operator, int left, int right, int value) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = kind;
+        operators[size] = operator;
+        lefts[size] = left;
+        rights[size] = right;
+        types[size] = UNCHECKED;
+        values[size] = value;
+        return size++;
+    }
+
+    private int addStatement(int node) {
+        if (statementCount == statements.length)
+            statements = Arrays.copyOf(statements, statementCount * 2);
+        statements[statementCount++] = node;
+        return node;
+    }
+
+    private static int intern(String text, List<String> pool, Map<String, Integer> indexes) {
+        Integer index = indexes.get(text);
+        if (index == null) {
+            index = pool.size();
+            pool.add(text);
+            indexes.put(text, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of declarations and statements.
+     *
+     * @return the number of declarations and statements.
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Returns the node of a declaration or statement.
+     *
+     * @param statement the index of the declaration or statement.
+     * @return the index of its node.
+     */
+    public int getStatement(int statement) {
+        return statements[statement];
+    }
+
+    /**
+     * Returns the kind of a node, one of the constants of this class.
+     *
+     * @param node the index of the node.
+     * @return the kind of the node.
+     */
+    public int getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the operator of an operation.
+     *
+     * @param node the index of the operation.
+     * @return the operator.
+     */
+    public LangOper getOp(int node) {
+        return OPERATORS[operators[node]];
+    }
+
+    /**
+     * Returns the type of a declaration or constant.
+     *
+     * @param node the index of the declaration or constant.
+     * @return the declared or constant type.
+     */
+    public LangType getLangType(int node) {
+        return LANG_TYPES[operators[node]];
+    }
+
+    /**
+     * Returns the left operand of an operation or the expression of an
+     * assignment.
+     *
+     * @param node the index of the operation or assignment.
+     * @return the index of the operand.
+     */
+    public int getLeft(int node) {
+        return lefts[node];
+    }
+
+    /**
+     * Returns the right operand of an operation.
+     *
+     * @param node the index of the operation.
+     * @return the index of the operand.
+     */
+    public int getRight(int node) {
+        return rights[node];
+    }
+
+    /**
+     * Returns the type of a node, {@code null} if not checked.
+     *
+     * @param node the index of the node.
+     * @return the type of the node.
+     */
+    public TypeDescriptor getResType(int node) {
+        int type = types[node] & ~CONVERTED;
+        return type == UNCHECKED ? null : TYPES[type - 1];
+    }
+
+    /**
+     * Sets the type of a node.
+     *
+     * @param node the index of the node.
+     * @param type the type of the node.
+     */
+    public void setResType(int node, TypeDescriptor type) {
+        types[node] = (types[node] & CONVERTED) | (type.ordinal() + 1);
+    }
+
+    /**
+     * Returns {@code true} if the value of an operand is converted to
+     * {@code float}.
+     *
+     * @param node the index of the operand.
+     * @return {@code true} if the operand is converted, otherwise {@code false}.
+     */
+    public boolean isConverted(int node) {
+        return (types[node] & CONVERTED) != 0;
+    }
+
+    /**
+     * Marks the value of an operand as converted to {@code float}.
+     *
+     * @param node the index of the operand.
+     */
+    public void setConverted(int node) {
+        types[node] |= CONVERTED;
+    }
+
+    /**
+     * Returns the text of a constant.
+     *
+     * @param node the index of the constant.
+     * @return the text of the constant.
+     */
+    public String getConstant(int node) {
+        return constants.get(values[node]);
+    }
+
+    /**
+     * Returns the interned identifier of a declaration, statement or
+     * dereferencing.
+     *
+     * @param node the index of the node.
+     * @return the index of the identifier.
+     */
+    public int getNameIndex(int node) {
+        return values[node];
+    }
+
+    /**
+     * Returns the variable name of a declaration, statement or dereferencing.
+     *
+     * @param node the index of the node.
+     * @return the variable name.
+     */
+    public String getName(int node) {
+        return names.getName(values[node]);
+    }
+
+    /**
+     * Returns the number of distinct identifiers, including those interned in
+     * the same names by other programs.
+     *
+     * @return the number of distinct identifiers.
+     */
+    public int getNameCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the attributes of an identifier, {@code null} if not declared.
+     *
+     * @param name the index of the identifier.
+     * @return the attributes of the identifier.
+     */
+    public Attributes getDefinition(int name) {
+        return name < definitions.length ? definitions[name] : null;
+    }
+
+    /**
+     * Sets the attributes of an identifier.
+     *
+     * @param name       the index of the identifier.
+     * @param definition the attributes of the identifier.
+     */
+    public void setDefinition(int name, Attributes definition) {
+        if (name >= definitions.length)
+            definitions = Arrays.copyOf(definitions, Math.max(name + 1, definitions.length * 2));
+        definitions[name] = definition;
+    }
+
+    /**
+     * Builds the node objects of the program, with the types, definitions and
+     * conversions found so far.
+     *
+     * @return the equivalent {@link NodeProgram}.
+     */
+    public NodeProgram toNodeProgram() {
+        List<NodeDecSt> decSts = new ArrayList<>(statementCount);
+        ArrayDeque<NodeExpr> operands = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            NodeAST node;
+            switch (kinds[i]) {
+                case DECL:
+                    NodeDecl decl = new NodeDecl(getLangType(i), new NodeId(getName(i), values[i]));
+                    decl.getNodeId().setDefinition(getDefinition(values[i]));
+                    node = decl;
+                    break;
+                case ASSIGN:
+                    node = new NodeAssign(nodeId(i), operands.pop());
+                    break;
+                case PRINT:
+                    node = new NodePrint(nodeId(i));
+                    break;
+                case CONST:
+                    node = new NodeConst(getConstant(i), getLangType(i));
+                    break;
+                case DEREF:
+                    node = new NodeDeref(nodeId(i));
+                    break;
+                default:
+                    NodeExpr right = operands.pop();
+                    node = new NodeBinOp(operands.pop(), right, getOp(i));
+                    break;
+            }
+            node.setResType(getResType(i));
+            if (node instanceof NodeDecSt)
+                decSts.add((NodeDecSt) node);
+            else if (isConverted(i)) {
+                NodeConvert convert = new NodeConvert((NodeExpr) node);
+                convert.setResType(TypeDescriptor.FLOAT);
+                operands.push(convert);
+            } else
+                operands.push((NodeExpr) node);
+        }
+        return new NodeProgram(decSts);
+    }
+
+    private NodeId nodeId(int node) {
+        NodeId id = new NodeId(getName(node), values[node]);
+        Attributes definition = getDefinition(values[node]);
+        id.setDefinition(definition);
+        if (definition != null)
+            id.setResType(TypeDescriptor.valueOf(definition.getType().toString()));
+        return id;
+    }
+}
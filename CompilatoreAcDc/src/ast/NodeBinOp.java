@@ -1,5 +1,7 @@
 package ast;
 
+import java.util.ArrayDeque;
+
 import visitor.IVisitor;
 
 public class NodeBinOp extends NodeExpr {
@@ -7,6 +9,8 @@ public class NodeBinOp extends NodeExpr {
     private NodeExpr leftOp;
     private NodeExpr rightOp;
     private LangOper op;
+    private NodeId savedTo;
+    private boolean duplicate;
 
     public NodeBinOp(NodeExpr leftOp, NodeExpr rightOp, LangOper op) {
         super();
@@ -35,9 +39,50 @@ public class NodeBinOp extends NodeExpr {
         this.rightOp = rightOp;
     }
 
+    /**
+     * Returns the temporary variable a copy of the result is stored to, so
+     * that later occurrences of the same value read it instead of computing it.
+     *
+     * @return the temporary variable, {@code null} if the result is not saved.
+     */
+    public NodeId getSavedTo() {
+        return savedTo;
+    }
+
+    public void setSavedTo(NodeId savedTo) {
+        this.savedTo = savedTo;
+    }
+
+    /**
+     * Returns {@code true} if the right operand has the value of the left one,
+     * which is then duplicated instead of computing the right operand.
+     *
+     * @return {@code true} if the left operand is duplicated.
+     */
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(boolean duplicate) {
+        this.duplicate = duplicate;
+    }
+
     @Override
     public String toString() {
-        return "[BinOp:" + leftOp.toString() + "," +  op.toString() + "," + rightOp.toString() + "]";
+        // Left deep chains are printed in a loop, as deep as they may be
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr left = this;
+        while (left instanceof NodeBinOp) {
+            chain.push((NodeBinOp) left);
+            left = ((NodeBinOp) left).leftOp;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("[BinOp:".repeat(chain.size())).append(left.toString());
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            builder.append(",").append(binOp.op.toString()).append(",").append(binOp.rightOp.toString()).append("]");
+        }
+        return builder.toString();
     }
 
     @Override
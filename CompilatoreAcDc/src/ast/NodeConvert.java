@@ -13,6 +13,10 @@ public class NodeConvert extends NodeExpr {
         return expr;
     }
 
+    public void setExpr(NodeExpr expr) {
+        this.expr = expr;
+    }
+
     @Override
     public void accept(IVisitor visitor) {
         visitor.visit(this);
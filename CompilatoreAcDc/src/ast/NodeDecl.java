@@ -7,9 +7,13 @@ public class NodeDecl extends NodeDecSt {
     private LangType type;
 
     public NodeDecl(LangType type, String name) {
+        this(type, new NodeId(name));
+    }
+
+    public NodeDecl(LangType type, NodeId id) {
         super();
         this.type = type;
-        id = new NodeId(name);
+        this.id = id;
     }
 
     public LangType getType() {
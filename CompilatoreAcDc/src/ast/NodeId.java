@@ -5,6 +5,7 @@ import visitor.IVisitor;
 
 public class NodeId extends NodeAST {
     private String name;
+    private int id = -1;
     private Attributes definition;
 
     public Attributes getDefinition() {
@@ -19,6 +20,32 @@ public class NodeId extends NodeAST {
         this.name = name;
     }
 
+    /**
+     * Class constructor of a scanned variable.
+     *
+     * @param name the variable name, as interned by the scanner.
+     * @param id   the id of the name in the {@link symboltable.NameTable} of the
+     *             scanner.
+     */
+    public NodeId(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Returns the id of the name in the {@link symboltable.NameTable} it was
+     * interned in.
+     *
+     * @return the id of the name, {@code -1} if not interned.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -15,6 +15,10 @@ public class NodeProgram extends NodeAST implements Iterable<NodeDecSt> {
         this.decSts = new ArrayList<>(decSts);
     }
 
+    public void setDecSts(List<NodeDecSt> decSts) {
+        this.decSts = new ArrayList<>(decSts);
+    }
+
     @Override
     public Iterator<NodeDecSt> iterator() {
        return decSts.iterator();
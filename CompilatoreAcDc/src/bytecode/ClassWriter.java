@@ -0,0 +1,246 @@
+package bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Minimal writer of JVM class files.
+ * </p>
+ *
+ * <p>
+ * Supports what the compiled ac programs need: fields, and methods made of
+ * straight {@link Code} with no branches, hence no stack map frames. Classes
+ * are defined as hidden classes of this package, so their names must be in
+ * it.
+ * </p>
+ */
+public class ClassWriter {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 61;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private DataOutputStream pool = new DataOutputStream(poolBytes);
+    private Map<String, Integer> constants = new HashMap<>();
+    private int constantCount = 1;
+
+    private int thisClass;
+    private int superClass;
+    private List<Integer> interfaces = new ArrayList<>();
+    private ByteArrayOutputStream fieldsBytes = new ByteArrayOutputStream();
+    private DataOutputStream fields = new DataOutputStream(fieldsBytes);
+    private int fieldCount;
+    private ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+    private DataOutputStream methods = new DataOutputStream(methodsBytes);
+    private int methodCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param name       the internal name of the class, in this package.
+     * @param superName  the internal name of the superclass.
+     * @param interfaces the internal names of the implemented interfaces.
+     */
+    public ClassWriter(String name, String superName, String... interfaces) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        for (String anInterface : interfaces)
+            this.interfaces.add(classRef(anInterface));
+    }
+
+    /**
+     * Adds a field.
+     *
+     * @param access     the access flags.
+     * @param name       the field name.
+     * @param descriptor the field descriptor.
+     */
+    public void addField(int access, String name, String descriptor) {
+        try {
+            fields.writeShort(access);
+            fields.writeShort(utf8(name));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fieldCount++;
+    }
+
+    /**
+     * Adds a method with its code.
+     *
+     * @param access     the access flags.
+     * @param name       the method name.
+     * @param descriptor the method descriptor.
+     * @param code       the method code, built on this writer.
+     * @throws IllegalStateException If the code is larger than a method can
+     *                               be.
+     */
+    public void addMethod(int access, String name, String descriptor, Code code) {
+        if (code.length() > Code.MAX_LENGTH)
+            throw new IllegalStateException(String.format("Method %s is too large: %d bytes", name, code.length()));
+        try {
+            methods.writeShort(access);
+            methods.writeShort(utf8(name));
+            methods.writeShort(utf8(descriptor));
+            methods.writeShort(1);
+            methods.writeShort(utf8("Code"));
+            methods.writeInt(12 + code.length());
+            methods.writeShort(code.getMaxStack());
+            methods.writeShort(code.getMaxLocals());
+            methods.writeInt(code.length());
+            code.writeTo(methods);
+            methods.writeShort(0);
+            methods.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methodCount++;
+    }
+
+    /**
+     * Returns the class file.
+     *
+     * @return the bytes of the class file.
+     */
+    public byte[] toByteArray() {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(constantCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (int anInterface : interfaces)
+                out.writeShort(anInterface);
+            out.writeShort(fieldCount);
+            fieldsBytes.writeTo(out);
+            out.writeShort(methodCount);
+            methodsBytes.writeTo(out);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Defines the class as a hidden class, unloaded once no longer reachable.
+     *
+     * @return the lookup on the defined class.
+     * @throws IllegalAccessException If the class is not in this package.
+     */
+    public Lookup defineHiddenClass() throws IllegalAccessException {
+        return MethodHandles.lookup().defineHiddenClass(toByteArray(), true);
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, () -> {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        }, 1);
+    }
+
+    int classRef(String name) {
+        int nameIndex = utf8(name);
+        return constant("C" + name, () -> {
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(nameIndex);
+        }, 1);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int integerConstant(int value) {
+        return constant("I" + value, () -> {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        }, 1);
+    }
+
+    int longConstant(long value) {
+        return constant("J" + value, () -> {
+            pool.writeByte(CONSTANT_LONG);
+            pool.writeLong(value);
+        }, 2);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int classIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + ' ' + descriptor, () -> {
+            pool.writeByte(CONSTANT_NAME_AND_TYPE);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        }, 1);
+        return constant(tag + owner + '.' + name + ' ' + descriptor, () -> {
+            pool.writeByte(tag);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndType);
+        }, 1);
+    }
+
+    /**
+     * Returns the index of a constant, writing it to the pool the first time.
+     *
+     * @param key   the key identifying the constant.
+     * @param entry the writer of the constant.
+     * @param slots the number of pool entries the constant takes.
+     * @return the index of the constant.
+     */
+    private int constant(String key, PoolEntry entry, int slots) {
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        try {
+            entry.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index = constantCount;
+        constantCount += slots;
+        if (constantCount > 0xffff)
+            throw new IllegalStateException("Too many constants");
+        constants.put(key, index);
+        return index;
+    }
+
+    @FunctionalInterface
+    private interface PoolEntry {
+        void write() throws IOException;
+    }
+}
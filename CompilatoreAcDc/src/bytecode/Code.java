@@ -0,0 +1,340 @@
+package bytecode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Straight code of a method, with no branches.
+ * </p>
+ *
+ * <p>
+ * Keeps track of the operand stack depth and of the local variables used, so
+ * that {@link ClassWriter} can write the maximum of both. Constants, fields and
+ * methods are added to the pool of the {@link ClassWriter} the code is built
+ * on.
+ * </p>
+ */
+public class Code {
+
+    /**
+     * Largest size of the code of a method, in bytes.
+     */
+    public static final int MAX_LENGTH = 65535;
+
+    private static final int LCONST_0 = 0x09;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int LLOAD = 0x16;
+    private static final int ALOAD = 0x19;
+    private static final int AALOAD = 0x32;
+    private static final int LSTORE = 0x37;
+    private static final int ASTORE = 0x3a;
+    private static final int POP = 0x57;
+    private static final int DUP_X2 = 0x5b;
+    private static final int SWAP = 0x5f;
+    private static final int LDIV = 0x6d;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    private ClassWriter classWriter;
+    private byte[] bytes = new byte[256];
+    private int length;
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    /**
+     * Class constructor.
+     *
+     * @param classWriter    the class the code belongs to.
+     * @param parameterSlots the local variable slots taken by {@code this} and
+     *                       the parameters.
+     */
+    public Code(ClassWriter classWriter, int parameterSlots) {
+        this.classWriter = classWriter;
+        this.maxLocals = parameterSlots;
+    }
+
+    /**
+     * Returns the size of the code.
+     *
+     * @return the size of the code, in bytes.
+     */
+    public int length() {
+        return length;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Appends another code, as if it was built at the end of this one. Both
+     * must leave the operand stack empty.
+     *
+     * @param code the code to be appended.
+     */
+    public void append(Code code) {
+        ensureCapacity(code.length);
+        System.arraycopy(code.bytes, 0, bytes, length, code.length);
+        length += code.length;
+        maxStack = Math.max(maxStack, code.maxStack);
+        maxLocals = Math.max(maxLocals, code.maxLocals);
+    }
+
+    /**
+     * Pushes an {@code int} constant.
+     *
+     * @param value the constant.
+     */
+    public void pushInt(int value) {
+        if (value >= -1 && value <= 5)
+            op(ICONST_0 + value, 1);
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            op(BIPUSH, 1);
+            u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            op(SIPUSH, 1);
+            u2(value);
+        } else {
+            int index = classWriter.integerConstant(value);
+            if (index <= 0xff) {
+                op(LDC, 1);
+                u1(index);
+            } else {
+                op(LDC_W, 1);
+                u2(index);
+            }
+        }
+    }
+
+    /**
+     * Pushes a {@code long} constant.
+     *
+     * @param value the constant.
+     */
+    public void pushLong(long value) {
+        if (value == 0 || value == 1)
+            op(LCONST_0 + (int) value, 2);
+        else {
+            op(LDC2_W, 2);
+            u2(classWriter.longConstant(value));
+        }
+    }
+
+    /**
+     * Pushes a {@code long} local variable.
+     *
+     * @param local the local variable index.
+     */
+    public void loadLong(int local) {
+        local(LLOAD, local, 2, 2);
+    }
+
+    /**
+     * Pops a {@code long} into a local variable.
+     *
+     * @param local the local variable index.
+     */
+    public void storeLong(int local) {
+        local(LSTORE, local, -2, 2);
+    }
+
+    /**
+     * Pushes a reference local variable, {@code 0} being {@code this}.
+     *
+     * @param local the local variable index.
+     */
+    public void loadReference(int local) {
+        local(ALOAD, local, 1, 1);
+    }
+
+    /**
+     * Pops a reference into a local variable.
+     *
+     * @param local the local variable index.
+     */
+    public void storeReference(int local) {
+        local(ASTORE, local, -1, 1);
+    }
+
+    /**
+     * Replaces an array and an index with the reference at that index.
+     */
+    public void loadArrayElement() {
+        op(AALOAD, -1);
+    }
+
+    /**
+     * Replaces two {@code long} values with their quotient.
+     */
+    public void divideLong() {
+        op(LDIV, -2);
+    }
+
+    /**
+     * Moves the reference on top of the stack below the {@code long} under it.
+     */
+    public void swapUnderLong() {
+        op(DUP_X2, 1);
+        op(POP, -1);
+    }
+
+    /**
+     * Swaps the two references on top of the stack.
+     */
+    public void swap() {
+        op(SWAP, 0);
+    }
+
+    /**
+     * Returns from a {@code void} method.
+     */
+    public void returnVoid() {
+        op(RETURN, 0);
+    }
+
+    /**
+     * Pushes a static field.
+     *
+     * @param owner      the internal name of the class of the field.
+     * @param name       the field name.
+     * @param descriptor the field descriptor.
+     */
+    public void getStatic(String owner, String name, String descriptor) {
+        op(GETSTATIC, slots(descriptor.charAt(0)));
+        u2(classWriter.fieldRef(owner, name, descriptor));
+    }
+
+    /**
+     * Replaces an object with the value of one of its fields.
+     *
+     * @param owner      the internal name of the class of the field.
+     * @param name       the field name.
+     * @param descriptor the field descriptor.
+     */
+    public void getField(String owner, String name, String descriptor) {
+        op(GETFIELD, slots(descriptor.charAt(0)) - 1);
+        u2(classWriter.fieldRef(owner, name, descriptor));
+    }
+
+    /**
+     * Pops an object and a value into a field of the object.
+     *
+     * @param owner      the internal name of the class of the field.
+     * @param name       the field name.
+     * @param descriptor the field descriptor.
+     */
+    public void putField(String owner, String name, String descriptor) {
+        op(PUTFIELD, -slots(descriptor.charAt(0)) - 1);
+        u2(classWriter.fieldRef(owner, name, descriptor));
+    }
+
+    /**
+     * Invokes a static method.
+     *
+     * @param owner      the internal name of the class of the method.
+     * @param name       the method name.
+     * @param descriptor the method descriptor.
+     */
+    public void invokeStatic(String owner, String name, String descriptor) {
+        invoke(INVOKESTATIC, owner, name, descriptor, 0);
+    }
+
+    /**
+     * Invokes an instance method.
+     *
+     * @param owner      the internal name of the class of the method.
+     * @param name       the method name.
+     * @param descriptor the method descriptor.
+     */
+    public void invokeVirtual(String owner, String name, String descriptor) {
+        invoke(INVOKEVIRTUAL, owner, name, descriptor, 1);
+    }
+
+    /**
+     * Invokes a constructor or a private method.
+     *
+     * @param owner      the internal name of the class of the method.
+     * @param name       the method name.
+     * @param descriptor the method descriptor.
+     */
+    public void invokeSpecial(String owner, String name, String descriptor) {
+        invoke(INVOKESPECIAL, owner, name, descriptor, 1);
+    }
+
+    private void invoke(int opcode, String owner, String name, String descriptor, int receiverSlots) {
+        int arguments = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            arguments += slots(c);
+            while (descriptor.charAt(i) == '[')
+                i++;
+            i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+        }
+        char returned = descriptor.charAt(i + 1);
+        op(opcode, (returned == 'V' ? 0 : slots(returned)) - arguments - receiverSlots);
+        u2(classWriter.methodRef(owner, name, descriptor));
+    }
+
+    /**
+     * Returns the stack slots taken by a value of a type.
+     */
+    private static int slots(char descriptor) {
+        return descriptor == 'J' || descriptor == 'D' ? 2 : 1;
+    }
+
+    private void local(int opcode, int local, int stackDelta, int slots) {
+        maxLocals = Math.max(maxLocals, local + slots);
+        if (local <= 0xff) {
+            op(opcode, stackDelta);
+            u1(local);
+        } else {
+            u1(WIDE);
+            op(opcode, stackDelta);
+            u2(local);
+        }
+    }
+
+    private void op(int opcode, int stackDelta) {
+        u1(opcode);
+        stack += stackDelta;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void u1(int value) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) value;
+    }
+
+    private void u2(int value) {
+        u1(value >> 8);
+        u1(value);
+    }
+
+    private void ensureCapacity(int more) {
+        if (length + more > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(length + more, bytes.length * 2));
+    }
+}
@@ -0,0 +1,65 @@
+package bytecode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+import dc.Output;
+
+/**
+ * Output of a compiled program, printing variables as the dc {@code p} and
+ * {@code P} commands do.
+ */
+public class Printer {
+
+    /**
+     * Internal name of this class, for the compiled programs.
+     */
+    public static final String INTERNAL_NAME = "bytecode/Printer";
+
+    private Output output = new Output();
+    private OutputStream out;
+
+    /**
+     * Class constructor.
+     *
+     * @param out the stream receiving the printed output.
+     */
+    public Printer(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Prints an {@code int} value.
+     *
+     * @param value the value.
+     */
+    public void print(long value) {
+        output.printNumber(value, 0);
+        output.printBytes(value, 0);
+    }
+
+    /**
+     * Prints a {@code float} value.
+     *
+     * @param value the value.
+     */
+    public void print(BigDecimal value) {
+        output.printNumber(value);
+        output.printBytes(value);
+    }
+
+    /**
+     * Writes the output printed so far.
+     *
+     * @throws UncheckedIOException If an I/O error occurs.
+     */
+    public void flush() {
+        try {
+            output.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ast.NodeProgram;
+import dc.CodeSink;
+import dc.PeepholeOptimizer;
+import exception.SyntacticException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.CommonSubexpressionVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.DeadCodeEliminationVisitor;
+import visitor.NodeCountingVisitor;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * <p>
+ * Headless compiler of many ac programs at once.
+ * </p>
+ *
+ * <p>
+ * Every source is compiled through {@link Scanner}, {@link Parser},
+ * {@link TypeCheckingVisitor}, {@link ConstantFoldingVisitor},
+ * {@link DeadCodeEliminationVisitor}, {@link CommonSubexpressionVisitor} and
+ * {@link CodeGeneratorVisitor}, whose
+ * code is shortened by a {@link PeepholeOptimizer}, to a {@code .dc} sibling
+ * file. Sources are spread across cores on a {@link ForkJoinPool}, each
+ * compilation with its own {@link CompilationContext}.
+ * </p>
+ *
+ * <p>
+ * The phases of every source compiled are reported to Flight Recorder as
+ * {@link PhaseEvent}s, recorded by any running recording or by the one
+ * {@code --jfr} starts.
+ * </p>
+ */
+public class BatchCompiler {
+
+    private static final String SOURCE_EXTENSION = ".ac";
+    private static final String TARGET_EXTENSION = ".dc";
+    private static final String USAGE = "Usage: [--threads <n>] [--cache <directory>] [--jfr <file>] "
+            + "<directory|file>...";
+
+    private Logger logger = Logger.getLogger(BatchCompiler.class.getName());
+    private int parallelism;
+    private CompilationCache cache;
+
+    /**
+     * Class constructor.
+     *
+     * @param parallelism the number of sources compiled in parallel.
+     */
+    public BatchCompiler(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * Class constructor of a compiler looking sources up in a cache before
+     * compiling them.
+     *
+     * @param parallelism the number of sources compiled in parallel.
+     * @param cache       the cache of the compilations, {@code null} for none.
+     */
+    public BatchCompiler(int parallelism, CompilationCache cache) {
+        this.parallelism = parallelism;
+        this.cache = cache;
+    }
+
+    /**
+     * <p>
+     * Command line entry point.
+     * </p>
+     *
+     * <p>
+     * Compiles every {@code .ac} file found in the given directories (and their
+     * subdirectories) and every given file, then logs a summary. With
+     * {@code --cache} the sources already compiled are not compiled again.
+     * With {@code --jfr} a Flight Recorder recording of the compilation,
+     * {@link PhaseEvent}s included, is written to the given file.
+     * </p>
+     *
+     * @param args the command line arguments.
+     * @return the process exit status: {@code 0} if every source compiled,
+     *         {@code 1} if some failed, {@code 2} on wrong arguments.
+     */
+    public static int run(String... args) {
+        Logger logger = Logger.getLogger(BatchCompiler.class.getName());
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        List<String> paths = new ArrayList<>();
+        String cacheDirectory = null;
+        String recordingFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads"))
+                    parallelism = Integer.parseInt(args[++i]);
+                else if (args[i].equals("--cache"))
+                    cacheDirectory = args[++i];
+                else if (args[i].equals("--jfr"))
+                    recordingFile = args[++i];
+                else
+                    paths.add(args[i]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            paths.clear();
+        }
+        if (paths.isEmpty() || parallelism < 1) {
+            logger.log(Level.SEVERE, USAGE);
+            return 2;
+        }
+        Recording recording = null;
+        try {
+            if (recordingFile != null)
+                recording = startRecording(Path.of(recordingFile));
+            CompilationCache cache = cacheDirectory == null ? null
+                    : new CompilationCache(Path.of(cacheDirectory), CompilationCache.DEFAULT_MAX_BYTES);
+            Summary summary = new BatchCompiler(parallelism, cache).compile(collectSources(paths));
+            logger.log(Level.INFO, "{0}", summary);
+            return summary.getFailures() == 0 ? 0 : 1;
+        } catch (IOException | ParseException e) {
+            logger.log(Level.SEVERE, e.getMessage());
+            return 1;
+        } finally {
+            if (recording != null) {
+                // Stopping writes the recording to its destination
+                recording.stop();
+                recording.close();
+                logger.log(Level.INFO, "Recording written to {0}", recordingFile);
+            }
+        }
+    }
+
+    /**
+     * Starts a Flight Recorder recording with the default settings of the JDK
+     * and the {@link PhaseEvent}s, written to a file once stopped.
+     *
+     * @param destination the file the recording is written to.
+     * @return the running recording.
+     * @throws IOException    If the default settings cannot be read.
+     * @throws ParseException If the default settings cannot be parsed.
+     */
+    private static Recording startRecording(Path destination) throws IOException, ParseException {
+        var recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("compilatore-acdc");
+        recording.enable(PhaseEvent.Scan.class);
+        recording.enable(PhaseEvent.Parse.class);
+        recording.enable(PhaseEvent.TypeCheck.class);
+        recording.enable(PhaseEvent.CodeGeneration.class);
+        recording.setDestination(destination);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Returns every {@code .ac} file in the given directories and every given
+     * file, in a stable order.
+     *
+     * @param paths the directories and files to be compiled.
+     * @return the sources to be compiled.
+     * @throws IOException If a directory cannot be walked.
+     */
+    public static List<Path> collectSources(List<String> paths) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String name : paths) {
+            Path path = Path.of(name);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    sources.addAll(files.filter(Files::isRegularFile)
+                            .filter(file -> file.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else
+                sources.add(path);
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the {@code .dc} sibling of a source, replacing its extension if any.
+     *
+     * @param source the source file.
+     * @return the file the source is compiled to.
+     */
+    public static Path targetOf(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return source.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + TARGET_EXTENSION);
+    }
+
+    /**
+     * Compiles all the sources in parallel.
+     *
+     * @param sources the sources to be compiled.
+     * @return the summary of the compilation.
+     */
+    public Summary compile(List<Path> sources) {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Result> results;
+        try {
+            results = pool.submit(() -> sources.parallelStream().map(this::compile).collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch compilation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch compilation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        Summary summary = new Summary(System.nanoTime() - start);
+        for (Result result : results)
+            summary.add(result);
+        return summary;
+    }
+
+    /**
+     * <p>
+     * Compiles a single source to its {@code .dc} sibling, which is written only
+     * if the source has no errors.
+     * </p>
+     *
+     * <p>
+     * A source found in the cache is not scanned, parsed nor checked: its cached
+     * code or errors are used instead. Both are cached after a compilation.
+     * Without a cache the code is not kept: it is written to the target while it
+     * is generated.
+     * </p>
+     *
+     * @param source the source to be compiled.
+     * @return the result of the compilation.
+     */
+    private Result compile(Path source) {
+        Result result = new Result();
+        try {
+            byte[] bytes = Files.readAllBytes(source);
+            result.inputBytes = bytes.length;
+            Path target = targetOf(source);
+            CompilationCache.Entry entry = cache == null ? null : cache.get(bytes);
+            if (entry != null)
+                result.cacheHit = true;
+            else {
+                entry = compile(source, bytes, cache == null ? target : null);
+                if (cache != null)
+                    cache.put(bytes, entry);
+            }
+            if (entry.isFailed())
+                return result.fail(source, entry.getErrors());
+            if (cache == null)
+                result.outputBytes = Files.size(target);
+            else {
+                byte[] code = entry.getCode().getBytes(StandardCharsets.US_ASCII);
+                Files.write(target, code);
+                result.outputBytes = code.length;
+            }
+            result.instructionsEliminated = entry.getInstructionsEliminated();
+        } catch (IOException | RuntimeException e) {
+            return result.fail(source, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Compiles the bytes of a source, decoded as a {@link java.io.FileReader}
+     * would. Every syntax error is reported, followed by the type errors of the
+     * declarations and statements without syntax errors.
+     *
+     * @param source the source to be compiled.
+     * @param bytes  the bytes of the source.
+     * @param target the file the code is written to while it is generated,
+     *               {@code null} to keep the code in the result.
+     * @return the code, or the errors, of the source. The code is empty if it is
+     *         written to the target.
+     * @throws IOException If an I/O error occurs while writing the code.
+     */
+    private CompilationCache.Entry compile(Path source, byte[] bytes, Path target) throws IOException {
+        var scan = new PhaseEvent.Scan();
+        var parse = new PhaseEvent.Parse();
+        var typeCheck = new PhaseEvent.TypeCheck();
+        var codeGeneration = new PhaseEvent.CodeGeneration();
+        boolean profiled = scan.isEnabled() || parse.isEnabled() || typeCheck.isEnabled()
+                || codeGeneration.isEnabled();
+
+        var scanner = new Scanner(new InputStreamReader(new ByteArrayInputStream(bytes), Charset.defaultCharset()));
+        scanner.setTimed(scan.isEnabled());
+        var parser = new Parser(scanner);
+        scan.begin();
+        parse.begin();
+        NodeProgram program = parser.parseRecovering();
+        parse.end();
+        scan.end();
+        scan.setScanTime(scanner.getScanNanos());
+        long astNodes = 0;
+        if (profiled) {
+            var counter = new NodeCountingVisitor();
+            program.accept(counter);
+            astNodes = counter.getCount();
+        }
+
+        var context = new CompilationContext(scanner.getNames());
+        var typeVisitor = new TypeCheckingVisitor(context);
+        typeCheck.begin();
+        program.accept(typeVisitor);
+        typeCheck.end();
+        if (!parser.getErrors().isEmpty() || typeVisitor.hasErrors()) {
+            commit(source, bytes.length, scanner, astNodes, context, 0, scan, parse, typeCheck);
+            var errors = new StringBuilder();
+            for (SyntacticException e : parser.getErrors())
+                errors.append(e.getMessage()).append(System.lineSeparator());
+            return CompilationCache.Entry.failed(errors.append(typeVisitor.getLoggerString()).toString().trim());
+        }
+        program.accept(new ConstantFoldingVisitor(context));
+        program.accept(new DeadCodeEliminationVisitor(context));
+        program.accept(new CommonSubexpressionVisitor(context));
+        String code = "";
+        long outputBytes;
+        codeGeneration.begin();
+        if (target == null) {
+            CodeSink.Memory memory = CodeSink.inMemory();
+            outputBytes = generate(program, context, memory);
+            code = memory.getCode();
+        } else
+            try (var channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                outputBytes = generate(program, context, CodeSink.of(channel));
+            }
+        codeGeneration.end();
+        commit(source, bytes.length, scanner, astNodes, context, outputBytes, scan, parse, typeCheck, codeGeneration);
+        logger.log(Level.FINE, "{0}: {1}", new Object[] { source, context.getReport() });
+        return CompilationCache.Entry.compiled(code, context.getReport().getInstructionsEliminated());
+    }
+
+    /**
+     * Commits the events of the phases a source went through, with the
+     * statistics of its compilation.
+     *
+     * @param source      the source.
+     * @param inputBytes  the size of the source.
+     * @param scanner     the scanner of the source.
+     * @param astNodes    the number of nodes of the parsed AST.
+     * @param context     the compilation of the source.
+     * @param outputBytes the size of the generated code, {@code 0} if the
+     *                    source failed.
+     * @param events      the events of the phases.
+     */
+    private static void commit(Path source, long inputBytes, Scanner scanner, long astNodes,
+            CompilationContext context, long outputBytes, PhaseEvent... events) {
+        for (PhaseEvent event : events)
+            if (event.shouldCommit()) {
+                event.setStatistics(source.toString(), inputBytes, scanner.getTokenCount(), astNodes,
+                        context.getSymbolTable().size(), outputBytes);
+                event.commit();
+            }
+    }
+
+    /**
+     * Generates the optimized code of a checked program into a sink, and
+     * flushes it.
+     *
+     * @param program the program.
+     * @param context the compilation the program belongs to.
+     * @param sink    the sink receiving the code.
+     * @return the size of the code.
+     * @throws IOException If an I/O error occurs while writing the code.
+     */
+    private static long generate(NodeProgram program, CompilationContext context, CodeSink sink)
+            throws IOException {
+        var optimizer = new PeepholeOptimizer(sink);
+        var codeGenVisitor = new CodeGeneratorVisitor(context, optimizer);
+        try {
+            program.accept(codeGenVisitor);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        codeGenVisitor.flush();
+        context.getReport().addInstructionsEliminated((int) optimizer.getInstructionsEliminated());
+        return sink.getLength();
+    }
+
+    /**
+     * Outcome of the compilation of a single source.
+     */
+    private class Result {
+        private boolean failed;
+        private long inputBytes;
+        private long outputBytes;
+        private long instructionsEliminated;
+        private boolean cacheHit;
+
+        /**
+         * Marks the compilation as failed and logs why.
+         *
+         * @param source  the source that failed to compile.
+         * @param message the reason of the failure.
+         * @return this result.
+         */
+        private Result fail(Path source, String message) {
+            logger.log(Level.SEVERE, "{0}: {1}", new Object[] { source, message });
+            failed = true;
+            return this;
+        }
+    }
+
+    /**
+     * Summary of a batch compilation.
+     */
+    public static class Summary {
+        private long nanos;
+        private int files;
+        private int failures;
+        private long inputBytes;
+        private long outputBytes;
+        private long instructionsEliminated;
+        private int cacheHits;
+
+        private Summary(long nanos) {
+            this.nanos = nanos;
+        }
+
+        private void add(Result result) {
+            files++;
+            failures += result.failed ? 1 : 0;
+            inputBytes += result.inputBytes;
+            outputBytes += result.outputBytes;
+            instructionsEliminated += result.instructionsEliminated;
+            cacheHits += result.cacheHit ? 1 : 0;
+        }
+
+        /**
+         * Returns the number of compiled sources.
+         *
+         * @return the number of compiled sources.
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * Returns the number of sources that failed to compile.
+         *
+         * @return the number of sources that failed to compile.
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns the total size of the sources.
+         *
+         * @return the total size of the sources, in bytes.
+         */
+        public long getInputBytes() {
+            return inputBytes;
+        }
+
+        /**
+         * Returns the total size of the written dc code.
+         *
+         * @return the total size of the written dc code, in bytes.
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        /**
+         * Returns the total number of dc instructions eliminated by the
+         * optimizations.
+         *
+         * @return the total number of dc instructions eliminated.
+         */
+        public long getInstructionsEliminated() {
+            return instructionsEliminated;
+        }
+
+        /**
+         * Returns the number of sources found in the cache.
+         *
+         * @return the number of sources found in the cache.
+         */
+        public int getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * Returns the files per second, failures and total bytes of the compilation.
+         *
+         * @return a string summarizing the compilation.
+         */
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format(
+                    "Compiled %d files in %.3f s (%.1f files/s): %d failures, %d bytes read, %d bytes written, %d instructions eliminated, %d cache hits",
+                    files, seconds, files / seconds, failures, inputBytes, outputBytes, instructionsEliminated,
+                    cacheHits);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * On-disk cache of compilations, shared by the compilers running on the same
+ * machine.
+ * </p>
+ *
+ * <p>
+ * An entry holds the dc code or the errors of a source, and is named after the
+ * SHA-256 hash of {@link #COMPILER_VERSION} and of the source bytes, so that
+ * equal sources share it and a new compiler does not read the entries of an
+ * old one. Entries are written to a temporary file and renamed into place:
+ * processes sharing the directory never read a partial entry.
+ * </p>
+ *
+ * <p>
+ * Once the entries exceed the maximum size, the least recently used ones are
+ * deleted. A hit touches the modification time of its entry, which is the
+ * time eviction goes by.
+ * </p>
+ */
+public class CompilationCache {
+
+    /**
+     * Version of the generated code, part of every key. It must change whenever
+     * the code generated for a source may change.
+     */
+    public static final String COMPILER_VERSION = "compilatore-acdc 1.0/7";
+
+    /**
+     * Default maximum size of the entries of a cache directory.
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private static final String ENTRY_EXTENSION = ".entry";
+    private static final int MAGIC = 0xacdc0001;
+
+    private Path directory;
+    private long maxBytes;
+    private AtomicLong size = new AtomicLong();
+
+    /**
+     * Class constructor, creating the directory if needed.
+     *
+     * @param directory the directory holding the entries.
+     * @param maxBytes  the maximum size of the entries, in bytes.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public CompilationCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        for (Path entry : entries())
+            size.addAndGet(sizeOf(entry));
+    }
+
+    /**
+     * Returns the key of a source.
+     *
+     * @param source the bytes of the source.
+     * @return the hexadecimal SHA-256 hash of the compiler version and of the
+     *         source.
+     */
+    public static String keyOf(byte[] source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        digest.update(COMPILER_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(source);
+        var key = new StringBuilder(hash.length * 2);
+        for (byte b : hash)
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return key.toString();
+    }
+
+    /**
+     * Returns the compilation of a source, if cached.
+     *
+     * @param source the bytes of the source.
+     * @return the cached compilation, {@code null} if there is none or it cannot
+     *         be read.
+     */
+    public Entry get(byte[] source) {
+        Path path = directory.resolve(keyOf(source) + ENTRY_EXTENSION);
+        try (var in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC)
+                return null;
+            var entry = new Entry(in.readBoolean(), readString(in), readString(in), in.readLong());
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the compilation of a source, then evicts the least recently used
+     * entries if the cache is too large.
+     *
+     * @param source the bytes of the source.
+     * @param entry  the compilation of the source.
+     * @throws IOException If the entry cannot be written.
+     */
+    public void put(byte[] source, Entry entry) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeBoolean(entry.failed);
+            writeString(out, entry.code);
+            writeString(out, entry.errors);
+            out.writeLong(entry.instructionsEliminated);
+        }
+        String key = keyOf(source);
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            try {
+                Files.move(temporary, directory.resolve(key + ENTRY_EXTENSION), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, directory.resolve(key + ENTRY_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        if (size.addAndGet(bytes.size()) > maxBytes)
+            evict();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits its maximum
+     * size, counting the entries written by other processes too.
+     *
+     * @throws IOException If the directory cannot be listed.
+     */
+    private synchronized void evict() throws IOException {
+        Map<Path, FileTime> times = new HashMap<>();
+        long total = 0;
+        for (Path entry : entries()) {
+            times.put(entry, lastModifiedOf(entry));
+            total += sizeOf(entry);
+        }
+        List<Path> leastRecentFirst = new ArrayList<>(times.keySet());
+        leastRecentFirst.sort(Comparator.comparing(times::get));
+        for (int i = 0; i < leastRecentFirst.size() && total > maxBytes; i++) {
+            Path entry = leastRecentFirst.get(i);
+            long entrySize = sizeOf(entry);
+            if (Files.deleteIfExists(entry))
+                total -= entrySize;
+        }
+        size.set(total);
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(ENTRY_EXTENSION))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the size of an entry, {@code 0} if another process deleted it.
+     */
+    private static long sizeOf(Path entry) throws IOException {
+        try {
+            return Files.size(entry);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModifiedOf(Path entry) throws IOException {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (NoSuchFileException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Returns the total size of the entries, as last counted.
+     *
+     * @return the total size of the entries, in bytes.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Outcome of a compilation: its dc code if it succeeded, its errors if it
+     * failed.
+     */
+    public static class Entry {
+        private boolean failed;
+        private String code;
+        private String errors;
+        private long instructionsEliminated;
+
+        private Entry(boolean failed, String code, String errors, long instructionsEliminated) {
+            this.failed = failed;
+            this.code = code;
+            this.errors = errors;
+            this.instructionsEliminated = instructionsEliminated;
+        }
+
+        /**
+         * Returns the outcome of a successful compilation.
+         *
+         * @param code                   the dc code.
+         * @param instructionsEliminated the number of dc instructions eliminated.
+         * @return the outcome of the compilation.
+         */
+        public static Entry compiled(String code, long instructionsEliminated) {
+            return new Entry(false, code, "", instructionsEliminated);
+        }
+
+        /**
+         * Returns the outcome of a failed compilation.
+         *
+         * @param errors the errors found.
+         * @return the outcome of the compilation.
+         */
+        public static Entry failed(String errors) {
+            return new Entry(true, "", errors, 0);
+        }
+
+        /**
+         * Returns the dc code.
+         *
+         * @return the dc code, empty if the compilation failed.
+         */
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Returns the errors found.
+         *
+         * @return the errors found, empty if the compilation succeeded.
+         */
+        public String getErrors() {
+            return errors;
+        }
+
+        /**
+         * Returns {@code true} if the compilation failed.
+         *
+         * @return {@code true} if the compilation failed, otherwise {@code false}.
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns the number of dc instructions eliminated by the optimizations.
+         *
+         * @return the number of dc instructions eliminated.
+         */
+        public long getInstructionsEliminated() {
+            return instructionsEliminated;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package compiler;
+
+import symboltable.NameTable;
+import symboltable.SymbolTable;
+
+/**
+ * <p>
+ * State of a single compilation, shared by the visitors compiling one program.
+ * </p>
+ * 
+ * <p>
+ * Owns the {@link SymbolTable}, the {@link RegisterAllocator} and the
+ * {@link CompileReport}, so that compilations running in the same JVM, even
+ * concurrently, do not interfere.
+ * </p>
+ */
+public class CompilationContext {
+
+    private SymbolTable symbolTable;
+    private RegisterAllocator registers = new RegisterAllocator();
+    private CompileReport report = new CompileReport();
+
+    /**
+     * Class constructor of a compilation with its own names.
+     */
+    public CompilationContext() {
+        this(new NameTable());
+    }
+
+    /**
+     * Class constructor of a compilation sharing the names of its scanner, so
+     * that scanned identifiers are resolved by id.
+     * 
+     * @param names the names identifiers are interned in.
+     */
+    public CompilationContext(NameTable names) {
+        symbolTable = new SymbolTable(names);
+    }
+
+    /**
+     * Returns the symbol table of the compilation.
+     * 
+     * @return the symbol table of the compilation.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Returns the register allocator of the compilation.
+     * 
+     * @return the register allocator of the compilation.
+     */
+    public RegisterAllocator getRegisters() {
+        return registers;
+    }
+
+    /**
+     * Returns the optimization statistics of the compilation.
+     * 
+     * @return the optimization statistics of the compilation.
+     */
+    public CompileReport getReport() {
+        return report;
+    }
+}
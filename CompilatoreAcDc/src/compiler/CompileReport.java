@@ -0,0 +1,138 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Statistics of the optimizations applied to a single compilation.
+ * </p>
+ */
+public class CompileReport {
+
+    private int instructionsEliminated;
+    private int statementsEliminated;
+    private int declarationsEliminated;
+    private int subexpressionsEliminated;
+    private List<Integer> stackDepths = new ArrayList<>();
+    private int maxStackDepth;
+
+    /**
+     * Records dc instructions no longer generated.
+     * 
+     * @param count the number of instructions eliminated.
+     */
+    public void addInstructionsEliminated(int count) {
+        instructionsEliminated += count;
+    }
+
+    /**
+     * Returns the number of dc instructions no longer generated.
+     * 
+     * @return the number of dc instructions eliminated.
+     */
+    public int getInstructionsEliminated() {
+        return instructionsEliminated;
+    }
+
+    /**
+     * Records dead assignments removed.
+     * 
+     * @param count the number of assignments removed.
+     */
+    public void addStatementsEliminated(int count) {
+        statementsEliminated += count;
+    }
+
+    /**
+     * Returns the number of dead assignments removed.
+     * 
+     * @return the number of assignments removed.
+     */
+    public int getStatementsEliminated() {
+        return statementsEliminated;
+    }
+
+    /**
+     * Records declarations of unused variables removed.
+     * 
+     * @param count the number of declarations removed.
+     */
+    public void addDeclarationsEliminated(int count) {
+        declarationsEliminated += count;
+    }
+
+    /**
+     * Returns the number of declarations of unused variables removed.
+     * 
+     * @return the number of declarations removed.
+     */
+    public int getDeclarationsEliminated() {
+        return declarationsEliminated;
+    }
+
+    /**
+     * Records occurrences of common subexpressions no longer computed.
+     * 
+     * @param count the number of occurrences reused.
+     */
+    public void addSubexpressionsEliminated(int count) {
+        subexpressionsEliminated += count;
+    }
+
+    /**
+     * Returns the number of occurrences of common subexpressions no longer
+     * computed.
+     * 
+     * @return the number of occurrences reused.
+     */
+    public int getSubexpressionsEliminated() {
+        return subexpressionsEliminated;
+    }
+
+    /**
+     * Records the maximum depth of the dc stack reached by the code of the
+     * next statement.
+     * 
+     * @param depth the maximum number of values on the stack.
+     */
+    public void addStackDepth(int depth) {
+        stackDepths.add(depth);
+        maxStackDepth = Math.max(maxStackDepth, depth);
+    }
+
+    /**
+     * Returns the maximum depth of the dc stack reached by the code of every
+     * statement, in the order the statements were generated.
+     * 
+     * @return the maximum stack depths of the statements.
+     */
+    public List<Integer> getStackDepths() {
+        return Collections.unmodifiableList(stackDepths);
+    }
+
+    /**
+     * Returns the maximum depth of the dc stack reached by the code of any
+     * statement.
+     * 
+     * @return the maximum stack depth.
+     */
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    /**
+     * Returns the statistics of the compilation.
+     * 
+     * @return a string summarizing the optimizations.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "%d instructions eliminated, %d dead assignments and %d unused declarations removed, "
+                        + "%d common subexpressions reused, maximum stack depth %d",
+                instructionsEliminated, statementsEliminated, declarationsEliminated, subexpressionsEliminated,
+                maxStackDepth);
+    }
+}
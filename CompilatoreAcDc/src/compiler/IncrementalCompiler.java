@@ -0,0 +1,657 @@
+package compiler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeProgram;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import symboltable.SymbolTable;
+import visitor.CodeGeneratorVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.NodeCopyingVisitor;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * <p>
+ * Compiles an ac program and recompiles it after each text edit, reusing the
+ * work done for the statements the edit does not touch.
+ * </p>
+ *
+ * <p>
+ * Every declaration and statement ends at its {@code ;}, so the source is kept
+ * as a sequence of segments, each holding its text up to and including a
+ * {@code ;}, plus the text after the last one. A segment caches its
+ * {@link NodeDecSt}, its type errors and its dc code. An edit re-scans and
+ * re-parses only the segments it overlaps, and the cached code of the other
+ * segments is spliced around them.
+ * </p>
+ *
+ * <p>
+ * The segments are the nodes of a randomized balanced tree, each knowing the
+ * number of segments, characters and newlines below it, so the offset and row
+ * of a segment are sums along its path rather than fields to be shifted. An
+ * edit finds the segments it overlaps, cuts them out and links the new ones in
+ * visiting a number of segments logarithmic in the size of the program, and
+ * copies no text but their own. The nodes count the segments with syntax and
+ * type errors below them as well, so the errors are found without walking the
+ * whole program. The syntax error of a segment whose row has changed is only
+ * scanned again when it is asked for.
+ * </p>
+ *
+ * <p>
+ * Registers are allocated as {@link StreamingCompiler} does, one per
+ * declaration in order, so the code of a statement depends only on the
+ * declarations. As long as an edit leaves the declarations as they were, only
+ * the re-parsed statements are type checked again, each seeing the symbols
+ * declared before it. An edit adding, removing or changing a declaration
+ * checks and generates again the segments from the edit on, with the symbols
+ * and registers of the declarations before it: they are kept parsed, and every
+ * compilation checks a copy of their nodes.
+ * </p>
+ *
+ * <p>
+ * The code, errors and exceptions are the ones {@link StreamingCompiler} gives
+ * for the whole source. A program with a syntax error has no code, and the
+ * code of a program with type errors must be discarded.
+ * </p>
+ */
+public class IncrementalCompiler {
+
+    /**
+     * Root of the tree of segments, in source order.
+     */
+    private Segment root;
+    private CompilationContext context;
+    private int recompiled;
+    private int visited;
+
+    /**
+     * Priorities of the segments in the tree, seeded so that the shape of the
+     * tree, and the cost of an edit, are the same in every run.
+     */
+    private Random random = new Random(0);
+
+    /**
+     * Class constructor, compiling the whole program.
+     *
+     * @param source the source code of the program.
+     */
+    public IncrementalCompiler(String source) {
+        compileAll(source);
+    }
+
+    /**
+     * <p>
+     * Replaces a range of the source with a text and recompiles the segments it
+     * overlaps.
+     * </p>
+     *
+     * <p>
+     * A segment whose {@code ;} is removed is merged with the next one before
+     * being parsed again.
+     * </p>
+     *
+     * @param offset the offset of the replaced range.
+     * @param length the length of the replaced range, {@code 0} to insert.
+     * @param text   the text replacing the range, empty to delete.
+     */
+    public void edit(int offset, int length, String text) {
+        int size = characters(root);
+        if (offset < 0 || length < 0 || offset + length > size)
+            throw new IndexOutOfBoundsException(
+                    String.format("Edit of %d characters at %d out of %d", length, offset, size));
+        visited = 0;
+
+        Position first = locate(offset);
+        int last = length > 0 ? locate(offset + length - 1).index : first.index;
+        Segment[] before = cut(root, first.index);
+        Segment[] overlapped = cut(before[1], last - first.index + 1);
+        Segment after = overlapped[1];
+        List<Segment> replaced = new ArrayList<>();
+        collect(overlapped[0], replaced);
+
+        var edited = new StringBuilder();
+        for (Segment segment : replaced)
+            edited.append(segment.text);
+        edited.replace(offset - first.start, offset - first.start + length, text);
+        while (after != null && (edited.length() == 0 || edited.charAt(edited.length() - 1) != ';')) {
+            Segment[] next = cut(after, 1);
+            replaced.add(next[0]);
+            edited.append(next[0].text);
+            after = next[1];
+        }
+
+        // Segments are compiled before being linked, so that the trees count
+        // their errors
+        List<Segment> added = split(edited, first.row, after == null);
+        recompiled = 0;
+        if (sameDeclarations(replaced, added)) {
+            int symbols = replaced.get(0).symbolsBefore;
+            int declaration = 0;
+            for (Segment segment : added) {
+                segment.symbolsBefore = symbols;
+                if (segment.parsed instanceof NodeDecl) {
+                    while (!(replaced.get(declaration).parsed instanceof NodeDecl))
+                        declaration++;
+                    segment.reuse(replaced.get(declaration++));
+                } else
+                    compile(segment);
+                symbols = segment.symbolsAfter();
+            }
+        } else {
+            List<Segment> following = new ArrayList<>(added);
+            collect(after, following);
+            recompile(following, replaced.get(0).symbolsBefore);
+            update(after);
+        }
+        Segment middle = null;
+        for (Segment segment : added)
+            middle = join(middle, segment.update());
+        root = join(join(before[0], middle), after);
+    }
+
+    /**
+     * Compiles every segment of a source with a new context.
+     *
+     * @param source the source code of the program.
+     */
+    private void compileAll(String source) {
+        context = new CompilationContext();
+        root = null;
+        recompiled = 0;
+        SymbolTable symbolTable = context.getSymbolTable();
+        for (Segment segment : split(source, 1, true)) {
+            segment.symbolsBefore = symbolTable.size();
+            compile(segment);
+            root = join(root, segment.update());
+        }
+    }
+
+    /**
+     * Checks again the segments from an edit that changed the declarations on,
+     * as they were parsed, with the symbols and registers of the declarations
+     * before the edit only.
+     *
+     * @param following the segments from the edit on, in order.
+     * @param symbols   the number of symbols declared before the edit.
+     */
+    private void recompile(List<Segment> following, int symbols) {
+        context.getSymbolTable().truncate(symbols);
+        context.getRegisters().release(symbols);
+        for (Segment segment : following) {
+            segment.symbolsBefore = symbols;
+            compile(segment);
+            symbols = segment.symbolsAfter();
+        }
+    }
+
+    /**
+     * Splits a text into parsed segments.
+     *
+     * @param text the text.
+     * @param row  the row the text starts in.
+     * @param tail {@code true} if the text is the end of the source, whose text
+     *             after the last {@code ;} is a segment too.
+     * @return the parsed segments.
+     */
+    private List<Segment> split(CharSequence text, int row, boolean tail) {
+        List<Segment> split = new ArrayList<>();
+        int from = 0;
+        for (int to = 0; to < text.length(); to++)
+            if (text.charAt(to) == ';') {
+                Segment segment = parse(new Segment(text.subSequence(from, to + 1).toString(), row, random.nextInt()));
+                split.add(segment);
+                row += segment.newlines;
+                from = to + 1;
+            }
+        if (tail)
+            split.add(parse(new Segment(text.subSequence(from, text.length()).toString(), row, random.nextInt())));
+        return split;
+    }
+
+    /**
+     * Parses the declaration or statement of a segment, recording its syntax
+     * error if any.
+     *
+     * @param segment the segment.
+     * @return the segment.
+     */
+    private Segment parse(Segment segment) {
+        segment.parsed = null;
+        segment.exception = null;
+        var parser = new Parser(
+                new Scanner(new StringReader(segment.text), context.getSymbolTable().getNames(), segment.row));
+        try {
+            segment.parsed = parser.parseNext();
+        } catch (SyntacticException e) {
+            segment.exception = e;
+        }
+        return segment;
+    }
+
+    /**
+     * Type checks a copy of a parsed segment and generates its code if it has
+     * no errors, keeping the parsed node as it is for later compilations.
+     * A statement sees the symbols declared before it, while a declaration is
+     * only checked when the segments are compiled in order.
+     */
+    private void compile(Segment segment) {
+        recompiled++;
+        segment.errors = "";
+        segment.code = "";
+        segment.node = segment.parsed == null ? null : NodeCopyingVisitor.copy(segment.parsed);
+        if (segment.node == null)
+            return;
+        SymbolTable symbolTable = context.getSymbolTable();
+        if (!(segment.node instanceof NodeDecl))
+            symbolTable.setVisible(segment.symbolsBefore);
+        var typeVisitor = new TypeCheckingVisitor(context);
+        segment.node.accept(typeVisitor);
+        symbolTable.setVisible(Integer.MAX_VALUE);
+        segment.errors = typeVisitor.getLoggerString();
+        if (typeVisitor.hasErrors())
+            return;
+        segment.node.accept(new ConstantFoldingVisitor(context));
+        var codeGenVisitor = new CodeGeneratorVisitor(context);
+        segment.node.accept(codeGenVisitor);
+        segment.code = codeGenVisitor.getCode();
+    }
+
+    /**
+     * Returns {@code true} if two lists of segments declare the same variables
+     * with the same types, in the same order.
+     */
+    private static boolean sameDeclarations(List<Segment> replaced, List<Segment> added) {
+        List<NodeDecl> before = declarations(replaced);
+        List<NodeDecl> after = declarations(added);
+        if (before.size() != after.size())
+            return false;
+        for (int i = 0; i < before.size(); i++)
+            if (before.get(i).getType() != after.get(i).getType()
+                    || !before.get(i).getNodeId().getName().equals(after.get(i).getNodeId().getName()))
+                return false;
+        return true;
+    }
+
+    private static List<NodeDecl> declarations(List<Segment> segments) {
+        List<NodeDecl> declarations = new ArrayList<>();
+        for (Segment segment : segments)
+            if (segment.parsed instanceof NodeDecl)
+                declarations.add((NodeDecl) segment.parsed);
+        return declarations;
+    }
+
+    /**
+     * Returns the index, offset and row of the segment holding a character, or
+     * of the last segment for the end of the source.
+     */
+    private Position locate(int offset) {
+        var position = new Position();
+        int index = 0;
+        int start = 0;
+        int row = 1;
+        for (Segment segment = root; segment != null;) {
+            visited++;
+            int segmentStart = start + characters(segment.left);
+            int segmentIndex = index + segments(segment.left);
+            int segmentRow = row + newlines(segment.left);
+            if (segmentStart <= offset) {
+                position.index = segmentIndex;
+                position.start = segmentStart;
+                position.row = segmentRow;
+                index = segmentIndex + 1;
+                start = segmentStart + segment.text.length();
+                row = segmentRow + segment.newlines;
+                segment = segment.right;
+            } else
+                segment = segment.left;
+        }
+        return position;
+    }
+
+    /**
+     * Cuts a tree into the tree of its first segments and the tree of the
+     * others.
+     *
+     * @param tree  the tree, {@code null} if empty.
+     * @param count the number of segments of the first tree.
+     * @return the two trees.
+     */
+    private Segment[] cut(Segment tree, int count) {
+        if (tree == null)
+            return new Segment[2];
+        visited++;
+        Segment[] trees;
+        if (segments(tree.left) < count) {
+            trees = cut(tree.right, count - segments(tree.left) - 1);
+            tree.right = trees[0];
+            trees[0] = tree.update();
+        } else {
+            trees = cut(tree.left, count);
+            tree.left = trees[1];
+            trees[1] = tree.update();
+        }
+        return trees;
+    }
+
+    /**
+     * Joins two trees, the segments of the first one coming first.
+     *
+     * @param first  the first tree, {@code null} if empty.
+     * @param second the second tree, {@code null} if empty.
+     * @return the joined tree.
+     */
+    private Segment join(Segment first, Segment second) {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        visited++;
+        if (first.priority > second.priority) {
+            first.right = join(first.right, second);
+            return first.update();
+        }
+        second.left = join(first, second.left);
+        return second.update();
+    }
+
+    /**
+     * Counts again the segments, characters, newlines and errors of every
+     * segment of a tree, after their errors have changed.
+     */
+    private static void update(Segment tree) {
+        if (tree == null)
+            return;
+        update(tree.left);
+        update(tree.right);
+        tree.update();
+    }
+
+    /**
+     * Appends the type errors of the segments of a tree, skipping the trees
+     * with none.
+     */
+    private void appendErrors(Segment tree, StringBuilder logger) {
+        if (typeErrors(tree) == 0)
+            return;
+        visited++;
+        appendErrors(tree.left, logger);
+        logger.append(tree.errors);
+        appendErrors(tree.right, logger);
+    }
+
+    /**
+     * Adds the segments of a tree to a list, in order.
+     */
+    private static void collect(Segment tree, List<Segment> segments) {
+        if (tree == null)
+            return;
+        collect(tree.left, segments);
+        segments.add(tree);
+        collect(tree.right, segments);
+    }
+
+    /**
+     * Returns the segments of the program, in order.
+     */
+    private List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>();
+        collect(root, segments);
+        return segments;
+    }
+
+    private static int segments(Segment tree) {
+        return tree == null ? 0 : tree.segments;
+    }
+
+    private static int characters(Segment tree) {
+        return tree == null ? 0 : tree.characters;
+    }
+
+    private static int newlines(Segment tree) {
+        return tree == null ? 0 : tree.newlinesBelow;
+    }
+
+    private static int syntaxErrors(Segment tree) {
+        return tree == null ? 0 : tree.syntaxErrors;
+    }
+
+    private static int typeErrors(Segment tree) {
+        return tree == null ? 0 : tree.typeErrors;
+    }
+
+    /**
+     * Returns the source code.
+     *
+     * @return the source code.
+     */
+    public String getSource() {
+        var source = new StringBuilder(characters(root));
+        for (Segment segment : segments())
+            source.append(segment.text);
+        return source.toString();
+    }
+
+    /**
+     * Returns the number of segments compiled by the last edit, or by the
+     * constructor.
+     *
+     * @return the number of segments compiled.
+     */
+    public int getRecompiled() {
+        return recompiled;
+    }
+
+    /**
+     * Returns the number of segments visited since the last edit began: by the
+     * edit, to find, cut out and link the segments it overlaps, and by the
+     * queries of the errors after it.
+     *
+     * @return the number of segments visited.
+     */
+    public int getVisited() {
+        return visited;
+    }
+
+    /**
+     * Returns the compilation state, including its symbol table.
+     *
+     * @return the compilation state.
+     */
+    public CompilationContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the first syntax error of the program.
+     *
+     * @return the first syntax error, {@code null} if the program is
+     *         syntactically correct.
+     */
+    public SyntacticException getSyntacticException() {
+        if (syntaxErrors(root) == 0)
+            return null;
+        Segment segment = root;
+        int row = 1;
+        for (;;) {
+            visited++;
+            if (syntaxErrors(segment.left) > 0) {
+                segment = segment.left;
+                continue;
+            }
+            row += newlines(segment.left);
+            if (segment.exception != null)
+                break;
+            row += segment.newlines;
+            segment = segment.right;
+        }
+        // Edits before the segment may have moved it since it was parsed
+        if (segment.row != row) {
+            segment.row = row;
+            parse(segment);
+        }
+        return segment.exception;
+    }
+
+    /**
+     * Returns {@code true} if the program has syntax or type errors.
+     *
+     * @return {@code true} if the program has errors, otherwise {@code false}.
+     */
+    public boolean hasErrors() {
+        return syntaxErrors(root) + typeErrors(root) > 0;
+    }
+
+    /**
+     * Returns a string representing all type errors found.
+     *
+     * @return a string representing all type errors found.
+     */
+    public String getLoggerString() {
+        var logger = new StringBuilder();
+        appendErrors(root, logger);
+        return logger.toString();
+    }
+
+    /**
+     * Returns the declarations and statements of the program, as parsed and
+     * checked so far.
+     *
+     * @return the program.
+     */
+    public NodeProgram getProgram() {
+        ArrayList<NodeDecSt> decSts = new ArrayList<>();
+        for (Segment segment : segments())
+            if (segment.node != null)
+                decSts.add(segment.node);
+        return new NodeProgram(decSts);
+    }
+
+    /**
+     * Returns the code of the program, spliced from the code of its segments.
+     *
+     * @return the code of the program.
+     */
+    public String getCode() {
+        var code = new StringBuilder();
+        for (Segment segment : segments())
+            if (!segment.code.isEmpty())
+                (code.length() == 0 ? code : code.append(' ')).append(segment.code);
+        return code.toString();
+    }
+
+    /**
+     * Writes the code of the program.
+     *
+     * @param writer the writer receiving the code.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeCode(Writer writer) throws IOException {
+        boolean written = false;
+        for (Segment segment : segments())
+            if (!segment.code.isEmpty()) {
+                if (written)
+                    writer.write(' ');
+                writer.write(segment.code);
+                written = true;
+            }
+        writer.flush();
+    }
+
+    /**
+     * A declaration or statement with the source text it is parsed from, up to
+     * and including its {@code ;}, and a node of the tree of segments.
+     */
+    private static class Segment {
+        private String text;
+        private int newlines;
+
+        /**
+         * Node as parsed, and the copy type checked and optimized.
+         */
+        private NodeDecSt parsed;
+        private NodeDecSt node;
+        private SyntacticException exception;
+        private String errors = "";
+        private String code = "";
+
+        /**
+         * Row the segment was last parsed in.
+         */
+        private int row;
+
+        /**
+         * Number of symbols entered by the declarations before the segment.
+         */
+        private int symbolsBefore;
+
+        private int priority;
+        private Segment left;
+        private Segment right;
+
+        /**
+         * Number of segments, characters, newlines, and segments with syntax
+         * or type errors of the tree of the segment.
+         */
+        private int segments = 1;
+        private int characters;
+        private int newlinesBelow;
+        private int syntaxErrors;
+        private int typeErrors;
+
+        private Segment(String text, int row, int priority) {
+            this.text = text;
+            this.row = row;
+            this.priority = priority;
+            newlines = (int) text.chars().filter(c -> c == '\n').count();
+            characters = text.length();
+            newlinesBelow = newlines;
+        }
+
+        /**
+         * Takes the node, errors and code of an equal declaration.
+         */
+        private void reuse(Segment declaration) {
+            parsed = declaration.parsed;
+            node = declaration.node;
+            errors = declaration.errors;
+            code = declaration.code;
+        }
+
+        private int symbolsAfter() {
+            return symbolsBefore + (node instanceof NodeDecl && errors.isEmpty() ? 1 : 0);
+        }
+
+        /**
+         * Counts again the segments, characters, newlines and errors of the
+         * tree of the segment, after its children or its errors have changed.
+         */
+        private Segment update() {
+            segments = 1 + IncrementalCompiler.segments(left) + IncrementalCompiler.segments(right);
+            characters = text.length() + IncrementalCompiler.characters(left) + IncrementalCompiler.characters(right);
+            newlinesBelow = newlines + newlines(left) + newlines(right);
+            syntaxErrors = (exception != null ? 1 : 0) + IncrementalCompiler.syntaxErrors(left)
+                    + IncrementalCompiler.syntaxErrors(right);
+            typeErrors = (errors.isEmpty() ? 0 : 1) + IncrementalCompiler.typeErrors(left)
+                    + IncrementalCompiler.typeErrors(right);
+            return this;
+        }
+    }
+
+    /**
+     * Index, offset and row of a segment.
+     */
+    private static class Position {
+        private int index;
+        private int start;
+        private int row;
+    }
+}
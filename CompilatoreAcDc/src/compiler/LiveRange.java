@@ -0,0 +1,98 @@
+package compiler;
+
+import symboltable.Attributes;
+
+/**
+ * <p>
+ * Statements between the first and the last access to a variable.
+ * </p>
+ * 
+ * <p>
+ * Outside its live range a variable holds no value worth keeping, so its
+ * register can be given to another variable.
+ * </p>
+ */
+public class LiveRange {
+
+    private Attributes definition;
+    private int declaration;
+    private int start = -1;
+    private int end = -1;
+
+    /**
+     * Class constructor of a variable not yet accessed.
+     * 
+     * @param definition  the attributes of the variable.
+     * @param declaration the index of the variable among the declared ones.
+     */
+    public LiveRange(Attributes definition, int declaration) {
+        this.definition = definition;
+        this.declaration = declaration;
+    }
+
+    /**
+     * <p>
+     * Records an access to the variable in the given statement.
+     * </p>
+     * 
+     * <p>
+     * A variable read before being assigned is live from the start of the
+     * program, so that it never sees the value of another variable.
+     * </p>
+     * 
+     * @param statement the index of the statement.
+     * @param read      {@code true} if the variable is read, {@code false} if it
+     *                  is assigned.
+     */
+    public void access(int statement, boolean read) {
+        if (!isLive())
+            start = read ? -1 : statement;
+        end = statement;
+    }
+
+    /**
+     * Returns {@code true} if the variable is accessed at all.
+     * 
+     * @return {@code true} if the variable is accessed, otherwise {@code false}.
+     */
+    public boolean isLive() {
+        return end >= 0;
+    }
+
+    /**
+     * Returns the attributes of the variable.
+     * 
+     * @return the attributes of the variable.
+     */
+    public Attributes getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the index of the variable among the declared ones.
+     * 
+     * @return the index of the variable among the declared ones.
+     */
+    public int getDeclaration() {
+        return declaration;
+    }
+
+    /**
+     * Returns the statement of the first access, {@code -1} if the variable is
+     * read before being assigned.
+     * 
+     * @return the statement of the first access.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the statement of the last access.
+     * 
+     * @return the statement of the last access.
+     */
+    public int getEnd() {
+        return end;
+    }
+}
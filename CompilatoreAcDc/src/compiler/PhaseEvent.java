@@ -0,0 +1,118 @@
+package compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p>
+ * Flight Recorder event of a phase of the compilation of a single source, one
+ * event type per phase.
+ * </p>
+ *
+ * <p>
+ * Every event of a source carries the statistics of the whole compilation,
+ * known once it is over: the events are begun and ended around their phase,
+ * and committed together when the source is compiled or fails. The statistics
+ * are only gathered if an event is to be committed, so compiling costs
+ * nothing more while no recording is running.
+ * </p>
+ */
+@Category({ "Compilatore AcDc", "Compilation" })
+@StackTrace(false)
+public abstract class PhaseEvent extends Event {
+
+    // Protected: Flight Recorder leaves out the private fields of superclasses
+    @Label("File")
+    protected String file;
+
+    @Label("Input Size")
+    @DataAmount
+    protected long inputBytes;
+
+    @Label("Tokens")
+    protected long tokens;
+
+    @Label("AST Nodes")
+    protected long astNodes;
+
+    @Label("Symbols")
+    protected long symbols;
+
+    @Label("Output Size")
+    @DataAmount
+    protected long outputBytes;
+
+    /**
+     * Sets the statistics of the compilation.
+     *
+     * @param file        the source file.
+     * @param inputBytes  the size of the source.
+     * @param tokens      the number of tokens scanned.
+     * @param astNodes    the number of nodes of the parsed AST.
+     * @param symbols     the number of variables declared.
+     * @param outputBytes the size of the generated code, {@code 0} if the
+     *                    source failed.
+     */
+    void setStatistics(String file, long inputBytes, long tokens, long astNodes, long symbols, long outputBytes) {
+        this.file = file;
+        this.inputBytes = inputBytes;
+        this.tokens = tokens;
+        this.astNodes = astNodes;
+        this.symbols = symbols;
+        this.outputBytes = outputBytes;
+    }
+
+    /**
+     * Scanning of a source.
+     */
+    @Name("compilatore.acdc.Scan")
+    @Label("Scanning")
+    @Description("Tokens are scanned on demand while parsing, so the event spans the parsing: "
+            + "the time spent in the scanner is Scan Time")
+    public static final class Scan extends PhaseEvent {
+
+        @Label("Scan Time")
+        @Timespan
+        private long scanTime;
+
+        /**
+         * Sets the time spent in the scanner.
+         *
+         * @param scanTime the time spent scanning, in nanoseconds.
+         */
+        void setScanTime(long scanTime) {
+            this.scanTime = scanTime;
+        }
+    }
+
+    /**
+     * Parsing of a source, scanning included.
+     */
+    @Name("compilatore.acdc.Parse")
+    @Label("Parsing")
+    public static final class Parse extends PhaseEvent {
+    }
+
+    /**
+     * Type checking of a parsed source.
+     */
+    @Name("compilatore.acdc.TypeCheck")
+    @Label("Type Checking")
+    public static final class TypeCheck extends PhaseEvent {
+    }
+
+    /**
+     * Generation of the optimized code of a checked source, written to its
+     * destination.
+     */
+    @Name("compilatore.acdc.CodeGeneration")
+    @Label("Code Generation")
+    public static final class CodeGeneration extends PhaseEvent {
+    }
+}
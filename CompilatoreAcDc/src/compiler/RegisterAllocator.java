@@ -0,0 +1,159 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import symboltable.Attributes;
+
+/**
+ * <p>
+ * Hands out the dc registers of a single compilation.
+ * </p>
+ * 
+ * <p>
+ * dc has one register per lowercase letter. Variables that do not fit are
+ * spilled to the array of register {@value #SPILL_ARRAY}, one slot each: dc
+ * arrays are kept apart from register values, so spilling costs no register.
+ * </p>
+ */
+public class RegisterAllocator {
+
+    /**
+     * Register whose array holds the spilled variables.
+     */
+    public static final char SPILL_ARRAY = 'a';
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private char[] register;
+    private int registerIndex = 0;
+    private int spillIndex = 0;
+
+    /**
+     * Class constructor, using all the dc registers.
+     */
+    public RegisterAllocator() {
+        this(ALPHABET.length());
+    }
+
+    /**
+     * Class constructor.
+     * 
+     * @param registers the number of registers to be handed out, at most 26.
+     */
+    public RegisterAllocator(int registers) {
+        register = ALPHABET.substring(0, registers).toCharArray();
+    }
+
+    /**
+     * <p>
+     * Gives a variable the next free register, or the next spill slot once
+     * every register is taken.
+     * </p>
+     * 
+     * <p>
+     * Registers are never reused: this is the allocation of a program compiled
+     * one statement at a time, whose future accesses are unknown.
+     * </p>
+     * 
+     * @param definition the attributes of the variable.
+     */
+    public void allocate(Attributes definition) {
+        if (registerIndex < register.length)
+            definition.setRegister(register[registerIndex++]);
+        else
+            definition.setSpillSlot(spillIndex++);
+    }
+
+    /**
+     * Takes back the registers and spill slots given by
+     * {@link #allocate(Attributes)} to the variables after the first ones, to be
+     * given again in the same order.
+     * 
+     * @param variables the number of variables keeping theirs.
+     */
+    public void release(int variables) {
+        registerIndex = Math.min(variables, register.length);
+        spillIndex = Math.max(0, variables - register.length);
+    }
+
+    /**
+     * <p>
+     * Gives every live variable of a whole program a register or a spill slot,
+     * scanning the live ranges in order of start.
+     * </p>
+     * 
+     * <p>
+     * The registers and slots of the variables whose range has ended are reused.
+     * A variable takes the register of its declaration index while that is free,
+     * so programs with no more variables than registers compile as if registers
+     * were handed out in declaration order. When no register is free, the
+     * variable whose range ends last is spilled, to a slot free for its whole
+     * range.
+     * </p>
+     * 
+     * @param ranges the live ranges of the program variables.
+     */
+    public void allocate(List<LiveRange> ranges) {
+        List<LiveRange> sorted = new ArrayList<>();
+        for (LiveRange range : ranges)
+            if (range.isLive())
+                sorted.add(range);
+        sorted.sort(Comparator.comparingInt(LiveRange::getStart));
+
+        Comparator<LiveRange> byEnd = Comparator.comparingInt(LiveRange::getEnd)
+                .thenComparingInt(LiveRange::getDeclaration);
+        TreeSet<LiveRange> inRegisters = new TreeSet<>(byEnd);
+        TreeSet<LiveRange> spilled = new TreeSet<>(byEnd);
+        BitSet freeRegisters = new BitSet();
+        freeRegisters.set(0, register.length);
+        BitSet usedSlots = new BitSet();
+        int[] slotEnds = new int[0];
+
+        for (LiveRange range : sorted) {
+            // The statement starting a range assigns its variable after reading
+            // all the others, so ranges ending there are already dead
+            while (!inRegisters.isEmpty() && inRegisters.first().getEnd() <= range.getStart())
+                freeRegisters.set(indexOf(inRegisters.pollFirst().getDefinition().getRegister()));
+            while (!spilled.isEmpty() && spilled.first().getEnd() <= range.getStart())
+                usedSlots.clear(spilled.pollFirst().getDefinition().getSpillSlot());
+
+            int index = range.getDeclaration() < register.length && freeRegisters.get(range.getDeclaration())
+                    ? range.getDeclaration()
+                    : freeRegisters.nextSetBit(0);
+            LiveRange victim = range;
+            if (index >= 0) {
+                freeRegisters.clear(index);
+                range.getDefinition().setRegister(register[index]);
+                inRegisters.add(range);
+                continue;
+            }
+            if (!inRegisters.isEmpty() && inRegisters.last().getEnd() > range.getEnd()) {
+                victim = inRegisters.pollLast();
+                range.getDefinition().setRegister(victim.getDefinition().getRegister());
+                inRegisters.add(range);
+            }
+            // A variable is spilled for its whole range: an evicted one needs a
+            // slot no other variable has held since the start of its range
+            int slot = usedSlots.nextClearBit(0);
+            while (slot < slotEnds.length && slotEnds[slot] > victim.getStart())
+                slot = usedSlots.nextClearBit(slot + 1);
+            if (slot >= slotEnds.length) {
+                int length = slotEnds.length;
+                slotEnds = Arrays.copyOf(slotEnds, Math.max(slot + 1, length * 2));
+                Arrays.fill(slotEnds, length, slotEnds.length, Integer.MIN_VALUE);
+            }
+            slotEnds[slot] = victim.getEnd();
+            usedSlots.set(slot);
+            victim.getDefinition().setSpillSlot(slot);
+            spilled.add(victim);
+        }
+    }
+
+    private int indexOf(char reg) {
+        return reg - register[0];
+    }
+}
@@ -0,0 +1,116 @@
+package compiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import ast.NodeDecSt;
+import dc.CodeSink;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * <p>
+ * Compiles an ac program to dc code one declaration or statement at a time.
+ * </p>
+ *
+ * <p>
+ * Each {@link NodeDecSt} is parsed, type checked, simplified and turned into dc
+ * code, which is appended to a {@link CodeSink} before the next one is read. The node is then
+ * discarded, so memory does not grow with the program size: only the symbol table is kept.
+ * </p>
+ *
+ * <p>
+ * Once a type error is found no more code is written, but the rest of the
+ * program is still type checked to report all errors. The output of a program
+ * with errors is therefore partial and must be discarded.
+ * </p>
+ */
+public class StreamingCompiler {
+
+    private CompilationContext context;
+    private Parser parser;
+    private TypeCheckingVisitor typeVisitor;
+    private ConstantFoldingVisitor foldingVisitor;
+    private CodeGeneratorVisitor codeGenVisitor;
+
+    /**
+     * Class constructor.
+     *
+     * @param scanner the scanner reading the program.
+     * @param writer  the writer receiving the dc code.
+     */
+    public StreamingCompiler(Scanner scanner, Writer writer) {
+        this(scanner, CodeSink.of(writer));
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param scanner the scanner reading the program.
+     * @param sink    the sink receiving the dc code.
+     */
+    public StreamingCompiler(Scanner scanner, CodeSink sink) {
+        this.context = new CompilationContext(scanner.getNames());
+        this.parser = new Parser(scanner);
+        this.typeVisitor = new TypeCheckingVisitor(context);
+        this.foldingVisitor = new ConstantFoldingVisitor(context);
+        this.codeGenVisitor = new CodeGeneratorVisitor(context, sink);
+    }
+
+    /**
+     * Returns the compilation state, including its symbol table.
+     *
+     * @return the compilation state.
+     */
+    public CompilationContext getContext() {
+        return context;
+    }
+
+    /**
+     * Compiles the whole program and flushes the sink.
+     *
+     * @return {@code true} if the program has no type errors, otherwise
+     *         {@code false}.
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while writing code.
+     */
+    public boolean compile() throws SyntacticException, IOException {
+        try {
+            for (NodeDecSt node = parser.parseNext(); node != null; node = parser.parseNext()) {
+                node.accept(typeVisitor);
+                if (!typeVisitor.hasErrors()) {
+                    node.accept(foldingVisitor);
+                    node.accept(codeGenVisitor);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        codeGenVisitor.flush();
+        return !typeVisitor.hasErrors();
+    }
+
+    /**
+     * Returns {@code true} if the compiler found type errors.
+     *
+     * @return {@code true} if the compiler found type errors, otherwise
+     *         {@code false}.
+     */
+    public boolean hasErrors() {
+        return typeVisitor.hasErrors();
+    }
+
+    /**
+     * Returns a string representing all type errors found.
+     *
+     * @return a string representing all type errors found.
+     */
+    public String getLoggerString() {
+        return typeVisitor.getLoggerString();
+    }
+}
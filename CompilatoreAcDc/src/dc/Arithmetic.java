@@ -0,0 +1,170 @@
+package dc;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * <p>
+ * Arithmetic of dc numbers.
+ * </p>
+ * 
+ * <p>
+ * A dc number is a decimal with its own scale. Sums and differences keep the
+ * larger scale of their operands; products and quotients depend on the
+ * precision {@code k} and are truncated toward zero, never rounded.
+ * </p>
+ */
+public final class Arithmetic {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private Arithmetic() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the sum of two numbers, with the larger scale of the two.
+     * 
+     * @param a the first addend.
+     * @param b the second addend.
+     * @return the sum.
+     */
+    public static BigDecimal add(BigDecimal a, BigDecimal b) {
+        return a.add(b);
+    }
+
+    /**
+     * Returns the difference of two numbers, with the larger scale of the two.
+     * 
+     * @param a the minuend.
+     * @param b the subtrahend.
+     * @return the difference.
+     */
+    public static BigDecimal subtract(BigDecimal a, BigDecimal b) {
+        return a.subtract(b);
+    }
+
+    /**
+     * Returns the product of two numbers, truncated to the sum of their scales
+     * but to no less than the larger of {@code k} and their scales.
+     * 
+     * @param a the multiplicand.
+     * @param b the multiplier.
+     * @param k the precision.
+     * @return the product.
+     */
+    public static BigDecimal multiply(BigDecimal a, BigDecimal b, int k) {
+        int scale = Math.min(a.scale() + b.scale(), Math.max(k, Math.max(a.scale(), b.scale())));
+        return a.multiply(b).setScale(scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Returns the quotient of two numbers, truncated to {@code k} decimals.
+     * 
+     * @param a the dividend.
+     * @param b the divisor, not zero.
+     * @param k the precision.
+     * @return the quotient.
+     */
+    public static BigDecimal divide(BigDecimal a, BigDecimal b, int k) {
+        return a.divide(b, k, RoundingMode.DOWN);
+    }
+
+    /**
+     * Returns the result of an operation.
+     * 
+     * @param op the operation, one of {@code + - * /}.
+     * @param a  the first operand.
+     * @param b  the second operand, not zero for divisions.
+     * @param k  the precision.
+     * @return the result.
+     */
+    public static BigDecimal apply(char op, BigDecimal a, BigDecimal b, int k) {
+        switch (op) {
+            case '+':
+                return add(a, b);
+            case '-':
+                return subtract(a, b);
+            case '*':
+                return multiply(a, b, k);
+            default:
+                return divide(a, b, k);
+        }
+    }
+
+    /**
+     * Returns the scale of the result of an operation.
+     * 
+     * @param op the operation, one of {@code + - * /}.
+     * @param sa the scale of the first operand.
+     * @param sb the scale of the second operand.
+     * @param k  the precision.
+     * @return the scale of the result.
+     */
+    public static int scaleOf(char op, int sa, int sb, int k) {
+        switch (op) {
+            case '+':
+            case '-':
+                return Math.max(sa, sb);
+            case '*':
+                return Math.min(sa + sb, Math.max(k, Math.max(sa, sb)));
+            default:
+                return k;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the unscaled result of an operation on two unscaled {@code long}
+     * values, at the scale given by {@link #scaleOf(char, int, int, int)}.
+     * </p>
+     * 
+     * <p>
+     * This is the same result as {@link #apply(char, BigDecimal, BigDecimal, int)}
+     * with no allocation, as long as everything fits a {@code long}.
+     * </p>
+     * 
+     * @param op the operation, one of {@code + - * /}.
+     * @param a  the unscaled first operand.
+     * @param sa the scale of the first operand.
+     * @param b  the unscaled second operand, not zero for divisions.
+     * @param sb the scale of the second operand.
+     * @param k  the precision.
+     * @return the unscaled result.
+     * @throws ArithmeticException If the result or a step to it does not fit a
+     *                             {@code long}.
+     */
+    public static long apply(char op, long a, int sa, long b, int sb, int k) {
+        switch (op) {
+            case '+':
+            case '-': {
+                int scale = Math.max(sa, sb);
+                a = Math.multiplyExact(a, powerOfTen(scale - sa));
+                b = Math.multiplyExact(b, powerOfTen(scale - sb));
+                return op == '+' ? Math.addExact(a, b) : Math.subtractExact(a, b);
+            }
+            case '*': {
+                int truncated = sa + sb - scaleOf(op, sa, sb, k);
+                long product = Math.multiplyExact(a, b);
+                return truncated >= POWERS_OF_TEN.length ? 0 : product / POWERS_OF_TEN[truncated];
+            }
+            default: {
+                int exponent = sb + k - sa;
+                return exponent >= 0 ? Math.multiplyExact(a, powerOfTen(exponent)) / b
+                        : a / Math.multiplyExact(b, powerOfTen(-exponent));
+            }
+        }
+    }
+
+    static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length)
+            throw new ArithmeticException("long overflow");
+        return POWERS_OF_TEN[exponent];
+    }
+}
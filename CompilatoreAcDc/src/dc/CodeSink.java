@@ -0,0 +1,220 @@
+package dc;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Destination of generated dc code: a {@link Writer}, a
+ * {@link WritableByteChannel} or a buffer in memory.
+ * </p>
+ *
+ * <p>
+ * Code is gathered in a chunk of {@value #CHUNK_LENGTH} characters, handed
+ * over to the destination every time the chunk fills up, so the output is
+ * written while it is generated and is never held whole in memory. Instructions
+ * are separated by a single space, with no leading nor trailing space.
+ * </p>
+ *
+ * <p>
+ * Code generators are visitors, which cannot throw checked exceptions: an
+ * I/O error while appending code is thrown as an
+ * {@link UncheckedIOException}.
+ * </p>
+ */
+public abstract class CodeSink implements Flushable {
+
+    private static final int CHUNK_LENGTH = 1 << 13;
+
+    private char[] chunk = new char[CHUNK_LENGTH];
+    private int position;
+    private long length;
+
+    /**
+     * Returns a sink keeping the code in memory.
+     *
+     * @return a sink keeping the code in memory.
+     */
+    public static Memory inMemory() {
+        return new Memory();
+    }
+
+    /**
+     * Returns a sink writing the code to a writer.
+     *
+     * @param writer the writer receiving the code.
+     * @return a sink writing the code to the writer.
+     */
+    public static CodeSink of(Writer writer) {
+        return new CodeSink() {
+            @Override
+            protected void drain(char[] chars, int count) throws IOException {
+                writer.write(chars, 0, count);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                super.flush();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Returns a sink writing the code to a channel, as ASCII bytes.
+     *
+     * @param channel the channel receiving the code.
+     * @return a sink writing the code to the channel.
+     */
+    public static CodeSink of(WritableByteChannel channel) {
+        ByteBuffer bytes = ByteBuffer.allocate(CHUNK_LENGTH);
+        return new CodeSink() {
+            @Override
+            protected void drain(char[] chars, int count) throws IOException {
+                bytes.clear();
+                for (int i = 0; i < count; i++)
+                    bytes.put((byte) chars[i]);
+                bytes.flip();
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+            }
+        };
+    }
+
+    /**
+     * Hands a full chunk of code over to the destination.
+     *
+     * @param chars the chunk.
+     * @param count the number of characters in the chunk.
+     * @throws IOException If an I/O error occurs.
+     */
+    protected abstract void drain(char[] chars, int count) throws IOException;
+
+    /**
+     * Starts a new instruction, separating it from the previous one.
+     *
+     * @return this sink.
+     */
+    public CodeSink instruction() {
+        if (length > 0)
+            append(' ');
+        return this;
+    }
+
+    /**
+     * Appends a character.
+     *
+     * @param c the character.
+     * @return this sink.
+     */
+    public CodeSink append(char c) {
+        if (position == chunk.length)
+            drainChunk();
+        chunk[position++] = c;
+        length++;
+        return this;
+    }
+
+    /**
+     * Appends a range of characters.
+     *
+     * @param chars the characters.
+     * @param start the index of the first character.
+     * @param end   the index after the last character.
+     * @return this sink.
+     */
+    public CodeSink append(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++)
+            append(chars.charAt(i));
+        return this;
+    }
+
+    /**
+     * Appends characters.
+     *
+     * @param chars the characters.
+     * @return this sink.
+     */
+    public CodeSink append(CharSequence chars) {
+        return append(chars, 0, chars.length());
+    }
+
+    /**
+     * Appends a non negative number, without allocating its digits.
+     *
+     * @param number the number.
+     * @return this sink.
+     */
+    public CodeSink append(int number) {
+        int power = 1;
+        while (number / power >= 10)
+            power *= 10;
+        for (; power > 0; power /= 10)
+            append((char) ('0' + number / power % 10));
+        return this;
+    }
+
+    /**
+     * Returns the number of characters appended so far, which is the number of
+     * bytes of the code.
+     *
+     * @return the number of characters appended.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Hands the code appended so far over to the destination.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (position > 0) {
+            drain(chunk, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Hands the chunk over to the destination, without flushing it.
+     */
+    final void drainChunk() {
+        try {
+            drain(chunk, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sink keeping the code in memory.
+     */
+    public static class Memory extends CodeSink {
+        private StringBuilder code = new StringBuilder();
+
+        private Memory() {
+        }
+
+        @Override
+        protected void drain(char[] chars, int count) {
+            code.append(chars, 0, count);
+        }
+
+        /**
+         * Returns the code appended so far.
+         *
+         * @return the code.
+         */
+        public String getCode() {
+            drainChunk();
+            return code.toString();
+        }
+    }
+}
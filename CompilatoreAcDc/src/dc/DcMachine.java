@@ -0,0 +1,458 @@
+package dc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Interpreter of the dc code generated by the compiler.
+ * </p>
+ *
+ * <p>
+ * Supports numbers (with {@code _} as negative sign), the {@code l} and
+ * {@code s} registers, the {@code ;} and {@code :} arrays, the {@code k}
+ * precision, {@code + - * /}, {@code d}, {@code r}, {@code p} and {@code P}, with the results and
+ * {@link Output} of GNU dc. Errors are reported, leaving the stack as it was.
+ * </p>
+ *
+ * <p>
+ * Values are kept as an unscaled {@code long} and a scale in primitive arrays.
+ * Only values that do not fit a {@code long}, or operations that would overflow
+ * it, fall back to {@link BigDecimal}.
+ * </p>
+ *
+ * <p>
+ * Registers, arrays and precision are kept from one {@link #execute} to the
+ * next, as if the programs were fed to the same dc process, until
+ * {@link #reset()}.
+ * </p>
+ */
+public class DcMachine {
+
+    private static final int REGISTERS = 256;
+    private Values stack = new Values(64);
+    private int top;
+    private Values registers = new Values(REGISTERS);
+    private boolean[] assigned = new boolean[REGISTERS];
+    private Values[] arrays = new Values[REGISTERS];
+    private int precision;
+
+    private OutputStream out;
+    private Output output = new Output();
+
+    /**
+     * <p>
+     * Internal logger based on {@link StringBuilder} class.
+     * </p>
+     *
+     * <p>
+     * Used to log all errors dc would report on its standard error.
+     * </p>
+     */
+    private StringBuilder logger = new StringBuilder();
+
+    /**
+     * Class constructor.
+     *
+     * @param out the stream receiving the printed output.
+     */
+    public DcMachine(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Empties the stack, registers and arrays and sets the precision back to 0.
+     */
+    public void reset() {
+        top = 0;
+        Arrays.fill(assigned, false);
+        Arrays.fill(arrays, null);
+        precision = 0;
+        logger.setLength(0);
+    }
+
+    /**
+     * Returns {@code true} if dc would have reported errors.
+     *
+     * @return {@code true} if errors were found, otherwise {@code false}.
+     */
+    public boolean hasErrors() {
+        return logger.length() != 0;
+    }
+
+    /**
+     * Returns a string representing all errors found.
+     *
+     * @return a string representing all errors found.
+     */
+    public String getLoggerString() {
+        return logger.toString();
+    }
+
+    /**
+     * Executes dc code and writes its output.
+     *
+     * @param code the dc code.
+     * @throws IOException If an I/O error occurs while writing the output.
+     */
+    public void execute(CharSequence code) throws IOException {
+        int length = code.length();
+        int i = 0;
+        while (i < length) {
+            char c = code.charAt(i++);
+            switch (c) {
+                case ' ':
+                case '\n':
+                case '\t':
+                case '\r':
+                    break;
+                case '_':
+                case '.':
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                    i = pushNumber(code, i - 1);
+                    break;
+                case '+':
+                case '-':
+                case '*':
+                case '/':
+                    binary(c);
+                    break;
+                case 'l':
+                    if (i < length)
+                        load(code.charAt(i++));
+                    break;
+                case 's':
+                    if (i < length)
+                        store(code.charAt(i++));
+                    break;
+                case ';':
+                    if (i < length)
+                        loadElement(code.charAt(i++));
+                    break;
+                case ':':
+                    if (i < length)
+                        storeElement(code.charAt(i++));
+                    break;
+                case 'k':
+                    setPrecision();
+                    break;
+                case 'd':
+                    duplicate();
+                    break;
+                case 'r':
+                    swap();
+                    break;
+                case 'p':
+                    print();
+                    break;
+                case 'P':
+                    printBytes();
+                    break;
+                default:
+                    error(String.format("'%c' (%#o) unimplemented", c, (int) c));
+            }
+        }
+        output.writeTo(out);
+    }
+
+    /**
+     * Reads a number and pushes it.
+     *
+     * @param code  the dc code.
+     * @param start the index of the first character of the number.
+     * @return the index of the first character after the number.
+     */
+    private int pushNumber(CharSequence code, int start) {
+        int i = start;
+        boolean negative = code.charAt(i) == '_';
+        if (negative)
+            i++;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                if (unscaled != 0)
+                    digits++;
+                if (dot)
+                    scale++;
+            } else if (c == '.' && !dot)
+                dot = true;
+            else
+                break;
+        }
+        int index = push();
+        if (digits <= 18) {
+            stack.set(index, negative ? -unscaled : unscaled, scale);
+        } else {
+            String literal = code.subSequence(negative ? start + 1 : start, i).toString();
+            BigDecimal value = new BigDecimal(literal.endsWith(".") ? literal + "0" : literal).setScale(scale);
+            stack.set(index, negative ? value.negate() : value);
+        }
+        return i;
+    }
+
+    /**
+     * Replaces the two values on top of the stack with the result of an
+     * operation, or leaves them there if it fails.
+     *
+     * @param op the operation.
+     */
+    private void binary(char op) {
+        if (top < 2) {
+            error("stack empty");
+            return;
+        }
+        int a = top - 2;
+        int b = top - 1;
+        if (op == '/' && stack.signum(b) == 0) {
+            error("divide by zero");
+            return;
+        }
+        if (stack.big[a] == null && stack.big[b] == null && fastBinary(op, a, b)) {
+            top--;
+            return;
+        }
+        stack.set(a, Arithmetic.apply(op, stack.get(a), stack.get(b), precision));
+        top--;
+    }
+
+    /**
+     * Computes an operation on two scaled {@code long} values, storing the
+     * result in place of the first one.
+     *
+     * @param op the operation.
+     * @param a  the index of the first operand.
+     * @param b  the index of the second operand.
+     * @return {@code false} if the result would not fit a {@code long}.
+     */
+    private boolean fastBinary(char op, int a, int b) {
+        try {
+            long result = Arithmetic.apply(op, stack.unscaled[a], stack.scale[a], stack.unscaled[b], stack.scale[b],
+                    precision);
+            stack.set(a, result, Arithmetic.scaleOf(op, stack.scale[a], stack.scale[b], precision));
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private void load(char reg) {
+        if (!assigned[reg & 0xff]) {
+            error(String.format("register '%c' (%#o) is empty", reg, (int) reg));
+            return;
+        }
+        stack.copy(push(), registers, reg & 0xff);
+    }
+
+    private void store(char reg) {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        registers.copy(reg & 0xff, stack, --top);
+        assigned[reg & 0xff] = true;
+    }
+
+    private void loadElement(char reg) {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        int index = arrayIndex(top - 1);
+        if (index < 0)
+            return;
+        Values array = arrays[reg & 0xff];
+        if (array == null || index >= array.length())
+            stack.set(top - 1, 0, 0);
+        else
+            stack.copy(top - 1, array, index);
+    }
+
+    private void storeElement(char reg) {
+        if (top < 2) {
+            error("stack empty");
+            return;
+        }
+        int index = arrayIndex(top - 1);
+        if (index < 0)
+            return;
+        Values array = arrays[reg & 0xff];
+        if (array == null)
+            array = arrays[reg & 0xff] = new Values(Math.max(16, index + 1));
+        array.ensureCapacity(index + 1);
+        array.copy(index, stack, top - 2);
+        top -= 2;
+    }
+
+    /**
+     * Returns the array index on top of the stack, or {@code -1} after
+     * reporting it if it is not valid.
+     */
+    private int arrayIndex(int i) {
+        if (stack.big[i] == null && stack.scale[i] == 0 && stack.unscaled[i] >= 0
+                && stack.unscaled[i] <= Integer.MAX_VALUE - 8)
+            return (int) stack.unscaled[i];
+        BigDecimal index = stack.get(i);
+        if (index.signum() < 0 || index.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE - 8)) > 0) {
+            error("array index must be a nonnegative integer");
+            return -1;
+        }
+        return index.intValue();
+    }
+
+    private void setPrecision() {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        BigDecimal value = stack.get(top - 1);
+        if (value.signum() < 0) {
+            error("negative precision");
+            return;
+        }
+        top--;
+        precision = value.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0 ? Integer.MAX_VALUE
+                : value.intValue();
+    }
+
+    /**
+     * Pushes a copy of the value on top of the stack.
+     */
+    private void duplicate() {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        int index = push();
+        stack.copy(index, stack, index - 1);
+    }
+
+    /**
+     * Exchanges the two values on top of the stack.
+     */
+    private void swap() {
+        if (top < 2) {
+            error("stack empty");
+            return;
+        }
+        stack.ensureCapacity(top + 1);
+        stack.copy(top, stack, top - 1);
+        stack.copy(top - 1, stack, top - 2);
+        stack.copy(top - 2, stack, top);
+    }
+
+    /**
+     * Prints the value on top of the stack and a newline, without popping it.
+     */
+    private void print() {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        int i = top - 1;
+        if (stack.big[i] == null)
+            output.printNumber(stack.unscaled[i], stack.scale[i]);
+        else
+            output.printNumber(stack.big[i]);
+    }
+
+    /**
+     * Pops the value on top of the stack and prints the integer part of its
+     * absolute value as base 256 bytes.
+     */
+    private void printBytes() {
+        if (top < 1) {
+            error("stack empty");
+            return;
+        }
+        int i = --top;
+        if (stack.big[i] == null)
+            output.printBytes(stack.unscaled[i], stack.scale[i]);
+        else
+            output.printBytes(stack.big[i]);
+    }
+
+    private int push() {
+        stack.ensureCapacity(top + 1);
+        return top++;
+    }
+
+    private void error(String message) {
+        logger.append("dc: ").append(message).append(System.lineSeparator());
+    }
+
+    /**
+     * Growable arrays of dc values: each value is either an unscaled
+     * {@code long} with its scale or, if it does not fit, a {@link BigDecimal}.
+     */
+    private static class Values {
+        private long[] unscaled;
+        private int[] scale;
+        private BigDecimal[] big;
+
+        private Values(int capacity) {
+            unscaled = new long[capacity];
+            scale = new int[capacity];
+            big = new BigDecimal[capacity];
+        }
+
+        private int length() {
+            return unscaled.length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > unscaled.length) {
+                int length = Math.max(capacity, unscaled.length * 2);
+                unscaled = Arrays.copyOf(unscaled, length);
+                scale = Arrays.copyOf(scale, length);
+                big = Arrays.copyOf(big, length);
+            }
+        }
+
+        private void set(int i, long value, int valueScale) {
+            unscaled[i] = value;
+            scale[i] = valueScale;
+            big[i] = null;
+        }
+
+        private void set(int i, BigDecimal value) {
+            BigInteger integer = value.unscaledValue();
+            if (integer.bitLength() < Long.SIZE)
+                set(i, integer.longValue(), value.scale());
+            else {
+                big[i] = value;
+                scale[i] = value.scale();
+            }
+        }
+
+        private void copy(int i, Values from, int j) {
+            unscaled[i] = from.unscaled[j];
+            scale[i] = from.scale[j];
+            big[i] = from.big[j];
+        }
+
+        private BigDecimal get(int i) {
+            return big[i] != null ? big[i] : BigDecimal.valueOf(unscaled[i], scale[i]);
+        }
+
+        private int signum(int i) {
+            return big[i] != null ? big[i].signum() : Long.signum(unscaled[i]);
+        }
+    }
+}
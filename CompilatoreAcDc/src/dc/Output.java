@@ -0,0 +1,135 @@
+package dc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Output of a dc program, buffered in memory until written to a stream.
+ * </p>
+ *
+ * <p>
+ * Numbers are printed as GNU dc prints them: {@code 0} for zero, no integer
+ * part if it is {@code 0}, all the decimals of their scale, and lines broken
+ * with a backslash before they reach {@value #LINE_LENGTH} characters.
+ * </p>
+ */
+public class Output {
+
+    private static final int LINE_LENGTH = 70;
+
+    private byte[] bytes = new byte[1 << 12];
+    private int length;
+    private int column;
+
+    /**
+     * Prints a number and a newline, as the dc {@code p} command.
+     *
+     * @param unscaled the unscaled value of the number.
+     * @param scale    the scale of the number.
+     */
+    public void printNumber(long unscaled, int scale) {
+        String digits = Long.toString(unscaled);
+        printNumber(Long.signum(unscaled), unscaled < 0 ? digits.substring(1) : digits, scale);
+    }
+
+    /**
+     * Prints a number and a newline, as the dc {@code p} command.
+     *
+     * @param value the number.
+     */
+    public void printNumber(BigDecimal value) {
+        printNumber(value.signum(), value.unscaledValue().abs().toString(), value.scale());
+    }
+
+    private void printNumber(int signum, String digits, int scale) {
+        column = 0;
+        if (signum == 0)
+            printChar('0');
+        else {
+            if (signum < 0)
+                printChar('-');
+            int integers = digits.length() - scale;
+            for (int d = 0; d < integers; d++)
+                printChar(digits.charAt(d));
+            if (scale > 0) {
+                printChar('.');
+                for (int d = integers; d < 0; d++)
+                    printChar('0');
+                for (int d = Math.max(integers, 0); d < digits.length(); d++)
+                    printChar(digits.charAt(d));
+            }
+        }
+        write('\n');
+        column = 0;
+    }
+
+    /**
+     * Prints the integer part of the absolute value of a number as base 256
+     * bytes, nothing if it is {@code 0}, as the dc {@code P} command.
+     *
+     * @param unscaled the unscaled value of the number.
+     * @param scale    the scale of the number.
+     */
+    public void printBytes(long unscaled, int scale) {
+        long integer;
+        try {
+            integer = Math.absExact(unscaled / Arithmetic.powerOfTen(scale));
+        } catch (ArithmeticException e) {
+            printBytes(BigDecimal.valueOf(unscaled, scale));
+            return;
+        }
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+            if (integer >>> shift != 0)
+                write((int) (integer >>> shift));
+    }
+
+    /**
+     * Prints the integer part of the absolute value of a number as base 256
+     * bytes, nothing if it is {@code 0}, as the dc {@code P} command.
+     *
+     * @param value the number.
+     */
+    public void printBytes(BigDecimal value) {
+        byte[] integer = value.toBigInteger().abs().toByteArray();
+        int start = 0;
+        while (start < integer.length && integer[start] == 0)
+            start++;
+        for (int b = start; b < integer.length; b++)
+            write(integer[b]);
+    }
+
+    /**
+     * Writes the output printed so far to a stream and clears it.
+     *
+     * @param out the stream receiving the output.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+        out.flush();
+        length = 0;
+    }
+
+    /**
+     * Prints a character of a number, breaking the line with a backslash before
+     * it would reach {@value #LINE_LENGTH} characters.
+     */
+    private void printChar(char c) {
+        if (++column == LINE_LENGTH) {
+            write('\\');
+            write('\n');
+            column = 1;
+        }
+        write(c);
+    }
+
+    private void write(int b) {
+        if (length == bytes.length)
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        bytes[length++] = (byte) b;
+    }
+}
@@ -0,0 +1,226 @@
+package dc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * {@link CodeSink} rewriting the dc code it receives into shorter code printing
+ * the same values, before handing it over to another sink.
+ * </p>
+ *
+ * <p>
+ * The code is split into instructions at spaces and looked at through a
+ * window of the last {@value #WINDOW} instructions not yet handed over, where
+ * these rewrites apply:
+ * </p>
+ * <ul>
+ * <li>The precision {@code k} is only read by {@code *} and {@code /}, so
+ * every {@code n k} is held back and set right before the next {@code *} or
+ * {@code /}, only if it differs from the precision in effect. Settings
+ * overridden before being read, like the {@code 0 k} ending an assignment
+ * before the {@code 5 k} of the next conversion, disappear.</li>
+ * <li>A store followed by a load of the same register, {@code sX lX}, becomes
+ * {@code d sX}, and so does the store and load of the same array element,
+ * {@code n :X n ;X}, which becomes {@code d n :X}. The index {@code n} must be
+ * a number, as an index computed by the code may differ between the two.</li>
+ * <li>A load followed by a store to the same register or array element, and
+ * the operations leaving their operand as it was ({@code 0 +}, {@code 0 -} and
+ * {@code 1 *}, whose scale does not depend on {@code k}), are removed.</li>
+ * </ul>
+ *
+ * <p>
+ * Code is assumed to start with precision {@code 0}, as a new dc process does.
+ * Flushing the optimizer sets the precision the original code would have left,
+ * so that code following it in the same process runs as before.
+ * </p>
+ */
+public class PeepholeOptimizer extends CodeSink {
+
+    private static final int WINDOW = 4;
+    private static final String INITIAL_PRECISION = "0";
+
+    /**
+     * Precision set by a {@code k} whose argument is computed, which is handed
+     * over as it is.
+     */
+    private static final String UNKNOWN_PRECISION = "";
+
+    private CodeSink out;
+    private List<String> window = new ArrayList<>();
+    private StringBuilder token = new StringBuilder();
+
+    /**
+     * Precision set by the code handed over.
+     */
+    private String precision = INITIAL_PRECISION;
+
+    /**
+     * Precision set by the code received, not yet set by the code handed over
+     * if it differs from {@link #precision}.
+     */
+    private String pendingPrecision = INITIAL_PRECISION;
+
+    private long received;
+    private long written;
+
+    /**
+     * Class constructor.
+     *
+     * @param out the sink receiving the optimized code.
+     */
+    public PeepholeOptimizer(CodeSink out) {
+        this.out = out;
+    }
+
+    /**
+     * Returns a copy of dc code, optimized.
+     *
+     * @param code the dc code.
+     * @return the optimized code.
+     */
+    public static String optimize(CharSequence code) {
+        Memory memory = CodeSink.inMemory();
+        var optimizer = new PeepholeOptimizer(memory);
+        optimizer.append(code);
+        optimizer.drainChunk();
+        optimizer.endInstructions();
+        return memory.getCode();
+    }
+
+    /**
+     * Returns the number of instructions received but not handed over, once the
+     * optimizer is flushed.
+     *
+     * @return the number of instructions eliminated.
+     */
+    public long getInstructionsEliminated() {
+        return received - written;
+    }
+
+    @Override
+    protected void drain(char[] chars, int count) {
+        for (int i = 0; i < count; i++) {
+            if (chars[i] != ' ')
+                token.append(chars[i]);
+            else if (token.length() > 0)
+                endToken();
+        }
+    }
+
+    /**
+     * Hands over all the instructions received and flushes the sink receiving
+     * them. An instruction being appended is considered complete.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        super.flush();
+        endInstructions();
+        out.flush();
+    }
+
+    private void endInstructions() {
+        if (token.length() > 0)
+            endToken();
+        while (!window.isEmpty())
+            write(window.remove(0));
+        if (!pendingPrecision.equals(precision))
+            writePrecision();
+    }
+
+    private void endToken() {
+        String instruction = token.toString();
+        token.setLength(0);
+        received++;
+        window.add(instruction);
+        rewrite(instruction);
+        while (window.size() > WINDOW)
+            write(window.remove(0));
+    }
+
+    /**
+     * Applies the rewrites ending with the instruction just added to the window.
+     */
+    private void rewrite(String instruction) {
+        int last = window.size() - 1;
+        switch (instruction) {
+            case "k":
+                if (last >= 1 && isNumber(window.get(last - 1))) {
+                    pendingPrecision = window.get(last - 1);
+                    removeLast(2);
+                } else
+                    precision = pendingPrecision = UNKNOWN_PRECISION;
+                return;
+            case "+":
+            case "-":
+                if (last >= 1 && window.get(last - 1).equals("0"))
+                    removeLast(2);
+                return;
+            case "*":
+                if (last >= 1 && window.get(last - 1).equals("1"))
+                    removeLast(2);
+                else
+                    setPrecisionBefore(instruction);
+                return;
+            case "/":
+                setPrecisionBefore(instruction);
+                return;
+            default:
+                break;
+        }
+        char command = instruction.charAt(0);
+        if (command == 'l' && last >= 1 && window.get(last - 1).equals("s" + instruction.substring(1))) {
+            window.set(last - 1, "d");
+            window.set(last, "s" + instruction.substring(1));
+        } else if (command == 's' && last >= 1 && window.get(last - 1).equals("l" + instruction.substring(1)))
+            removeLast(2);
+        else if (command == ';' && last >= 3 && isNumber(window.get(last - 1))
+                && window.get(last - 2).equals(":" + instruction.substring(1))
+                && window.get(last - 3).equals(window.get(last - 1))) {
+            window.remove(last);
+            window.remove(last - 1);
+            window.add(last - 3, "d");
+        } else if (command == ':' && last >= 3 && isNumber(window.get(last - 1))
+                && window.get(last - 2).equals(";" + instruction.substring(1))
+                && window.get(last - 3).equals(window.get(last - 1)))
+            removeLast(4);
+    }
+
+    /**
+     * Sets the pending precision before the instruction just added to the
+     * window, whose result depends on it.
+     */
+    private void setPrecisionBefore(String instruction) {
+        if (pendingPrecision.equals(precision))
+            return;
+        window.remove(window.size() - 1);
+        while (!window.isEmpty())
+            write(window.remove(0));
+        writePrecision();
+        window.add(instruction);
+    }
+
+    private void removeLast(int count) {
+        for (int i = 0; i < count; i++)
+            window.remove(window.size() - 1);
+    }
+
+    private void writePrecision() {
+        write(pendingPrecision);
+        write("k");
+        precision = pendingPrecision;
+    }
+
+    private void write(String instruction) {
+        out.instruction().append(instruction);
+        written++;
+    }
+
+    private static boolean isNumber(String instruction) {
+        char c = instruction.charAt(0);
+        return c >= '0' && c <= '9' || c == '.' || c == '_';
+    }
+}
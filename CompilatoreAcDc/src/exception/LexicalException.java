@@ -2,11 +2,31 @@ package exception;
 
 public class LexicalException extends Exception {
 
+    /**
+     * Row of the source the error was found in, {@code -1} if unknown.
+     */
+    private final int row;
+
     public LexicalException(String message, Throwable innerException) {
         super(message, innerException);
+        this.row = -1;
     }
 
     public LexicalException(String message) {
+        this(message, -1);
+    }
+
+    public LexicalException(String message, int row) {
         super(message);
+        this.row = row;
+    }
+
+    /**
+     * Returns the row of the source the error was found in.
+     * 
+     * @return the row of the error, {@code -1} if unknown.
+     */
+    public int getRow() {
+        return row;
     }
 }
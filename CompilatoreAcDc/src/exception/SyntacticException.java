@@ -1,12 +1,36 @@
 package exception;
 
 public class SyntacticException extends Exception {
-    
+
+    /**
+     * Row of the source the error was found in, {@code -1} if unknown.
+     */
+    private final int row;
+
     public SyntacticException(String message, Throwable innerException) {
+        this(message, innerException, -1);
+    }
+
+    public SyntacticException(String message, Throwable innerException, int row) {
         super(message, innerException);
+        this.row = row;
     }
 
     public SyntacticException(String message) {
+        this(message, -1);
+    }
+
+    public SyntacticException(String message, int row) {
         super(message);
+        this.row = row;
+    }
+
+    /**
+     * Returns the row of the source the error was found in.
+     * 
+     * @return the row of the error, {@code -1} if unknown.
+     */
+    public int getRow() {
+        return row;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package main;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.logging.Level;
@@ -7,13 +8,22 @@ import java.util.logging.Logger;
 
 import javax.swing.JFileChooser;
 
+import compiler.BatchCompiler;
+import compiler.CompilationContext;
+import dc.CodeSink;
+import dc.PeepholeOptimizer;
 import parser.Parser;
 import scanner.Scanner;
 import visitor.CodeGeneratorVisitor;
+import visitor.CommonSubexpressionVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.DeadCodeEliminationVisitor;
 import visitor.TypeCheckingVisitor;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0)
+            System.exit(BatchCompiler.run(args));
         try {
             Logger logger = Logger.getLogger(Main.class.getName());
             JFileChooser chooser = new JFileChooser(new File(".").getCanonicalPath());
@@ -22,17 +32,25 @@ public class Main {
                 var scanner = new Scanner(chooser.getSelectedFile().getAbsolutePath());
                 var parser = new Parser(scanner);
                 var nP = parser.parse();
-                var typeVisitor = new TypeCheckingVisitor();
+                var context = new CompilationContext(scanner.getNames());
+                var typeVisitor = new TypeCheckingVisitor(context);
                 nP.accept(typeVisitor);
                 if (!typeVisitor.hasErrors()) {
-                    var codeGenVisitor = new CodeGeneratorVisitor();
-                    nP.accept(codeGenVisitor);
+                    nP.accept(new ConstantFoldingVisitor(context));
+                    nP.accept(new DeadCodeEliminationVisitor(context));
+                    nP.accept(new CommonSubexpressionVisitor(context));
                     value = chooser.showSaveDialog(null);
-                    try (var writer = new FileWriter(chooser.getSelectedFile().getAbsolutePath())) {
-                        writer.write(codeGenVisitor.getCode());
+                    String target = chooser.getSelectedFile().getAbsolutePath();
+                    try (var writer = new BufferedWriter(new FileWriter(target))) {
+                        var optimizer = new PeepholeOptimizer(CodeSink.of(writer));
+                        var codeGenVisitor = new CodeGeneratorVisitor(context, optimizer);
+                        nP.accept(codeGenVisitor);
+                        codeGenVisitor.flush();
+                        context.getReport().addInstructionsEliminated((int) optimizer.getInstructionsEliminated());
                     }
-                    logger.log(Level.INFO, codeGenVisitor.getCode());
+                    logger.log(Level.INFO, "Code written to {0}", target);
                     logger.log(Level.INFO, "Has errors: {0}", typeVisitor.hasErrors());
+                    logger.log(Level.INFO, "{0}", context.getReport());
                 } else
                     logger.log(Level.SEVERE, typeVisitor.getLoggerString());
             }
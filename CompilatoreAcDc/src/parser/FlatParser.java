@@ -0,0 +1,236 @@
+package parser;
+
+import java.io.IOException;
+
+import ast.FlatAst;
+import ast.LangOper;
+import ast.LangType;
+import exception.LexicalException;
+import exception.SyntacticException;
+import scanner.Scanner;
+import token.TokenType;
+
+/**
+ * <p>
+ * Parser building a {@link FlatAst} instead of node objects.
+ * </p>
+ *
+ * <p>
+ * Follows the same grammar, and reports the same errors, as {@link Parser}.
+ * Operands are appended before their operation, so the nodes end up in the
+ * post-order {@link FlatAst} expects.
+ * </p>
+ */
+public class FlatParser {
+
+    private Scanner scanner;
+    private FlatAst ast;
+
+    private String scanErrorMessage = "Something went wrong during scan";
+
+    /**
+     * Parser constructor
+     *
+     * @param scanner Scanner instance
+     */
+    public FlatParser(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Parse the scanned document
+     *
+     * @return the flat AST of the whole program parsed
+     * @throws SyntacticException Exception thrown when the program does not
+     *                            respect syntax
+     */
+    public FlatAst parse() throws SyntacticException {
+        ast = new FlatAst(scanner.getNames());
+        for (;;) {
+            TokenType tk = peek();
+            switch (tk) {
+                case TYINT:
+                case TYFLOAT:
+                    parseDcl(tk);
+                    break;
+                case ID:
+                case PRINT:
+                    parseStm(tk);
+                    break;
+                case EOF:
+                    match(TokenType.EOF);
+                    return ast;
+                default:
+                    throw new SyntacticException(
+                            "Token \'" + tk + "\' at line " + scanner.getRow() + " is not a program start",
+                            scanner.getRow());
+            }
+        }
+    }
+
+    /**
+     * Parse declaration
+     *
+     * @param token the type token starting the declaration
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            does not respect syntax
+     */
+    private void parseDcl(TokenType token) throws SyntacticException {
+        LangType type = token == TokenType.TYINT ? LangType.INT : LangType.FLOAT;
+        match(token);
+        String name = scanner.getLexeme();
+        match(TokenType.ID);
+        match(TokenType.SEMI);
+        ast.addDecl(type, name);
+    }
+
+    /**
+     * Parse statement
+     *
+     * @param token the token starting the statement
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            does not respect syntax
+     */
+    private void parseStm(TokenType token) throws SyntacticException {
+        if (token == TokenType.ID) {
+            String name = scanner.getLexeme();
+            match(TokenType.ID);
+            match(TokenType.ASSIGN);
+            int expr = parseExp();
+            match(TokenType.SEMI);
+            ast.addAssign(name, expr);
+        } else {
+            match(TokenType.PRINT);
+            String name = scanner.getLexeme();
+            match(TokenType.ID);
+            match(TokenType.SEMI);
+            ast.addPrint(name);
+        }
+    }
+
+    /**
+     * Parse expression, a chain of terms joined by {@code +} and {@code -}
+     *
+     * @return the index of the root of the expression
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            does not respect syntax
+     */
+    private int parseExp() throws SyntacticException {
+        int leftOp = parseTr();
+        for (;;) {
+            switch (peek()) {
+                case PLUS:
+                    match(TokenType.PLUS);
+                    leftOp = ast.addBinOp(leftOp, parseTr(), LangOper.PLUS);
+                    break;
+                case MINUS:
+                    match(TokenType.MINUS);
+                    leftOp = ast.addBinOp(leftOp, parseTr(), LangOper.MINUS);
+                    break;
+                case SEMI:
+                    return leftOp;
+                default:
+                    throw unexpected("'INT', 'FLOAT' or 'ID'");
+            }
+        }
+    }
+
+    /**
+     * Parse term, a chain of values joined by {@code *} and {@code /}
+     *
+     * @return the index of the root of the term
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            does not respect syntax
+     */
+    private int parseTr() throws SyntacticException {
+        int leftOp = parseVal();
+        for (;;) {
+            switch (peek()) {
+                case TIMES:
+                    match(TokenType.TIMES);
+                    leftOp = ast.addBinOp(leftOp, parseVal(), LangOper.TIMES);
+                    break;
+                case DIV:
+                    match(TokenType.DIV);
+                    leftOp = ast.addBinOp(leftOp, parseVal(), LangOper.DIV);
+                    break;
+                case PLUS:
+                case MINUS:
+                case SEMI:
+                    return leftOp;
+                default:
+                    throw unexpected("'INT', 'FLOAT' or 'ID'");
+            }
+        }
+    }
+
+    /**
+     * Parse Val
+     *
+     * @return the index of a constant value or a dereferenced variable value
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            does not respect syntax
+     */
+    private int parseVal() throws SyntacticException {
+        switch (peek()) {
+            case INT:
+                int node = ast.addConst(scanner.getLexeme(), LangType.INT);
+                match(TokenType.INT);
+                return node;
+            case FLOAT:
+                node = ast.addConst(scanner.getLexeme(), LangType.FLOAT);
+                match(TokenType.FLOAT);
+                return node;
+            case ID:
+                node = ast.addDeref(scanner.getLexeme());
+                match(TokenType.ID);
+                return node;
+            default:
+                throw unexpected("'INT', 'FLOAT' or 'ID'");
+        }
+    }
+
+    private TokenType peek() throws SyntacticException {
+        if (scanner.getType() == null)
+            advance();
+        return scanner.getType();
+    }
+
+    private void advance() throws SyntacticException {
+        try {
+            scanner.advance();
+        } catch (LexicalException e) {
+            throw new SyntacticException(scanErrorMessage + ": " + e.getMessage(), e, e.getRow());
+        } catch (IOException e) {
+            throw new SyntacticException(scanErrorMessage, e);
+        }
+    }
+
+    /**
+     * Matching method
+     *
+     * @param type Type you need to match with
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            is not equal to actual token type
+     */
+    private void match(TokenType type) throws SyntacticException {
+        TokenType token = peek();
+        if (type.equals(token)) {
+            advance();
+            return;
+        }
+        throw unexpected("\'" + type + "\'");
+    }
+
+    /**
+     * Returns the exception for a lookahead token other than the expected ones
+     *
+     * @param expected the expected token types
+     * @return the exception, at the row of the lookahead token
+     * @throws SyntacticException Exception thrown when the scan fails
+     */
+    private SyntacticException unexpected(String expected) throws SyntacticException {
+        return new SyntacticException(String.format("Expected token %s but was \'%s\' at line %d", expected, peek(),
+                scanner.getRow()), scanner.getRow());
+    }
+}
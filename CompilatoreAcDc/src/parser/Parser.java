@@ -2,6 +2,7 @@ package parser;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import ast.LangOper;
 import ast.LangType;
@@ -19,7 +20,6 @@ import ast.NodeStm;
 import exception.LexicalException;
 import exception.SyntacticException;
 import scanner.Scanner;
-import token.Token;
 import token.TokenType;
 
 public class Parser {
@@ -28,6 +28,18 @@ public class Parser {
 
     private String scanErrorMessage = "Something went wrong during scan";
 
+    /**
+     * Errors found by {@link #parseRecovering()}, {@code null} while parsing
+     * stops at the first one.
+     */
+    private List<SyntacticException> errors;
+
+    /**
+     * Number of lexical errors found scanning the lookahead token, which
+     * belong to the statement it starts
+     */
+    private int lookaheadErrors;
+
     /**
      * Parser constructor
      * 
@@ -44,9 +56,80 @@ public class Parser {
      * @throws SyntacticException
      */
     public NodeProgram parse() throws SyntacticException {
+        errors = null;
         return parsePrg();
     }
 
+    /**
+     * <p>
+     * Parse the scanned document, recovering from syntax errors to find them
+     * all in one pass
+     * </p>
+     * 
+     * <p>
+     * Recovery is in panic mode: after an error, tokens are skipped up to and
+     * including the next {@code SEMI}, or up to the next {@code int},
+     * {@code float} or {@code print}, which can only start a declaration or a
+     * statement. The declaration or statement holding the error is left out of
+     * the program. A lexical error is recorded and scanning goes on: the
+     * statement holding it is left out as well, and the syntax errors it causes
+     * in the same statement are not reported again.
+     * </p>
+     * 
+     * @return NodeProgram holding every declaration and statement parsed
+     *         without errors, to be type checked even if {@link #getErrors()}
+     *         is not empty
+     */
+    public NodeProgram parseRecovering() {
+        errors = new ArrayList<>();
+        lookaheadErrors = 0;
+        ArrayList<NodeDecSt> retList = new ArrayList<>();
+        for (;;) {
+            int found = errors.size() - lookaheadErrors;
+            try {
+                NodeDecSt node = parseNext();
+                if (node == null)
+                    return new NodeProgram(retList);
+                if (errors.size() - lookaheadErrors == found)
+                    retList.add(node);
+            } catch (SyntacticException e) {
+                if (errors.size() == found)
+                    errors.add(e);
+                if (e.getCause() instanceof IOException || !synchronize())
+                    return new NodeProgram(retList);
+            }
+        }
+    }
+
+    /**
+     * Returns the errors found by the last {@link #parseRecovering()}, in order
+     * 
+     * @return the syntax errors, each with its row
+     */
+    public List<SyntacticException> getErrors() {
+        return errors == null ? List.of() : errors;
+    }
+
+    /**
+     * Skips the tokens of a declaration or statement holding an error
+     * 
+     * @return {@code false} if the end of file has been reached
+     */
+    private boolean synchronize() {
+        try {
+            for (TokenType token = peek(); token != TokenType.EOF; token = peek()) {
+                if (token == TokenType.TYINT || token == TokenType.TYFLOAT || token == TokenType.PRINT)
+                    return true;
+                advance();
+                if (token == TokenType.SEMI)
+                    return true;
+            }
+        } catch (SyntacticException e) {
+            errors.add(e);
+        }
+        return false;
+    }
+
     /**
      * Parse all scanned tokens through building the AST
      * 
@@ -55,13 +138,8 @@ public class Parser {
      *                            is not a start token
      */
     private NodeProgram parsePrg() throws SyntacticException {
-        Token tk;
-        try {
-            tk = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (tk.getType()) {
+        TokenType tk = peek();
+        switch (tk) {
             case TYINT:
             case TYFLOAT:
             case ID:
@@ -72,44 +150,61 @@ public class Parser {
                 return new NodeProgram(retNodeDecSt);
             default:
                 throw new SyntacticException(
-                        "Token \'" + tk.getType() + "\' at line " + tk.getRow() + " is not a program start");
+                        "Token \'" + tk + "\' at line " + scanner.getRow() + " is not a program start",
+                        scanner.getRow());
         }
     }
 
     /**
      * Parse declarations and statements
      * 
+     * <p>
+     * The right recursive production {@code DSs -> Dcl DSs | Stm DSs | eps} is
+     * parsed as a loop, so that programs of any length are parsed in constant
+     * stack depth.
+     * </p>
+     * 
      * @return an {@code ArrayList<NodeDecSt>} containing all tokens
      * @throws SyntacticException Exception thrown when expected {@code TokenType}
      *                            is not a start token
      */
     private ArrayList<NodeDecSt> parseDSs() throws SyntacticException {
+        ArrayList<NodeDecSt> retList = new ArrayList<>();
+        for (NodeDecSt node = parseNext(); node != null; node = parseNext())
+            retList.add(node);
+        return retList;
+    }
 
-        Token tk;
-        try {
-            tk = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (tk.getType()) {
+    /**
+     * <p>
+     * Parse the next declaration or statement of the scanned document.
+     * </p>
+     * 
+     * <p>
+     * Used to compile a program one {@link NodeDecSt} at a time, without building
+     * the whole {@link NodeProgram}.
+     * </p>
+     * 
+     * @return the next declaration or statement, {@code null} at the end of file
+     * @throws SyntacticException Exception thrown when expected {@code TokenType}
+     *                            is not a start token
+     */
+    public NodeDecSt parseNext() throws SyntacticException {
+        TokenType tk = peek();
+        switch (tk) {
 
             case TYINT:
             case TYFLOAT: // DSs -> Dcl DSs
-                NodeDecl dec = parseDcl();
-                ArrayList<NodeDecSt> retList = parseDSs();
-                retList.add(0, dec);
-                return retList;
+                return parseDcl();
             case ID:
             case PRINT: // DSs -> Stm DSs
-                NodeStm stm = parseStm();
-                ArrayList<NodeDecSt> retList1 = parseDSs();
-                retList1.add(0, stm);
-                return retList1;
+                return parseStm();
             case EOF:
-                return new ArrayList<>();
+                return null;
             default:
                 throw new SyntacticException(
-                        "Token \'" + tk.getType() + "\' at line " + tk.getRow() + " is not a program start");
+                        "Token \'" + tk + "\' at line " + scanner.getRow() + " is not a program start",
+                        scanner.getRow());
         }
     }
 
@@ -121,26 +216,23 @@ public class Parser {
      *                            does not respect syntax
      */
     private NodeDecl parseDcl() throws SyntacticException {
-        Token token;
-        try {
-            token = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
+        TokenType token = peek();
+        switch (token) {
             case TYFLOAT:
-                String name = match(TokenType.TYFLOAT).getValue();
+                match(TokenType.TYFLOAT);
+                NodeId id = new NodeId(scanner.getLexeme(), scanner.getNameId());
                 match(TokenType.ID);
                 match(TokenType.SEMI);
-                return new NodeDecl(LangType.FLOAT, name);
+                return new NodeDecl(LangType.FLOAT, id);
             case TYINT:
-                name = match(TokenType.TYINT).getValue();
+                match(TokenType.TYINT);
+                id = new NodeId(scanner.getLexeme(), scanner.getNameId());
                 match(TokenType.ID);
                 match(TokenType.SEMI);
-                return new NodeDecl(LangType.INT, name);
+                return new NodeDecl(LangType.INT, id);
             default:
                 throw new SyntacticException(
-                        String.format("Unexpected token \'%s\' at line %d", token.getValue(), token.getRow()));
+                        String.format("Unexpected token \'%s\' at line %d", token, scanner.getRow()), scanner.getRow());
 
         }
 
@@ -154,27 +246,24 @@ public class Parser {
      *                            does not respect syntax
      */
     private NodeStm parseStm() throws SyntacticException {
-        Token token;
-        try {
-            token = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
+        TokenType token = peek();
+        switch (token) {
             case ID:
+                NodeId id = new NodeId(scanner.getLexeme(), scanner.getNameId());
                 match(TokenType.ID);
                 match(TokenType.ASSIGN);
                 NodeExpr expr = parseExp();
                 match(TokenType.SEMI);
-                return new NodeAssign(new NodeId(token.getValue()), expr);
+                return new NodeAssign(id, expr);
             case PRINT:
-                Token tk = match(TokenType.PRINT);
+                match(TokenType.PRINT);
+                id = new NodeId(scanner.getLexeme(), scanner.getNameId());
                 match(TokenType.ID);
                 match(TokenType.SEMI);
-                return new NodePrint(new NodeId(tk.getValue()));
+                return new NodePrint(id);
             default:
-                String string = String.format("Unexpected token \'%s\' at line %d", token.getType(), token.getRow());
-                throw new SyntacticException(string);
+                String string = String.format("Unexpected token \'%s\' at line %d", token, scanner.getRow());
+                throw new SyntacticException(string, scanner.getRow());
         }
     }
 
@@ -186,13 +275,8 @@ public class Parser {
      *                            does not respect syntax
      */
     private NodeExpr parseExp() throws SyntacticException {
-        Token token = null;
-        try {
-            token = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
+        TokenType token = peek();
+        switch (token) {
             case INT:
             case FLOAT:
             case ID:
@@ -200,42 +284,42 @@ public class Parser {
                 NodeExpr exp = parseExpP(ter);
                 return exp;
             default:
-                throw new SyntacticException("");
+                throw unexpected("'INT', 'FLOAT' or 'ID'");
         }
     }
 
     /**
      * Parse expression (PLUS and MINUS)
      * 
+     * <p>
+     * Operands are folded into a left deep tree in a loop, so that chains of any
+     * length keep left associativity in constant stack depth.
+     * </p>
+     * 
      * @param leftOp Left operation to keep track of
      * @return NodeExpr representing the current expression
      * @throws SyntacticException Exception thrown when expected {@code TokenType}
      *                            does not respect syntax
      */
     private NodeExpr parseExpP(NodeExpr leftOp) throws SyntacticException {
-        Token token = null;
-        try {
-            token = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
-            case PLUS:
-                match(TokenType.PLUS);
-                NodeExpr terP = parseTr();
-                NodeExpr opP = new NodeBinOp(leftOp, terP, LangOper.PLUS);
-                NodeExpr expP = parseExpP(opP);
-                return expP;
-            case MINUS:
-                match(TokenType.MINUS);
-                NodeExpr terM = parseTr();
-                NodeExpr opM = new NodeBinOp(leftOp, terM, LangOper.MINUS);
-                NodeExpr expM = parseExpP(opM);
-                return expM;
-            case SEMI:
-                return leftOp;
-            default:
-                throw new SyntacticException("");
+        for (;;) {
+            TokenType token = peek();
+            switch (token) {
+                case PLUS:
+                    match(TokenType.PLUS);
+                    NodeExpr terP = parseTr();
+                    leftOp = new NodeBinOp(leftOp, terP, LangOper.PLUS);
+                    break;
+                case MINUS:
+                    match(TokenType.MINUS);
+                    NodeExpr terM = parseTr();
+                    leftOp = new NodeBinOp(leftOp, terM, LangOper.MINUS);
+                    break;
+                case SEMI:
+                    return leftOp;
+                default:
+                    throw unexpected("'PLUS', 'MINUS' or 'SEMI'");
+            }
         }
     }
 
@@ -249,13 +333,8 @@ public class Parser {
      * @see TokenType
      */
     private NodeExpr parseTr() throws SyntacticException {
-        Token token = null;
-        try {
-            token = scanner.peekToken();
-        } catch (LexicalException | IOException e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
+        TokenType token = peek();
+        switch (token) {
             case INT:
             case FLOAT:
             case ID:
@@ -263,44 +342,44 @@ public class Parser {
                 NodeExpr expr = parseTrP(left);
                 return expr;
             default:
-                throw new SyntacticException("");
+                throw unexpected("'INT', 'FLOAT' or 'ID'");
         }
     }
 
     /**
      * Parsing TrP non-terminal 
      * 
+     * <p>
+     * Operands are folded into a left deep tree in a loop, as in
+     * {@link #parseExpP(NodeExpr)}.
+     * </p>
+     * 
      * @param leftOp Left operation to keep track of
      * @return NodeExpr representing a complete AST for the given expression
      * @throws SyntacticException Exception thrown when expected {@code TokenType}
      *                            does not respect syntax
      */
     private NodeExpr parseTrP(NodeExpr leftOp) throws SyntacticException {
-        Token token = null;
-        try {
-            token = scanner.peekToken();
-        } catch (LexicalException | IOException e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
-            case TIMES:
-                match(TokenType.TIMES);
-                NodeExpr valT = parseVal();
-                NodeExpr opT = new NodeBinOp(leftOp, valT, LangOper.TIMES);
-                NodeExpr expT = parseTrP(opT);
-                return expT;
-            case DIV:
-                match(TokenType.DIV);
-                NodeExpr valD = parseVal();
-                NodeExpr opD = new NodeBinOp(leftOp, valD, LangOper.DIV);
-                NodeExpr expD = parseTrP(opD);
-                return expD;
-            case PLUS:
-            case MINUS:
-            case SEMI:
-                return leftOp;
-            default:
-                throw new SyntacticException("");
+        for (;;) {
+            TokenType token = peek();
+            switch (token) {
+                case TIMES:
+                    match(TokenType.TIMES);
+                    NodeExpr valT = parseVal();
+                    leftOp = new NodeBinOp(leftOp, valT, LangOper.TIMES);
+                    break;
+                case DIV:
+                    match(TokenType.DIV);
+                    NodeExpr valD = parseVal();
+                    leftOp = new NodeBinOp(leftOp, valD, LangOper.DIV);
+                    break;
+                case PLUS:
+                case MINUS:
+                case SEMI:
+                    return leftOp;
+                default:
+                    throw unexpected("'TIMES', 'DIV', 'PLUS', 'MINUS' or 'SEMI'");
+            }
         }
     }
 
@@ -312,52 +391,89 @@ public class Parser {
      *                            does not respect syntax
      */
     private NodeExpr parseVal() throws SyntacticException {
-        Token token = null;
-        try {
-            token = scanner.peekToken();
-        } catch (LexicalException | IOException e) {
-            throw new SyntacticException(scanErrorMessage, e);
-        }
-        switch (token.getType()) {
+        TokenType token = peek();
+        switch (token) {
             case INT:
+                NodeConst constant = new NodeConst(scanner.getLexeme(), LangType.INT);
                 match(TokenType.INT);
-                return new NodeConst(token.getValue(), LangType.INT);
+                return constant;
             case FLOAT:
+                constant = new NodeConst(scanner.getLexeme(), LangType.FLOAT);
                 match(TokenType.FLOAT);
-                return new NodeConst(token.getValue(), LangType.FLOAT);
+                return constant;
             case ID:
+                NodeDeref deref = new NodeDeref(new NodeId(scanner.getLexeme(), scanner.getNameId()));
                 match(TokenType.ID);
-                return new NodeDeref(new NodeId(token.getValue()));
+                return deref;
             default:
-                throw new SyntacticException("");
+                throw unexpected("'INT', 'FLOAT' or 'ID'");
         }
 
     }
 
+    /**
+     * Returns the type of the token under the scanner cursor, moving the cursor
+     * to the first token if the scan has not started yet
+     * 
+     * @return the type of the lookahead token
+     * @throws SyntacticException Exception thrown when the scan fails
+     */
+    private TokenType peek() throws SyntacticException {
+        if (scanner.getType() == null)
+            advance();
+        return scanner.getType();
+    }
+
+    private void advance() throws SyntacticException {
+        lookaheadErrors = 0;
+        try {
+            for (;;) {
+                try {
+                    scanner.advance();
+                    return;
+                } catch (LexicalException e) {
+                    var error = new SyntacticException(scanErrorMessage + ": " + e.getMessage(), e, e.getRow());
+                    if (errors == null)
+                        throw error;
+                    errors.add(error);
+                    lookaheadErrors++;
+                }
+            }
+        } catch (IOException e) {
+            throw new SyntacticException(scanErrorMessage, e);
+        }
+    }
+
     /**
      * Matching method
      * 
+     * <p>
+     * Lexemes are not copied out of the scanner while matching: callers read the
+     * lexeme they need with {@link Scanner#getLexeme()} before matching its token.
+     * </p>
+     * 
      * @param type Type you need to match with
-     * @return Next scanned token
      * @throws SyntacticException Exception thrown when expected {@code TokenType}
      *                            is not equal to actual token type
      */
-    private Token match(TokenType type) throws SyntacticException {
-        Token token;
-        try {
-            token = scanner.peekToken();
-        } catch (Exception e) {
-            throw new SyntacticException(scanErrorMessage, e);
+    private void match(TokenType type) throws SyntacticException {
+        TokenType token = peek();
+        if (type.equals(token)) {
+            advance();
+            return;
         }
-        if (type.equals(token.getType()))
-            try {
-                return scanner.nextToken();
-            } catch (Exception e) {
-                throw new SyntacticException(scanErrorMessage, e);
-            }
-        String string = String.format("Expected token \'%s\' but was \'%s\' at line %d", type, token.getType(),
-                token.getRow());
-        throw new SyntacticException(string);
+        throw unexpected("\'" + type + "\'");
     }
 
+    /**
+     * Returns the exception for a lookahead token other than the expected ones
+     *
+     * @param expected the expected token types
+     * @return the exception, at the row of the lookahead token
+     * @throws SyntacticException Exception thrown when the scan fails
+     */
+    private SyntacticException unexpected(String expected) throws SyntacticException {
+        return new SyntacticException(String.format("Expected token %s but was \'%s\' at line %d", expected, peek(),
+                scanner.getRow()), scanner.getRow());
+    }
 }
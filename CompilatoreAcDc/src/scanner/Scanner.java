@@ -3,53 +3,162 @@ package scanner;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 
 import exception.LexicalException;
+import symboltable.NameTable;
 import token.Token;
 import token.TokenType;
 
 public class Scanner {
-	private static final char EOF = (char) -1; // int 65535
+	private static final int EOF = -1;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAP_WINDOW = 1 << 30;
+
+	private static final byte OTHER = 0;
+	private static final byte SKIP = 1; // ' ', '\n', '\t', '\r'
+	private static final byte LETTER = 2; // 'a',...'z'
+	private static final byte DIGIT = 3; // '0',...'9'
+	private static final byte DOT = 4; // '.'
+	private static final byte OPERATOR = 5; // '+', '-', '*', '/', '=', ';'
+
+	/**
+	 * Character class of every ASCII character, indexed by the character itself.
+	 */
+	private static final byte[] CHAR_CLASS = new byte[128];
+
+	/**
+	 * Token type of every operator or delimiter, indexed by the character itself.
+	 */
+	private static final TokenType[] OPERATORS = new TokenType[128];
+
+	static {
+		for (char c : new char[] { ' ', '\n', '\t', '\r' })
+			CHAR_CLASS[c] = SKIP;
+		for (char c = 'a'; c <= 'z'; c++)
+			CHAR_CLASS[c] = LETTER;
+		for (char c = '0'; c <= '9'; c++)
+			CHAR_CLASS[c] = DIGIT;
+		CHAR_CLASS['.'] = DOT;
+
+		OPERATORS['+'] = TokenType.PLUS;
+		OPERATORS['-'] = TokenType.MINUS;
+		OPERATORS['*'] = TokenType.TIMES;
+		OPERATORS['/'] = TokenType.DIV;
+		OPERATORS['='] = TokenType.ASSIGN;
+		OPERATORS[';'] = TokenType.SEMI;
+		for (int c = 0; c < OPERATORS.length; c++)
+			if (OPERATORS[c] != null)
+				CHAR_CLASS[c] = OPERATOR;
+	}
+
 	private int row = 1;
-	private PushbackReader buffer;
+	private Reader reader;
+
+	/**
+	 * Characters read from {@link #reader} in blocks of {@value #BUFFER_SIZE}.
+	 */
+	private char[] buffer;
+
+	/**
+	 * Source file mapped in windows of at most {@value #MAP_WINDOW} bytes, used
+	 * instead of {@link #reader} and {@link #buffer} by {@link #map(String)} scanners.
+	 */
+	private FileChannel channel;
+	private MappedByteBuffer mapped;
+	private long windowStart;
+	private long fileSize;
+
+	private int position;
+	private int limit;
+
+	/**
+	 * Buffer offset of the lexeme being scanned, {@code -1} if there is none.
+	 * Characters from this offset on are preserved when the buffer is refilled.
+	 */
+	private int lexemeStart = -1;
 
 	private Token token = null;
 
-	private List<Character> skipChars; // ' ', '\n', '\t', '\r', EOF
-	private List<Character> letters; // 'a',...'z'
-	private List<Character> numbers; // '0',...'9'
+	/**
+	 * Cursor on the current token: its type, row and lexeme in the buffer.
+	 */
+	private TokenType tokenType;
+	private int tokenRow;
+	private int tokenStart;
+	private int tokenLength;
+	private int tokenName;
+
+	/**
+	 * Identifiers scanned so far, interned straight from the buffer through {@link #lexeme}.
+	 */
+	private NameTable names;
+	private final Lexeme lexeme = new Lexeme();
 
-	private HashMap<Character, TokenType> operatorsMap; // '+', '-', '*', '/', '=', ';'
 	private HashMap<String, TokenType> keyWordsMap; // "print", "float", "int"
 
 	/**
-	 * Creates a new {@code Scanner} and set up methods to tokenize given file 
-	 * 
+	 * Tokens scanned so far, and the time spent scanning them if it is measured.
+	 */
+	private int tokenCount;
+	private boolean timed;
+	private long scanNanos;
+
+	/**
+	 * Creates a new {@code Scanner} and set up methods to tokenize given file
+	 *
 	 * @param fileName The name of file to be read
 	 * @throws FileNotFoundException If the named file does not exist, is a directory rather than a regular file, or for some other reason cannot be opened for reading.
 	 */
 	public Scanner(String fileName) throws FileNotFoundException {
-		this.buffer = new PushbackReader(new FileReader(fileName));
-		row = 1;
-		skipChars = Arrays.asList(' ', '\n', '\t', '\r', EOF);
-		letters = Arrays.asList('a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q',
-				'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z');
-		numbers = Arrays.asList('0', '1', '2', '3', '4', '5', '6', '7', '8', '9');
-		operatorsMap = new HashMap<Character, TokenType>() {
-			{
-				put('+', TokenType.PLUS);
-				put('-', TokenType.MINUS);
-				put('*', TokenType.TIMES);
-				put('/', TokenType.DIV);
-				put('=', TokenType.ASSIGN);
-				put(';', TokenType.SEMI);
-			}
-		};
+		this(new FileReader(fileName));
+	}
 
+	/**
+	 * Creates a new {@code Scanner} and set up methods to tokenize given source
+	 *
+	 * @param reader The reader the source code is read from
+	 */
+	public Scanner(Reader reader) {
+		this(reader, new NameTable());
+	}
+
+	/**
+	 * Creates a new {@code Scanner} and set up methods to tokenize given source,
+	 * interning identifiers in given names
+	 *
+	 * @param reader The reader the source code is read from
+	 * @param names The names identifiers are interned in, usually shared with a {@link symboltable.SymbolTable}
+	 */
+	public Scanner(Reader reader, NameTable names) {
+		this(names);
+		this.reader = reader;
+		this.buffer = new char[BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates a new {@code Scanner} and set up methods to tokenize a fragment of a
+	 * source, interning identifiers in given names
+	 *
+	 * @param reader The reader the fragment is read from
+	 * @param names The names identifiers are interned in
+	 * @param row The row of the source the fragment starts in
+	 */
+	public Scanner(Reader reader, NameTable names, int row) {
+		this(reader, names);
+		this.row = row;
+	}
+
+	private Scanner(NameTable names) {
+		row = 1;
+		this.names = names;
 		keyWordsMap = new HashMap<String, TokenType>() {
 			{
 				put("print", TokenType.PRINT);
@@ -60,8 +169,41 @@ public class Scanner {
 	}
 
 	/**
-	 * Returns the actual token, if token is {@code null} returns the next one 
-	 * 
+	 * Creates a new {@code Scanner} that tokenizes given file straight from its
+	 * memory mapped bytes, without decoding it through a {@link Reader}
+	 *
+	 * <p>The ac alphabet is pure ASCII, so every byte is a character. Bytes outside
+	 * ASCII are illegal characters, as they are for the {@link Reader} based scanner.</p>
+	 *
+	 * @param fileName The name of file to be mapped
+	 * @return A scanner reading the mapped file
+	 * @throws IOException If the file cannot be opened or mapped
+	 */
+	public static Scanner map(String fileName) throws IOException {
+		return map(fileName, new NameTable());
+	}
+
+	/**
+	 * Creates a new {@code Scanner} that tokenizes given file straight from its
+	 * memory mapped bytes, interning identifiers in given names
+	 *
+	 * @param fileName The name of file to be mapped
+	 * @param names The names identifiers are interned in
+	 * @return A scanner reading the mapped file
+	 * @throws IOException If the file cannot be opened or mapped
+	 * @see #map(String)
+	 */
+	public static Scanner map(String fileName, NameTable names) throws IOException {
+		FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+		Scanner scanner = new Scanner(names);
+		scanner.channel = channel;
+		scanner.fileSize = channel.size();
+		return scanner;
+	}
+
+	/**
+	 * Returns the actual token, if token is {@code null} returns the next one
+	 *
 	 * @return The actual token, if token is {@code null} returns the next one
 	 * @throws IOException If an I/O error occurs
 	 * @throws LexicalException If code is lexically incorrect
@@ -73,122 +215,406 @@ public class Scanner {
 	}
 
 	/**
-	 * Returns the next token 
-	 * 
+	 * Returns the next token
+	 *
 	 * @return The next token
 	 * @throws IOException If an I/O error occurs
 	 * @throws LexicalException If code is lexically incorrect
 	 */
 	public Token nextToken() throws IOException, LexicalException {
+		TokenType type = advance();
+		if (type == TokenType.ID || type == TokenType.INT || type == TokenType.FLOAT)
+			token = new Token(type, tokenRow, getLexeme());
+		else
+			token = new Token(type, tokenRow);
+		return token;
+	}
+
+	/**
+	 * <p>Moves the cursor to the next token, without allocating it</p>
+	 *
+	 * <p>The cursor exposes the token type, row and lexeme, which stays in the
+	 * source buffer until the next call. The {@link Token} based methods are
+	 * built on it; a scanner should be read through one API only.</p>
+	 *
+	 * @return The type of the next token
+	 * @throws IOException If an I/O error occurs
+	 * @throws LexicalException If code is lexically incorrect
+	 */
+	public TokenType advance() throws IOException, LexicalException {
+		tokenCount++;
+		if (!timed)
+			return scan();
+		long start = System.nanoTime();
+		try {
+			return scan();
+		} finally {
+			scanNanos += System.nanoTime() - start;
+		}
+	}
+
+	private TokenType scan() throws IOException, LexicalException {
 		// Avanza nel buffer leggendo i carattere in skipChars
 		// incrementando riga se leggi '\n'.
 		// Se raggiungi la fine del file ritorna il Token EOF
-		while (skipChars.contains(peekChar())) {
-			if (peekChar() == '\n')
+		tokenLength = 0;
+		int c = peekChar();
+		while (c == EOF || classOf(c) == SKIP) {
+			if (c == EOF)
+				return setToken(TokenType.EOF);
+			if (c == '\n')
 				row++;
-			if (peekChar() == EOF) {
-				readChar();
-				token = new Token(TokenType.EOF, row);
-				return token;
+			position++;
+			c = peekChar();
+		}
+
+		while (c != '\n' && c != EOF) {
+			switch (classOf(c)) {
+				// Se nextChar e' in numbers
+				// return scanNumber()
+				// che legge sia un intero che un float e ritorna il Token INUM o FNUM
+				// i caratteri che leggete devono essere accumulati in una stringa
+				// che verra' assegnata al campo valore del Token
+				case DIGIT:
+				case DOT:
+					return scanNumber();
+				case LETTER:
+					return scanId();
+				// Se nextChar e' in operators
+				// ritorna il Token associato con l'operatore o il delimitatore
+				case OPERATOR:
+					position++;
+					return setToken(OPERATORS[c]);
+				default:
+					position++;
+					c = peekChar();
 			}
-			readChar();
 		}
+		// Altrimenti il carattere NON E' UN CARATTERE LEGALE
+		tokenType = null;
+		throw new LexicalException("Illegal character in row " + row, row);
+	}
 
-		while (peekChar() != '\n') {
+	/**
+	 * Returns the number of tokens scanned so far, the final {@code EOF} included
+	 *
+	 * @return The number of tokens scanned
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
 
-			// Se nextChar e' in numbers
-			// return scanNumber()
-			// che legge sia un intero che un float e ritorna il Token INUM o FNUM
-			// i caratteri che leggete devono essere accumulati in una stringa
-			// che verra' assegnata al campo valore del Token
-			if (numbers.contains(peekChar()) || peekChar() == '.') {
-				token = scanNumber();
-				return token;
-			}
+	/**
+	 * <p>Sets whether the time spent scanning is measured</p>
+	 *
+	 * <p>Tokens are scanned on demand by the parser, so the time spent scanning
+	 * cannot be told apart from the time spent parsing from outside: it is
+	 * measured around every token instead, at the cost of reading the clock
+	 * twice per token.</p>
+	 *
+	 * @param timed {@code true} to measure the time spent scanning
+	 */
+	public void setTimed(boolean timed) {
+		this.timed = timed;
+	}
 
-			// Se nextChar e' in operators
-			// ritorna il Token associato con l'operatore o il delimitatore
-			if (letters.contains(peekChar())) {
-				token = scanId();
-				return token;
-			}
+	/**
+	 * Returns the time spent scanning while it was measured
+	 *
+	 * @return The time spent scanning, in nanoseconds
+	 */
+	public long getScanNanos() {
+		return scanNanos;
+	}
 
-			if (operatorsMap.containsKey(peekChar())) {
-				token = new Token(operatorsMap.get(peekChar()), row);
-				readChar();
-				return token;
-			}
-			readChar();
+	/**
+	 * Returns the type of the token under the cursor
+	 *
+	 * @return The type of the token under the cursor, {@code null} before the first {@link #advance()}
+	 *         and after a lexical error
+	 */
+	public TokenType getType() {
+		return tokenType;
+	}
+
+	/**
+	 * Returns the row of the token under the cursor
+	 *
+	 * @return The row of the token under the cursor
+	 */
+	public int getRow() {
+		return tokenRow;
+	}
+
+	/**
+	 * Returns the buffer offset of the lexeme of the token under the cursor
+	 *
+	 * @return The offset of the lexeme, to be read with {@link #charAt(int)}
+	 */
+	public int getLexemeOffset() {
+		return tokenStart;
+	}
+
+	/**
+	 * Returns the length of the lexeme of the token under the cursor
+	 *
+	 * @return The length of the lexeme, {@code 0} for operators, keywords and {@code EOF}
+	 */
+	public int getLexemeLength() {
+		return tokenLength;
+	}
+
+	/**
+	 * Returns the id of the identifier under the cursor
+	 *
+	 * @return The id of the identifier in {@link #getNames()}, meaningless for other tokens
+	 */
+	public int getNameId() {
+		return tokenName;
+	}
+
+	/**
+	 * Returns the names identifiers are interned in
+	 *
+	 * @return The names identifiers are interned in
+	 */
+	public NameTable getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns a character of the source buffer
+	 *
+	 * @param offset The buffer offset, within the lexeme of the token under the cursor
+	 * @return The character at the offset
+	 */
+	public char charAt(int offset) {
+		return mapped != null ? (char) (mapped.get(offset) & 0xff) : buffer[offset];
+	}
+
+	/**
+	 * Returns the lexeme of the token under the cursor as a string
+	 *
+	 * <p>The lexeme of an identifier is its interned name, so it is not allocated again.</p>
+	 *
+	 * @return The lexeme of the token under the cursor, empty if it has none
+	 */
+	public String getLexeme() {
+		if (tokenType == TokenType.ID)
+			return names.getName(tokenName);
+		if (mapped != null) {
+			byte[] bytes = new byte[tokenLength];
+			mapped.get(tokenStart, bytes);
+			return new String(bytes, StandardCharsets.ISO_8859_1);
 		}
-		// Altrimenti il carattere NON E' UN CARATTERE LEGALE
-		throw new LexicalException("Illegal character in row " + row);
+		return new String(buffer, tokenStart, tokenLength);
+	}
+
+	/**
+	 * Sets the token under the cursor
+	 *
+	 * @param type The type of the token
+	 * @return The type of the token
+	 */
+	private TokenType setToken(TokenType type) {
+		tokenType = type;
+		tokenRow = row;
+		return type;
 	}
 
 	/**
-	 * Returns a token that represents a numeric value (int or float with max 5 decimals).
-	 * 
-	 * @return The token representing a numeric value (int or float with 5 decimals).
+	 * Scans a numeric value (int or float with max 5 decimals).
+	 *
+	 * @return The type of the numeric value.
 	 * @throws IOException If an I/O error occurs
 	 * @throws LexicalException If code is lexically incorrect
 	 */
-	private Token scanNumber() throws IOException, LexicalException {
-		StringBuilder result = new StringBuilder();
-		while (numbers.contains(peekChar())) {
-			result.append(readChar());
+	private TokenType scanNumber() throws IOException, LexicalException {
+		lexemeStart = position;
+		while (classOf(peekChar()) == DIGIT) {
+			position++;
 		}
 		if (peekChar() != '.')
-			return new Token(TokenType.INT, row, result.toString());
+			return endLexeme(TokenType.INT);
 
 		int count = 0;
-		result.append(readChar());
-		while (numbers.contains(peekChar())) {
-			result.append(readChar());
+		position++;
+		while (classOf(peekChar()) == DIGIT) {
+			position++;
 			count++;
 		}
 
 		if (count >= 1 && count <= 5)
-			return new Token(TokenType.FLOAT, row, result.toString());
+			return endLexeme(TokenType.FLOAT);
 
-		throw new LexicalException("Uncorrect decimals in row " + row);
+		lexemeStart = -1;
+		tokenType = null;
+		throw new LexicalException("Uncorrect decimals in row " + row, row);
 
 	}
 
 	/**
-	 * Returns a token that represents an Id (variable or keyword)
-	 * 
-	 * @return The token that represents a Id (variable or keyword)
+	 * Scans an Id (variable or keyword), recognizing keywords in the buffer
+	 *
+	 * @return The type of the Id
 	 * @throws IOException If an I/O error occurs
 	 */
-	private Token scanId() throws IOException {
-		StringBuilder sb = new StringBuilder();
-		while (letters.contains(peekChar())) {
-			sb.append(readChar());
+	private TokenType scanId() throws IOException {
+		lexemeStart = position;
+		while (classOf(peekChar()) == LETTER) {
+			position++;
 		}
 
-		if (keyWordsMap.containsKey(sb.toString()))
-			return new Token(keyWordsMap.get(sb.toString()), row);
-		return new Token(TokenType.ID, row, sb.toString());
+		TokenType keyWord = keyWordOf(lexemeStart, position - lexemeStart);
+		if (keyWord != null) {
+			lexemeStart = -1;
+			return setToken(keyWord);
+		}
+		tokenName = names.intern(lexeme.of(lexemeStart, position - lexemeStart));
+		return endLexeme(TokenType.ID);
 	}
 
 	/**
-	 * Reads a char and consumes it
-	 * 
-	 * @return The read character
-	 * @throws IOException If an I/O error occurs
+	 * Returns the keyword spelled by the characters of the buffer, comparing
+	 * them in place with the keys of {@link #keyWordsMap}
+	 *
+	 * @param start The offset of the characters
+	 * @param length The number of characters
+	 * @return The keyword type, {@code null} if the characters are not a keyword
+	 */
+	private TokenType keyWordOf(int start, int length) {
+		for (var keyWord : keyWordsMap.entrySet()) {
+			String key = keyWord.getKey();
+			if (key.length() != length)
+				continue;
+			int i = 0;
+			while (i < length && charAt(start + i) == key.charAt(i))
+				i++;
+			if (i == length)
+				return keyWord.getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the lexeme scanned since {@link #lexemeStart} as the token under the cursor and forgets its start
+	 *
+	 * @param type The type of the token
+	 * @return The type of the token
 	 */
-	private char readChar() throws IOException {
-		return ((char) this.buffer.read());
+	private TokenType endLexeme(TokenType type) {
+		tokenStart = lexemeStart;
+		tokenLength = position - lexemeStart;
+		lexemeStart = -1;
+		return setToken(type);
+	}
+
+	/**
+	 * Returns the class of a character read from the buffer
+	 *
+	 * @param c The character, or {@code EOF}
+	 * @return The character class, {@code OTHER} for {@code EOF} and non ASCII characters
+	 */
+	private static byte classOf(int c) {
+		return c >= 0 && c < 128 ? CHAR_CLASS[c] : OTHER;
 	}
 
 	/**
 	 * Reads a char without consuming it
-	 * 
-	 * @return The read character
+	 *
+	 * @return The read character, or {@code EOF}
+	 * @throws IOException If an I/O error occurs
+	 */
+	private int peekChar() throws IOException {
+		if (position == limit && !fill())
+			return EOF;
+		return mapped != null ? mapped.get(position) & 0xff : buffer[position];
+	}
+
+	/**
+	 * Reads the next block of characters, keeping the pending lexeme (if any) in the buffer
+	 *
+	 * @return {@code false} if the end of the source has been reached
+	 * @throws IOException If an I/O error occurs
+	 */
+	private boolean fill() throws IOException {
+		if (reader == null)
+			return map();
+		int keep = lexemeStart >= 0 ? lexemeStart : position;
+		int length = limit - keep;
+		if (keep > 0)
+			System.arraycopy(buffer, keep, buffer, 0, length);
+		else if (length == buffer.length)
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		if (lexemeStart >= 0)
+			lexemeStart -= keep;
+		position -= keep;
+		limit = length;
+
+		int read = reader.read(buffer, limit, buffer.length - limit);
+		if (read <= 0)
+			return false;
+		limit += read;
+		return true;
+	}
+
+	/**
+	 * Maps the next window of the source file, starting from the pending lexeme (if any)
+	 *
+	 * @return {@code false} if the end of the file has been reached
 	 * @throws IOException If an I/O error occurs
 	 */
-	private char peekChar() throws IOException {
-		char c = (char) buffer.read();
-		buffer.unread(c);
-		return c;
+	private boolean map() throws IOException {
+		int keep = lexemeStart >= 0 ? lexemeStart : position;
+		long offset = windowStart + keep;
+		if (windowStart + limit == fileSize) {
+			channel.close();
+			return false;
+		}
+		int size = (int) Math.min(fileSize - offset, MAP_WINDOW);
+		mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		if (lexemeStart >= 0)
+			lexemeStart -= keep;
+		position -= keep;
+		limit = size;
+		windowStart = offset;
+		return true;
+	}
+
+	/**
+	 * View of characters of the buffer, reused to intern identifiers without copying them
+	 */
+	private final class Lexeme implements CharSequence {
+		private int start;
+		private int length;
+
+		private Lexeme of(int start, int length) {
+			this.start = start;
+			this.length = length;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return Scanner.this.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++)
+				chars[i] = charAt(i);
+			return new String(chars);
+		}
 	}
 }
@@ -24,6 +24,16 @@ public class Attributes {
 	 */
 	private char register;
 
+	/**
+	 * Index of the variable in the spill array, {@code -1} if it has a register.
+	 */
+	private int spillSlot = -1;
+
+	/**
+	 * Dense index of the variable among the symbols of its {@link SymbolTable}.
+	 */
+	private int slot;
+
 	/**
 	 * Returns the register value associated in {@link SymbolTable}.
 	 * 
@@ -42,6 +52,52 @@ public class Attributes {
 		this.register = register;
 	}
 
+	/**
+	 * Returns {@code true} if the variable is kept in the spill array rather
+	 * than in a register.
+	 * 
+	 * @return {@code true} if the variable is spilled, otherwise {@code false}.
+	 */
+	public boolean isSpilled() {
+		return spillSlot >= 0;
+	}
+
+	/**
+	 * Returns the index of the variable in the spill array.
+	 * 
+	 * @return the index of the variable in the spill array, {@code -1} if it has a register.
+	 */
+	public int getSpillSlot() {
+		return spillSlot;
+	}
+
+	/**
+	 * Sets the index of the variable in the spill array
+	 * 
+	 * @param spillSlot the index in the spill array
+	 */
+	public void setSpillSlot(int spillSlot) {
+		this.spillSlot = spillSlot;
+	}
+
+	/**
+	 * Returns the index of the variable among the symbols of its {@link SymbolTable}.
+	 * 
+	 * @return the index of the variable, from {@code 0} to the table size excluded.
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	/**
+	 * Sets the index of the variable among the symbols of its {@link SymbolTable}
+	 * 
+	 * @param slot the index of the variable
+	 */
+	public void setSlot(int slot) {
+		this.slot = slot;
+	}
+
 	/**
 	 * Class constructor.
 	 * 
@@ -0,0 +1,116 @@
+package symboltable;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link NameTable} class.</p>
+ *
+ * <p>Interns identifiers: each distinct name gets a dense id, numbered from {@code 0}
+ * in order of first occurrence, and is stored as a single {@link String}.</p>
+ *
+ * <p>Names are looked up by their characters, so a scanner can intern an identifier
+ * straight from its source buffer and allocate a string only the first time the
+ * identifier is seen. A table shared by the scanner and the {@link SymbolTable} of a
+ * compilation lets the symbols be resolved by id instead of by name.</p>
+ */
+public class NameTable {
+	private static final int EMPTY = -1;
+
+	private String[] names = new String[16];
+	private int[] hashes = new int[16];
+	private int size;
+
+	/**
+	 * Open addressing table of name ids, indexed by hash.
+	 */
+	private int[] slots = new int[32];
+
+	/**
+	 * Empty table initialization.
+	 */
+	public NameTable() {
+		Arrays.fill(slots, EMPTY);
+	}
+
+	/**
+	 * <p>Returns the id of a name, adding the name if it's not present.</p>
+	 * @param name the characters of the name.
+	 * @return the id of the name.
+	 */
+	public int intern(CharSequence name) {
+		int hash = hash(name);
+		int slot = find(name, hash);
+		if (slots[slot] != EMPTY)
+			return slots[slot];
+		if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+		}
+		names[size] = name.toString();
+		hashes[size] = hash;
+		slots[slot] = size;
+		if (++size * 2 > slots.length)
+			rehash();
+		return size - 1;
+	}
+
+	/**
+	 * <p>Returns the id of a name.</p>
+	 * @param name the characters of the name.
+	 * @return the id of the name, {@code -1} if it's not present.
+	 */
+	public int indexOf(CharSequence name) {
+		return slots[find(name, hash(name))];
+	}
+
+	/**
+	 * Returns the name with a given id.
+	 * @param id the id of the name.
+	 * @return the name.
+	 */
+	public String getName(int id) {
+		return names[id];
+	}
+
+	/**
+	 * Returns the number of names.
+	 * @return the number of names.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int find(CharSequence name, int hash) {
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while (slots[slot] != EMPTY) {
+			int id = slots[slot];
+			if (hashes[id] == hash && names[id].contentEquals(name))
+				break;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		Arrays.fill(slots, EMPTY);
+		int mask = slots.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (slots[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			slots[slot] = id;
+		}
+	}
+
+	/**
+	 * Hashes the characters of a name as {@link String#hashCode()} does, spread over the low bits.
+	 */
+	private static int hash(CharSequence name) {
+		int hash = 0;
+		for (int i = 0; i < name.length(); i++)
+			hash = 31 * hash + name.charAt(i);
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -1,39 +1,91 @@
 package symboltable;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
+
+import ast.NodeId;
 
 /**
  *<p>{@link SymbolTable} class.</p>
- * 
+ *
  * <p>Represents a symboltable with {@link String} and {@link Attributes}.</p>
+ *
+ * <p>Each compilation owns its own table, so that many programs can be compiled
+ * concurrently in the same JVM.</p>
+ *
+ * <p>Symbols are stored in an array indexed by the id of their name in a
+ * {@link NameTable}. A {@link NodeId} carrying the id given by the scanner is
+ * resolved by index, if the scanner and this table share the same names.</p>
  */
 public class SymbolTable {
-    private static HashMap<String, Attributes> table;
+	private NameTable names;
+	private Attributes[] table = new Attributes[16];
+	private int size;
+
+	/**
+	 * Ids of the names of the symbols, in order of entry.
+	 */
+	private int[] entered = new int[16];
 
-	private SymbolTable() {
-		throw new IllegalStateException("Utility class");
+	/**
+	 * Number of symbols visible to lookups, in order of entry.
+	 */
+	private int visible = Integer.MAX_VALUE;
+
+	/**
+	 * Symbol table initialization.
+	 */
+	public SymbolTable() {
+		this(new NameTable());
 	}
 
 	/**
 	 * Symbol table initialization.
+	 * @param names the names the ids of the symbols refer to.
 	 */
-	public static void init() {
-		table = new HashMap<>();
+	public SymbolTable(NameTable names) {
+		this.names = names;
+	}
+
+	/**
+	 * Returns the names the ids of the symbols refer to.
+	 * @return the names the ids of the symbols refer to.
+	 */
+	public NameTable getNames() {
+		return names;
 	}
 
 	/**
 	 * <p>Tries to insert a value in the map.</p>
 	 * <p>Adds it if it's not present and returns {@code true}, otherwise {@code false}.</p>
+	 * <p>An added entry gets the next slot: entries are numbered densely from {@code 0}.</p>
 	 * @param id the variable name (or id).
 	 * @param entry the {@link Attributes} value (containing e.g.: variable type).
 	 * @return {@code true} if id is not already in the map, otherwise {@code false}.
 	 */
-	public static boolean enter(String id, Attributes entry) {
-		Attributes value = table.get(id);
-		if (value != null)
+	public boolean enter(String id, Attributes entry) {
+		return enter(names.intern(id), entry);
+	}
+
+	/**
+	 * <p>Tries to insert the value of a variable node, as {@link #enter(String, Attributes)} does.</p>
+	 * @param id the variable node.
+	 * @param entry the {@link Attributes} value (containing e.g.: variable type).
+	 * @return {@code true} if id is not already in the map, otherwise {@code false}.
+	 */
+	public boolean enter(NodeId id, Attributes entry) {
+		return enter(resolve(id), entry);
+	}
+
+	private boolean enter(int id, Attributes entry) {
+		if (id >= table.length)
+			table = Arrays.copyOf(table, Math.max(id + 1, table.length * 2));
+		if (table[id] != null)
 			return false;
-		table.put(id, entry);
+		if (size == entered.length)
+			entered = Arrays.copyOf(entered, size * 2);
+		entered[size] = id;
+		entry.setSlot(size++);
+		table[id] = entry;
 		return true;
 	}
 
@@ -43,19 +95,69 @@ public class SymbolTable {
 	 * @param id the id to search for.
 	 * @return an {@link Attributes} value containing variable info, otherwise {@code null}.
 	 */
-	public static Attributes lookup(String id) {
-		return table.get(id);
+	public Attributes lookup(String id) {
+		return lookup(names.indexOf(id));
+	}
+
+	/**
+	 * <p>Searchs for the variable of a node, as {@link #lookup(String)} does.</p>
+	 * @param id the variable node.
+	 * @return an {@link Attributes} value containing variable info, otherwise {@code null}.
+	 */
+	public Attributes lookup(NodeId id) {
+		return lookup(resolve(id));
+	}
+
+	private Attributes lookup(int id) {
+		Attributes entry = id >= 0 && id < table.length ? table[id] : null;
+		return entry != null && entry.getSlot() < visible ? entry : null;
+	}
+
+	/**
+	 * <p>Removes the symbols entered after the first ones, whose slots are given
+	 * to the next entries again.</p>
+	 * @param symbols the number of symbols kept.
+	 */
+	public void truncate(int symbols) {
+		while (size > symbols)
+			table[entered[--size]] = null;
+	}
+
+	/**
+	 * <p>Hides from lookups the symbols entered after the first ones.</p>
+	 * <p>Used to check a statement in the middle of a program whose declarations are
+	 * all entered: the statement sees only the symbols declared before it.</p>
+	 * @param symbols the number of visible symbols, {@link Integer#MAX_VALUE} to see them all.
+	 */
+	public void setVisible(int symbols) {
+		visible = symbols;
+	}
+
+	/**
+	 * <p>Returns the id of the name of a node in {@link #names}.</p>
+	 * <p>The id of the node is trusted if {@link #names} holds its very name string
+	 * under that id, which is the case when the node was scanned with the same names.
+	 * Otherwise the name is interned, and the node remembers its id.</p>
+	 */
+	private int resolve(NodeId node) {
+		int id = node.getId();
+		if (id >= 0 && id < names.size() && names.getName(id) == node.getName())
+			return id;
+		id = names.intern(node.getName());
+		node.setId(id);
+		return id;
 	}
 
 	/**
 	 * Returns a string representing the whole symbol table.
 	 * @return a string representing the whole symbol table.
 	 */
-	public static String toStr() {
+	public String toStr() {
 		StringBuilder res = new StringBuilder("symbol table\n=============\n");
 
-		for (Entry<String, Attributes> entry : table.entrySet())
-			res.append(String.format("%s   \t%s%n", entry.getKey(), entry.getValue()));
+		for (int id = 0; id < table.length; id++)
+			if (table[id] != null)
+				res.append(String.format("%s   \t%s%n", names.getName(id), table[id]));
 
 		return res.toString();
 	}
@@ -64,7 +166,7 @@ public class SymbolTable {
 	 * Returns the map size.
 	 * @return the map size.
 	 */
-	public static int size() {
-		return (table.size());
+	public int size() {
+		return size;
 	}
 }
@@ -0,0 +1,159 @@
+package test;
+
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import dc.DcMachine;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.IVisitor;
+import visitor.TypeCheckingVisitor;
+
+/**
+ * <p>
+ * Programs and compilations shared by the tests: parsing and checking a
+ * source, generating its code through optimization passes, running dc code
+ * and generating random programs.
+ * </p>
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Parses and type checks a program, which must have no type errors.
+     *
+     * @param source  the program source.
+     * @param context the compilation state.
+     * @return the checked program.
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    static NodeProgram parse(String source, CompilationContext context) throws SyntacticException {
+        NodeProgram nP = new Parser(new Scanner(new StringReader(source))).parse();
+        var typeVisitor = new TypeCheckingVisitor(context);
+        nP.accept(typeVisitor);
+        assertFalse(typeVisitor.getLoggerString(), typeVisitor.hasErrors());
+        return nP;
+    }
+
+    /**
+     * Parses, type checks and generates code for a program, after running
+     * optimization passes over it in order.
+     *
+     * @param source  the program source.
+     * @param context the compilation state.
+     * @param passes  the passes run before generating code, built on
+     *                {@code context}.
+     * @return the generated code.
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    static String compile(String source, CompilationContext context, IVisitor... passes)
+            throws SyntacticException {
+        NodeProgram nP = parse(source, context);
+        for (IVisitor pass : passes)
+            nP.accept(pass);
+        var codeGenVisitor = new CodeGeneratorVisitor(context);
+        nP.accept(codeGenVisitor);
+        return codeGenVisitor.getCode();
+    }
+
+    /**
+     * Runs dc code on a new machine, which must report no errors.
+     *
+     * @param code the dc code.
+     * @return what the code prints.
+     * @throws IOException If an I/O error occurs while printing.
+     */
+    static String run(String code) throws IOException {
+        var out = new ByteArrayOutputStream();
+        var machine = new DcMachine(out);
+        machine.execute(code);
+        assertFalse(machine.getLoggerString(), machine.hasErrors());
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns a distinct variable name for every index: {@code a} to {@code z},
+     * then {@code ba}, {@code bb} and so on.
+     *
+     * @param index the index of the variable.
+     * @return its name.
+     */
+    static String variableName(int index) {
+        var name = new StringBuilder();
+        do {
+            name.insert(0, (char) ('a' + index % 26));
+            index /= 26;
+        } while (index > 0);
+        return name.toString();
+    }
+
+    /**
+     * <p>
+     * Returns a random program of an even number of variables, named by
+     * {@link #variableName(int)}, the even ones {@code int} and the odd ones
+     * {@code float}. Every variable is assigned its index plus one, then
+     * assignments and prints are mixed.
+     * </p>
+     *
+     * <p>
+     * An assignment is led by a variable of its type, often the assigned one,
+     * and goes on with variables and constants, {@code 0} and {@code 1}
+     * included. Divisors are constants other than zero, and in {@code float}
+     * expressions {@code int} operands only follow {@code *} or {@code /}, so
+     * that they are only ever converted: the program prints the same values
+     * however it is compiled or run.
+     * </p>
+     *
+     * @param random     the source of the choices.
+     * @param variables  the number of variables, even.
+     * @param statements the number of statements after the first assignments.
+     * @return the program source.
+     */
+    static String randomProgram(Random random, int variables, int statements) {
+        String[] ops = { "+", "-", "*", "/" };
+        var source = new StringBuilder();
+        for (int v = 0; v < variables; v++)
+            source.append(v % 2 == 0 ? "int " : "float ").append(variableName(v)).append(";\n");
+        for (int v = 0; v < variables; v++)
+            source.append(variableName(v)).append(" = ").append(v + 1).append(";\n");
+        for (int s = 0; s < statements; s++) {
+            int target = random.nextInt(variables);
+            boolean isFloat = target % 2 == 1;
+            if (random.nextInt(4) == 0) {
+                source.append("print ").append(variableName(target)).append(";\n");
+                continue;
+            }
+            int first = random.nextInt(4) == 0 ? target : 2 * random.nextInt(variables / 2) + target % 2;
+            source.append(variableName(target)).append(" = ").append(variableName(first));
+            for (int d = random.nextInt(4); d > 0; d--) {
+                String op = ops[random.nextInt(ops.length)];
+                boolean isInt = !isFloat || (op.equals("*") || op.equals("/")) && random.nextBoolean();
+                String operand;
+                int choice = random.nextInt(4);
+                if (op.equals("/"))
+                    operand = isInt ? String.valueOf(random.nextInt(9) + 1) : "1.5";
+                else if (choice == 0)
+                    operand = isInt ? String.valueOf(random.nextInt(3)) : random.nextBoolean() ? "0.5" : "1.25";
+                else if (choice == 1)
+                    operand = isInt ? String.valueOf(random.nextInt(100))
+                            : random.nextInt(100) + "." + random.nextInt(100);
+                else
+                    operand = variableName(2 * random.nextInt(variables / 2) + (isInt ? 0 : 1));
+                source.append(' ').append(op).append(' ').append(operand);
+            }
+            source.append(";\n");
+        }
+        return source.toString();
+    }
+}
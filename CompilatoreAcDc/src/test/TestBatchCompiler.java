@@ -0,0 +1,168 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import compiler.BatchCompiler;
+import compiler.CompilationCache;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TestBatchCompiler {
+
+    /**
+     * <p>
+     * Compiles a directory tree of programs, one of them with a type error and
+     * one with a syntax error.
+     * </p>
+     * 
+     * <p>
+     * Tests that every correct program is compiled to its {@code .dc} sibling,
+     * that failures are counted and that nothing is written for them.
+     * </p>
+     * 
+     * @throws IOException If the temporary sources cannot be written.
+     */
+    @Test
+    public void testCompileDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("testCompileDirectory");
+        Files.createDirectory(directory.resolve("nested"));
+        for (int i = 0; i < 20; i++)
+            Files.writeString(directory.resolve(i % 2 == 0 ? "p" + i + ".ac" : "nested/p" + i + ".ac"),
+                    String.format("int a;%na = %d;%nprint a;%n", i));
+        Files.writeString(directory.resolve("types.ac"), "int a;\na = 1.5;\n");
+        Files.writeString(directory.resolve("syntax.ac"), "int a;\na = ;\n");
+        Files.writeString(directory.resolve("ignored.txt"), "int a;\n");
+
+        List<Path> sources = BatchCompiler.collectSources(List.of(directory.toString()));
+        BatchCompiler.Summary summary = new BatchCompiler(4).compile(sources);
+
+        assertEquals(22, summary.getFiles());
+        assertEquals(2, summary.getFailures());
+        assertEquals("7 d sa p P", Files.readString(directory.resolve("nested/p7.dc")));
+        assertEquals("12 d sa p P", Files.readString(directory.resolve("p12.dc")));
+        assertFalse(Files.exists(directory.resolve("types.dc")));
+        assertFalse(Files.exists(directory.resolve("syntax.dc")));
+        assertFalse(Files.exists(directory.resolve("ignored.dc")));
+        assertEquals(1, BatchCompiler.run("--threads", "2", directory.resolve("types.ac").toString()));
+        assertEquals(0, BatchCompiler.run(directory.resolve("p0.ac").toString()));
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Compiles a correct source and one with a type error with {@code --jfr}:
+     * tests that the recording holds an event for each phase every source went
+     * through, with the statistics of its compilation.
+     * 
+     * @throws IOException If the temporary sources or the recording cannot be
+     *                     read or written.
+     */
+    @Test
+    public void testRecording() throws IOException {
+        Path directory = Files.createTempDirectory("testRecording");
+        Path program = directory.resolve("p.ac");
+        Files.writeString(program, "int a;\nint b;\na = 1;\nb = a + 2;\nprint b;\n");
+        Files.writeString(directory.resolve("types.ac"), "int a;\na = 1.5;\n");
+        Path recording = directory.resolve("compilation.jfr");
+        assertEquals(1, BatchCompiler.run("--threads", "1", "--jfr", recording.toString(), directory.toString()));
+
+        Map<String, RecordedEvent> events = new HashMap<>();
+        int typeErrorEvents = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+            String name = event.getEventType().getName();
+            if (!name.startsWith("compilatore.acdc."))
+                continue;
+            if (event.getString("file").equals(program.toString()))
+                assertNull(name, events.put(name, event));
+            else
+                typeErrorEvents++;
+        }
+        assertEquals(3, typeErrorEvents);
+        assertEquals(4, events.size());
+        for (String phase : List.of("Scan", "Parse", "TypeCheck", "CodeGeneration")) {
+            RecordedEvent event = events.get("compilatore.acdc." + phase);
+            assertEquals(Files.size(program), event.getLong("inputBytes"));
+            assertEquals(20, event.getLong("tokens"));
+            assertEquals(16, event.getLong("astNodes"));
+            assertEquals(2, event.getLong("symbols"));
+            assertEquals(Files.size(directory.resolve("p.dc")), event.getLong("outputBytes"));
+        }
+        assertTrue(events.get("compilatore.acdc.Scan").getDuration("scanTime").toNanos() > 0);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * <p>
+     * Compiles the same sources twice through a cache.
+     * </p>
+     * 
+     * <p>
+     * Tests that the second time every source is a hit with the same code and
+     * failures, that an edited source misses, and that the least recently used
+     * entries are evicted once the cache is full.
+     * </p>
+     * 
+     * @throws IOException If the temporary sources cannot be written.
+     */
+    @Test
+    public void testCache() throws IOException {
+        Path directory = Files.createTempDirectory("testCache");
+        Path cacheDirectory = directory.resolve("cache");
+        for (int i = 0; i < 10; i++)
+            Files.writeString(directory.resolve("p" + i + ".ac"), String.format("int a;%na = %d;%nprint a;%n", i));
+        Files.writeString(directory.resolve("types.ac"), "int a;\na = 1.5;\n");
+        Files.writeString(directory.resolve("syntax.ac"), "int a;\na = ;\n");
+        List<Path> sources = BatchCompiler.collectSources(List.of(directory.toString()));
+
+        var cache = new CompilationCache(cacheDirectory, CompilationCache.DEFAULT_MAX_BYTES);
+        BatchCompiler.Summary summary = new BatchCompiler(4, cache).compile(sources);
+        assertEquals(0, summary.getCacheHits());
+        assertEquals(2, summary.getFailures());
+        Files.delete(directory.resolve("p3.dc"));
+        Files.writeString(directory.resolve("p4.ac"), "int a;\nprint a;\n");
+
+        summary = new BatchCompiler(4, new CompilationCache(cacheDirectory, CompilationCache.DEFAULT_MAX_BYTES))
+                .compile(sources);
+        assertEquals(11, summary.getCacheHits());
+        assertEquals(2, summary.getFailures());
+        assertEquals("3 d sa p P", Files.readString(directory.resolve("p3.dc")));
+        assertEquals("la p P", Files.readString(directory.resolve("p4.dc")));
+        assertFalse(Files.exists(directory.resolve("syntax.dc")));
+        assertEquals(0, BatchCompiler.run("--cache", cacheDirectory.toString(), directory.resolve("p5.ac").toString()));
+
+        byte[] first = "int a;\n".getBytes();
+        var small = new CompilationCache(directory.resolve("small"), 200);
+        small.put(first, CompilationCache.Entry.compiled("", 0));
+        Files.setLastModifiedTime(directory.resolve("small").resolve(CompilationCache.keyOf(first) + ".entry"),
+                FileTime.fromMillis(0));
+        for (int i = 0; i < 10; i++)
+            small.put(("int a" + i + ";").getBytes(), CompilationCache.Entry.compiled("la p P", 0));
+        assertTrue(small.size() <= 200);
+        assertNull(small.get(first));
+        assertEquals("la p P", small.get("int a9;".getBytes()).getCode());
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
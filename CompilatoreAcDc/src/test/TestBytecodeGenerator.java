@@ -0,0 +1,109 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static test.Fixtures.parse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.BytecodeGeneratorVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.InterpreterVisitor;
+import visitor.TypeCheckingVisitor;
+
+public class TestBytecodeGenerator {
+
+    /**
+     * Runs the general test program: a float divided with 5 decimals and an int
+     * truncated to 0.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testGeneral() throws Exception {
+        NodeProgram nP = new Parser(new Scanner("src/test/data/testTypeGeneral2.txt")).parse();
+        var context = new CompilationContext();
+        nP.accept(new TypeCheckingVisitor(context));
+        var generator = new BytecodeGeneratorVisitor(context);
+        nP.accept(generator);
+        var out = new ByteArrayOutputStream();
+        Runnable program = generator.getProgram(out);
+        program.run();
+        program.run();
+        assertEquals(".16666\n0\n.16666\n0\n", out.toString(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Tests that conversions set the precision for the rest of the statement,
+     * so that int divisions after them have decimals, and that constants are
+     * kept with their scale.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testConversions() throws Exception {
+        assertSameAsInterpreter("float b;\nint a;\na = 7;\nb = 1.5 * 2 + a / 3;\nprint b;\nb = 1.0 + a;\nb = b * 3 / 7;\nprint b;");
+        assertSameAsInterpreter("int a;\na = 7 / 2 * 3;\nprint a;\na = 1 - 5 - 5;\nprint a;\nfloat f;\nf = a;\nprint f;");
+        assertSameAsInterpreter("float f;\nf = 1.50 / 1;\nprint f;\nf = f * 0.5 * 0.5 * 0.5 - 100.25;\nprint f;");
+    }
+
+    /**
+     * Tests a program split in many methods, whose variables live across them.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testLargeProgram() throws Exception {
+        var source = new StringBuilder("int i;\nint j;\nfloat f;\ni = 1;\nj = 0;\nf = 0.5;\n");
+        for (int s = 0; s < 5000; s++) {
+            source.append("j = j + i * 3 - ").append(s % 7).append(";\n");
+            source.append("f = f + 0.001 * j / 1000;\n");
+            if (s % 500 == 0)
+                source.append("print j;\nprint f;\n");
+        }
+        assertSameAsInterpreter(source.toString());
+    }
+
+    /**
+     * Tests that int values beyond {@code long} make the program fail instead
+     * of printing wrong numbers.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testOverflow() throws Exception {
+        var context = new CompilationContext();
+        var generator = new BytecodeGeneratorVisitor(context);
+        parse("int a;\na = 999999999999999999;\na = a * a;", context).accept(generator);
+        Runnable program = generator.getProgram(new ByteArrayOutputStream());
+        assertThrows(ArithmeticException.class, program::run);
+    }
+
+    /**
+     * Checks that a program prints the same compiled to bytecode and
+     * interpreted, both folded and not.
+     */
+    private static void assertSameAsInterpreter(String source) throws SyntacticException {
+        for (boolean fold : new boolean[] { false, true }) {
+            var context = new CompilationContext();
+            NodeProgram nP = parse(source, context);
+            if (fold)
+                nP.accept(new ConstantFoldingVisitor(context));
+            var expected = new ByteArrayOutputStream();
+            nP.accept(new InterpreterVisitor(context, expected));
+            var generator = new BytecodeGeneratorVisitor(context);
+            nP.accept(generator);
+            var out = new ByteArrayOutputStream();
+            generator.getProgram(out).run();
+            assertEquals(expected.toString(StandardCharsets.ISO_8859_1), out.toString(StandardCharsets.ISO_8859_1));
+        }
+    }
+}
@@ -3,15 +3,38 @@ package test;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static test.Fixtures.compile;
+import static test.Fixtures.run;
+import static test.Fixtures.variableName;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import ast.NodeAssign;
+import ast.NodeDecSt;
 import ast.NodeProgram;
 import ast.TypeDescriptor;
+import compiler.CompilationContext;
+import compiler.StreamingCompiler;
+import dc.CodeSink;
+import exception.SyntacticException;
 import parser.Parser;
 import scanner.Scanner;
 import visitor.CodeGeneratorVisitor;
@@ -30,7 +53,7 @@ public class TestCodeGenerator {
     public void testGeneral() throws IOException {
         var logger = Logger.getLogger(this.getClass().getName());
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testTypeGeneral2.txt");
+                "src/test/data/testTypeGeneral2.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = assertDoesNotThrow(parser::parse);
         var typeVisitor = new TypeCheckingVisitor();
@@ -40,10 +63,247 @@ public class TestCodeGenerator {
         var codeGenVisitor = new CodeGeneratorVisitor();
         nP.accept(codeGenVisitor);
         try (var writer = new FileWriter(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\output.txt")) {
+                "src/test/data/output.txt")) {
             writer.write(codeGenVisitor.getCode());
         }
         String expected = "1.0 6 5 k / sb 0 k lb p P 1 6 / sa 0 k la p P la sb 0 k";
         assertEquals(expected, codeGenVisitor.getCode());
     }
+
+    /**
+     * <p>
+     * Parses, type checks and generates code for 100,000 terms long {@code +}
+     * and {@code *} chains.
+     * </p>
+     * 
+     * <p>
+     * Runs on a thread with a 512 KB stack, so that any recursion depth growing
+     * with the chain length fails the test.
+     * </p>
+     * 
+     * @throws InterruptedException If interrupted while waiting for the compiler thread.
+     */
+    @Test
+    public void testLongOperatorChain() throws InterruptedException {
+        int terms = 100000;
+        String source = "int a;\na = 1" + " + 2 * 3 * 4".repeat(terms) + ";\na = 1" + " * 2".repeat(terms) + ";\n";
+        // The first term needs more stack than the 1 it is added to
+        String expected = "2 3 * 4 * 1 + " + "2 3 * 4 * + ".repeat(terms - 1) + "1 " + "2 * ".repeat(terms);
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                NodeProgram nP = new Parser(new Scanner(new StringReader(source))).parse();
+                var typeVisitor = new TypeCheckingVisitor();
+                nP.accept(typeVisitor);
+                var codeGenVisitor = new CodeGeneratorVisitor();
+                for (NodeDecSt node : nP)
+                    if (node instanceof NodeAssign)
+                        ((NodeAssign) node).getExpr().accept(codeGenVisitor);
+                result.set(nP.getResType() + " " + codeGenVisitor.getCode());
+            } catch (Throwable e) {
+                result.set(e);
+            }
+        }, "testLongOperatorChain", 512 * 1024);
+        thread.start();
+        thread.join();
+        assertEquals(TypeDescriptor.VOID + " " + expected.trim(), result.get());
+    }
+
+    /**
+     * Checks that the streaming compiler writes the same code as the whole program
+     * pipeline, with constant expressions folded.
+     * 
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testStreaming() throws SyntacticException, IOException {
+        String source = "int a;\nfloat b;\n\nb = 1.0 / 6;\nprint b;\n\na = 1 / 6;\nprint a;\n\nb = a;";
+        var writer = new StringWriter();
+        var compiler = new StreamingCompiler(new Scanner(new StringReader(source)), writer);
+        assertTrue(compiler.compile());
+        String expected = "0.16666 sb 0 k lb p P 0 sa 0 k la p P la sb 0 k";
+        assertEquals(expected, writer.toString());
+    }
+
+    /**
+     * <p>
+     * Compiles 10,000 programs concurrently on a thread pool.
+     * </p>
+     * 
+     * <p>
+     * Every compilation owns its symbol table and registers, so each program
+     * must compile to the same code it would compile to alone.
+     * </p>
+     * 
+     * @throws InterruptedException If interrupted while waiting for the compilations.
+     * @throws ExecutionException   If a compilation failed.
+     */
+    @Test
+    public void testConcurrentCompilations() throws InterruptedException, ExecutionException {
+        int programs = 10000;
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < programs; i++) {
+            String source = String.format("int a;%nfloat b;%na = %d;%nb = a;%nprint b;%nb = b / 7 + %d.5;%n", i, i);
+            results.add(pool.submit(() -> {
+                NodeProgram nP = new Parser(new Scanner(new StringReader(source))).parse();
+                var context = new CompilationContext();
+                nP.accept(new TypeCheckingVisitor(context));
+                var codeGenVisitor = new CodeGeneratorVisitor(context);
+                nP.accept(codeGenVisitor);
+                return codeGenVisitor.getCode();
+            }));
+        }
+        pool.shutdown();
+        for (int i = 0; i < programs; i++)
+            assertEquals(String.format("%d sa 0 k la sb 0 k lb p P lb 7 5 k / %d.5 + sb 0 k", i, i),
+                    results.get(i).get());
+    }
+
+    /**
+     * <p>
+     * Compiles a program of 1,000 variables, each assigned and then printed.
+     * </p>
+     * 
+     * <p>
+     * Each variable is dead after its print, so its register is reused and
+     * nothing is spilled.
+     * </p>
+     * 
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testRegisterReuse() throws SyntacticException {
+        int variables = 1000;
+        var source = new StringBuilder();
+        for (int i = 0; i < variables; i++)
+            source.append("int ").append(variableName(i)).append(";\n");
+        for (int i = 0; i < variables; i++)
+            source.append(String.format("%s = %d;%nprint %s;%n", variableName(i), i, variableName(i)));
+        String code = compile(source.toString(), new CompilationContext());
+        assertTrue(code.startsWith("0 sa 0 k la p P 1 sb 0 k lb p P"));
+        assertTrue(code.contains("25 sz 0 k lz p P 26 sa 0 k la p P 27 sa 0 k la p P"));
+        assertTrue(code.endsWith("999 sa 0 k la p P"));
+        assertFalse(code.contains(":"));
+    }
+
+    /**
+     * Compiles a program of 30 variables all alive at once: the four declared
+     * last are spilled to the array of register {@code a}, in both pipelines.
+     * 
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testSpill() throws SyntacticException, IOException {
+        int variables = 30;
+        var source = new StringBuilder();
+        for (int i = 0; i < variables; i++)
+            source.append("float ").append(variableName(i)).append(";\n");
+        for (int i = 0; i < variables; i++)
+            source.append(String.format("%s = %d.5;%n", variableName(i), i));
+        for (int i = 0; i < variables; i++)
+            source.append(String.format("print %s;%n", variableName(i)));
+        String code = compile(source.toString(), new CompilationContext());
+        assertTrue(code.contains("25.5 sz 0 k 26.5 0 :a 0 k 27.5 1 :a 0 k 28.5 2 :a 0 k 29.5 3 :a 0 k la p P"));
+        assertTrue(code.endsWith("lz p P 0 ;a p P 1 ;a p P 2 ;a p P 3 ;a p P"));
+
+        var writer = new StringWriter();
+        assertTrue(new StreamingCompiler(new Scanner(new StringReader(source.toString())), writer).compile());
+        assertEquals(code, writer.toString());
+    }
+
+    /**
+     * Compiles a program whose variable {@code x} is spilled after being given
+     * its register, when the 27th variable is assigned: its slot must not be
+     * the one of a variable spilled earlier and still alive at its start, even
+     * if that one dies before.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while running code.
+     */
+    @Test
+    public void testSpillAfterAssignment() throws SyntacticException, IOException {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (int i = 0; i < 26; i++)
+            first.add((char) ('a' + i) + "f");
+        for (int i = 0; i < 25; i++)
+            second.add((char) ('a' + i) + "g");
+        var source = new StringBuilder();
+        for (String name : first)
+            source.append("int ").append(name).append(";\n");
+        source.append("int x;\nint v;\nint r;\n");
+        for (String name : second)
+            source.append("int ").append(name).append(";\n");
+        for (int i = 0; i < first.size(); i++)
+            source.append(String.format("%s = %d;%n", first.get(i), i));
+        source.append("x = 100;\nprint af;\nv = 7;\n");
+        for (String name : first.subList(1, first.size()))
+            source.append("print ").append(name).append(";\n");
+        source.append("print x;\n");
+        for (int i = 0; i < second.size(); i++)
+            source.append(String.format("%s = %d;%n", second.get(i), 50 + i));
+        source.append("r = 1;\nprint r;\n");
+        for (String name : second)
+            source.append("print ").append(name).append(";\n");
+        source.append("print v;\n");
+        String code = compile(source.toString(), new CompilationContext());
+        assertTrue(code.contains(":a"));
+
+        var writer = new StringWriter();
+        assertTrue(new StreamingCompiler(new Scanner(new StringReader(source.toString())), writer).compile());
+        assertEquals(run(writer.toString()), run(code));
+    }
+
+    /**
+     * Generates the code of a program many chunks long to a writer and to a
+     * channel: both receive the very code kept in memory.
+     * 
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testSinks() throws SyntacticException, IOException {
+        var source = new StringBuilder("int a;\nfloat b;\n");
+        for (int i = 0; i < 5000; i++)
+            source.append(String.format("a = a + %d;%nb = b / 2.5 + a;%nprint b;%n", i));
+        String code = compile(source.toString(), new CompilationContext());
+        assertTrue(code.length() > 100000);
+
+        var writer = new StringWriter();
+        var writerSink = CodeSink.of(writer);
+        var bytes = new ByteArrayOutputStream();
+        var channelSink = CodeSink.of(Channels.newChannel(bytes));
+        for (CodeSink sink : List.of(writerSink, channelSink)) {
+            NodeProgram nP = new Parser(new Scanner(new StringReader(source.toString()))).parse();
+            var context = new CompilationContext();
+            nP.accept(new TypeCheckingVisitor(context));
+            var codeGenVisitor = new CodeGeneratorVisitor(context, sink);
+            nP.accept(codeGenVisitor);
+            codeGenVisitor.flush();
+            assertEquals(code.length(), sink.getLength());
+        }
+        assertEquals(code, writer.toString());
+        assertEquals(code, bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Checks that the operand needing more stack is evaluated first, swapped
+     * back with {@code r} for {@code -}, unless the other one sets the
+     * precision, and the maximum stack depth reported for every statement.
+     * 
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testOperandOrder() throws SyntacticException {
+        String source = "int a;\nint b;\nint c;\nfloat f;\na = 7;\nb = 2;\nc = 3;\nf = 2.5;\n"
+                + "a = a - b * c;\nb = a / 2 + b * c;\nf = 1.5 * a - f * a;\nprint a;";
+        var context = new CompilationContext();
+        assertEquals("7 sa 0 k 2 sb 0 k 3 sc 0 k 2.5 sd 0 k lb lc * la r - sa 0 k la 2 / lb lc * + sb 0 k "
+                + "1.5 la 5 k * ld la 5 k * - sd 0 k la p P", compile(source, context));
+        assertEquals(List.of(1, 1, 1, 1, 2, 3, 4, 1), context.getReport().getStackDepths());
+        assertEquals(4, context.getReport().getMaxStackDepth());
+    }
 }
@@ -0,0 +1,106 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.Fixtures.compile;
+import static test.Fixtures.parse;
+import static test.Fixtures.randomProgram;
+import static test.Fixtures.run;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import visitor.CodeGeneratorVisitor;
+import visitor.CommonSubexpressionVisitor;
+
+public class TestCommonSubexpressions {
+
+    /**
+     * Tests that an operation repeated as the right operand of its first
+     * occurrence is duplicated, and that one repeated in later statements is
+     * saved to a temporary variable, declared before its statement.
+     *
+     * @throws Exception If a program cannot be parsed or run.
+     */
+    @Test
+    public void testReuse() throws Exception {
+        var context = new CompilationContext();
+        assertEquals("2 sa 0 k 3 sb 0 k la lb * d + sc 0 k lc p P",
+                eliminate("int a;\nint b;\nint c;\na = 2;\nb = 3;\nc = a * b + a * b;\nprint c;", context));
+        assertEquals(1, context.getReport().getSubexpressionsEliminated());
+
+        context = new CompilationContext();
+        String source = "int a;\nint b;\nint c;\na = 2;\nb = 3;\nc = a * b + 1;\nprint c;\nc = a * b - c;\nprint c;\n"
+                + "c = a * b;\nprint c;";
+        NodeProgram nP = parse(source, context);
+        nP.accept(new CommonSubexpressionVisitor(context));
+        assertEquals("[Program:[Decl:INT,[Id:a]][Decl:INT,[Id:b]][Decl:INT,[Id:c]][Assign:[Id:a],[Const:INT,2]]"
+                + "[Assign:[Id:b],[Const:INT,3]][Decl:INT,[Id:$0]]"
+                + "[Assign:[Id:c],[BinOp:[BinOp:[Deref:[Id:a]],TIMES,[Deref:[Id:b]]],PLUS,[Const:INT,1]]][Print:[Id:c]]"
+                + "[Assign:[Id:c],[BinOp:[Deref:[Id:$0]],MINUS,[Deref:[Id:c]]]][Print:[Id:c]]"
+                + "[Assign:[Id:c],[Deref:[Id:$0]]][Print:[Id:c]]]", nP.toString());
+        var codeGenVisitor = new CodeGeneratorVisitor(context);
+        nP.accept(codeGenVisitor);
+        assertEquals("2 sa 0 k 3 sb 0 k la lb * d sd 1 + sc 0 k lc p P ld lc - sc 0 k lc p P ld sc 0 k lc p P",
+                codeGenVisitor.getCode());
+        assertEquals(2, context.getReport().getSubexpressionsEliminated());
+        assertEquals(run(compile(source, new CompilationContext())), run(codeGenVisitor.getCode()));
+    }
+
+    /**
+     * Tests that an operation is not reused once one of its variables is
+     * assigned again.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testInterveningStore() throws SyntacticException {
+        var context = new CompilationContext();
+        assertEquals("2 sa 0 k 3 sb 0 k la lb * sc 0 k 1 sa 0 k la lb * sc 0 k lc p P",
+                eliminate("int a;\nint b;\nint c;\na = 2;\nb = 3;\nc = a * b;\na = 1;\nc = a * b;\nprint c;", context));
+        assertEquals(0, context.getReport().getSubexpressionsEliminated());
+    }
+
+    /**
+     * Tests that an operation containing a conversion is read through a
+     * conversion, so that the operations after it still run with precision 5.
+     *
+     * @throws Exception If the program cannot be parsed or run.
+     */
+    @Test
+    public void testConversions() throws Exception {
+        String source = "int i;\nfloat f;\nfloat g;\ni = 7;\nf = 1.5 * i;\ng = 1.5 * i / 4;\nprint f;\nprint g;";
+        String code = eliminate(source, new CompilationContext());
+        assertEquals("7 sa 0 k 1.5 la 5 k * d sd sb 0 k ld 5 k 4 5 k / sc 0 k lb p P lc p P", code);
+        assertEquals(run(compile(source, new CompilationContext())), run(code));
+    }
+
+    /**
+     * Tests that random programs print the same values with and without the
+     * elimination.
+     *
+     * @throws Exception If a program cannot be parsed or run.
+     */
+    @Test
+    public void testSameOutput() throws Exception {
+        Random random = new Random(23);
+        int reused = 0;
+        for (int p = 0; p < 300; p++) {
+            String source = randomProgram(random, 6, 20);
+            var context = new CompilationContext();
+            String code = compile(source, new CompilationContext());
+            String eliminated = eliminate(source, context);
+            assertEquals(source, run(code), run(eliminated));
+            reused += context.getReport().getSubexpressionsEliminated();
+        }
+        assertTrue(reused > 0);
+    }
+
+    private static String eliminate(String source, CompilationContext context) throws SyntacticException {
+        return compile(source, context, new CommonSubexpressionVisitor(context));
+    }
+}
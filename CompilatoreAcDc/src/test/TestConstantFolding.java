@@ -0,0 +1,103 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static test.Fixtures.compile;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import compiler.CompilationContext;
+import compiler.StreamingCompiler;
+import exception.SyntacticException;
+import scanner.Scanner;
+import visitor.ConstantFoldingVisitor;
+
+public class TestConstantFolding {
+
+    /**
+     * Tests that integer operations on constants are computed at compile time,
+     * truncating divisions, and that eliminated instructions are counted.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testFoldInt() throws SyntacticException {
+        var context = new CompilationContext();
+        assertEquals("11 sa 0 k 3 sa 0 k _4 sa 0 k",
+                fold("int a;\na = 3 + 4 * 2;\na = 7 / 2;\na = 1 - 5;", context));
+        assertEquals(8, context.getReport().getInstructionsEliminated());
+    }
+
+    /**
+     * <p>
+     * Tests that folding follows the precision set by conversions.
+     * </p>
+     *
+     * <p>
+     * A conversion sets 5 decimals for the rest of the statement, so
+     * {@code 3 / 2} after {@code 1.5 * 2} is computed with 5 decimals, while a
+     * conversion not swallowed by folding is kept for the operations after it.
+     * </p>
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testFoldFloat() throws SyntacticException {
+        var context = new CompilationContext();
+        assertEquals("0.16666 sa 0 k", fold("float b;\nb = 1.0 / 6;", context));
+        assertEquals(4, context.getReport().getInstructionsEliminated());
+        assertEquals("4.50000 sa 0 k", fold("float b;\nb = 1.5 * 2 + 3 / 2;"));
+        assertEquals("3.0 5 k lb 3 / + sa 0 k", fold("float c;\nfloat b;\nc = 1.5 * 2 + b / 3;"));
+        assertEquals("1.50000 sa 0 k", fold("float b;\nb = 1.5 / 1;"));
+    }
+
+    /**
+     * Tests the removal of identities, which keeps the conversion they carried.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testIdentities() throws SyntacticException {
+        assertEquals("lb sa 0 k lb sa 0 k lb sa 0 k", fold("int a;\nint x;\na = x * 1 + 0;\na = 0 + 1 * x;\na = x / 1 - 0;"));
+        assertEquals("la sa 0 k la 1 5 k / sa 0 k", fold("float f;\nf = f + 0;\nf = f / 1;"));
+        assertEquals("lb 5 k la * sa 0 k", fold("float f;\nfloat g;\nf = g * 1 * f;"));
+        assertEquals("la 0.0 + sa 0 k", fold("float f;\nf = f + 0.0;"));
+    }
+
+    /**
+     * Tests that divisions by zero are left to dc.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testDivisionByZero() throws SyntacticException {
+        assertEquals("1 0 / sa 0 k", fold("int a;\na = 1 / 0;"));
+    }
+
+    /**
+     * Tests that the streaming compiler folds the same way.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     * @throws IOException        If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testStreaming() throws SyntacticException, IOException {
+        String source = "float b;\nfloat c;\nc = 1.5 * 2 + b / 3;\nb = 1.5 * 2 + 3 / 2;";
+        var writer = new StringWriter();
+        var compiler = new StreamingCompiler(new Scanner(new StringReader(source)), writer);
+        compiler.compile();
+        assertEquals(fold(source), writer.toString());
+        assertEquals(14, compiler.getContext().getReport().getInstructionsEliminated());
+    }
+
+    private static String fold(String source) throws SyntacticException {
+        return fold(source, new CompilationContext());
+    }
+
+    private static String fold(String source, CompilationContext context) throws SyntacticException {
+        return compile(source, context, new ConstantFoldingVisitor(context));
+    }
+}
@@ -0,0 +1,155 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import dc.Arithmetic;
+import dc.DcMachine;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.TypeCheckingVisitor;
+
+public class TestDcMachine {
+
+    private ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private DcMachine machine = new DcMachine(out);
+
+    private String run(String code) throws IOException {
+        out.reset();
+        machine.execute(code);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Runs the code generated for the general test program: a float divided
+     * with 5 decimals, printed with no leading zero, and an int truncated to 0.
+     *
+     * @throws Exception If the program cannot be compiled or executed.
+     */
+    @Test
+    public void testGeneratedCode() throws Exception {
+        NodeProgram nP = new Parser(new Scanner("src/test/data/testTypeGeneral2.txt")).parse();
+        var context = new CompilationContext();
+        nP.accept(new TypeCheckingVisitor(context));
+        var codeGenVisitor = new CodeGeneratorVisitor(context);
+        nP.accept(codeGenVisitor);
+        assertEquals(".16666\n0\n", run(codeGenVisitor.getCode()));
+        assertFalse(machine.hasErrors());
+    }
+
+    /**
+     * Tests the scale of results and the truncation of products and quotients.
+     *
+     * @throws IOException If the output cannot be written.
+     */
+    @Test
+    public void testArithmetic() throws IOException {
+        assertEquals("1.75\n", run("1.5 .25 + p sa"));
+        assertEquals("-1.25\n", run("_1.5 .25 + p sa"));
+        assertEquals("2.25\n", run("1.50 1.5 * p sa"));
+        assertEquals("2\n", run("7 3 / p sa"));
+        assertEquals("2.33333\n", run("5 k 7 3 / p sa 0 k"));
+        assertEquals("-2.33333\n", run("5 k _7 3 / p sa 0 k"));
+        assertEquals("1.80\n", run("5 k 1.5 1.2 * p sa 0 k"));
+        assertEquals("0\n", run("1.5 1.5 - p sa"));
+        assertEquals("-.5\n", run("_.5 p sa"));
+    }
+
+    /**
+     * Tests registers, arrays and the bytes printed by {@code P}.
+     *
+     * @throws IOException If the output cannot be written.
+     */
+    @Test
+    public void testRegistersAndArrays() throws IOException {
+        assertEquals("65\nA", run("65 sa la p P"));
+        assertEquals("3.5\n0\n", run("3.5 7 :z 7 ;z p sa 8 ;z p sa"));
+        assertEquals("2\n3\n", run("2 3 r p sa p sa"));
+        assertEquals("2\n", run("4 6 r - p sa"));
+        assertEquals("", run("lq"));
+        assertTrue(machine.getLoggerString().contains("register 'q' (0161) is empty"));
+        machine.reset();
+        assertEquals("0\n", run("1 0 / p"));
+        assertEquals("dc: divide by zero" + System.lineSeparator(), machine.getLoggerString());
+    }
+
+    /**
+     * Tests values beyond {@code long}, and the backslash breaking printed lines
+     * at 70 characters.
+     *
+     * @throws IOException If the output cannot be written.
+     */
+    @Test
+    public void testBigNumbers() throws IOException {
+        BigInteger expected = BigInteger.valueOf(999999999999999999L).pow(5);
+        String printed = run("999999999999999999 sa la la * la * la * la * p P");
+        String digits = expected.toString();
+        var wrapped = new StringBuilder();
+        for (int i = 0; i < digits.length(); i += 69)
+            wrapped.append(i > 0 ? "\\\n" : "").append(digits, i, Math.min(digits.length(), i + 69));
+        assertTrue(printed.startsWith(wrapped.toString() + "\n"));
+    }
+
+    /**
+     * Checks the scaled {@code long} arithmetic against {@link BigDecimal} on
+     * random operands, with and without decimals.
+     *
+     * @throws IOException If the output cannot be written.
+     */
+    @Test
+    public void testFastPath() throws IOException {
+        Random random = new Random(7);
+        String[] ops = { "+", "-", "*", "/" };
+        for (int i = 0; i < 10000; i++) {
+            BigDecimal x = BigDecimal.valueOf(random.nextLong() >> random.nextInt(63), random.nextInt(8));
+            BigDecimal y = BigDecimal.valueOf(random.nextLong() >> random.nextInt(63), random.nextInt(8));
+            int k = random.nextInt(7);
+            String op = ops[random.nextInt(ops.length)];
+            if (op.equals("/") && y.signum() == 0)
+                continue;
+            BigDecimal result;
+            switch (op) {
+                case "+":
+                    result = Arithmetic.add(x, y);
+                    break;
+                case "-":
+                    result = Arithmetic.subtract(x, y);
+                    break;
+                case "*":
+                    result = Arithmetic.multiply(x, y, k);
+                    break;
+                default:
+                    result = Arithmetic.divide(x, y, k);
+                    break;
+            }
+            String code = String.format("%d k %s %s %s p sa 0 k", k, literal(x), literal(y), op);
+            assertEquals(code, print(result), run(code).replace("\\\n", ""));
+        }
+    }
+
+    private static String literal(BigDecimal value) {
+        return value.toPlainString().replace('-', '_');
+    }
+
+    private static String print(BigDecimal value) {
+        if (value.signum() == 0)
+            return "0\n";
+        String plain = value.abs().toPlainString();
+        if (plain.startsWith("0."))
+            plain = plain.substring(1);
+        return (value.signum() < 0 ? "-" : "") + plain + "\n";
+    }
+}
@@ -0,0 +1,76 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.Fixtures.compile;
+import static test.Fixtures.randomProgram;
+import static test.Fixtures.run;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import visitor.DeadCodeEliminationVisitor;
+
+public class TestDeadCodeElimination {
+
+    /**
+     * Tests that assignments never printed are removed, with the assignments
+     * only they read, and that the declarations of the variables left unused
+     * are removed and get no register.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testDeadStores() throws SyntacticException {
+        var context = new CompilationContext();
+        String source = "int b;\nint c;\nint a;\nfloat f;\na = 1;\nb = a + 2;\na = 3;\nc = b;\nprint a;\nf = 2.5;";
+        assertEquals("3 sa 0 k la p P", eliminate(source, context));
+        assertEquals(4, context.getReport().getStatementsEliminated());
+        assertEquals(3, context.getReport().getDeclarationsEliminated());
+        assertEquals("0 instructions eliminated, 4 dead assignments and 3 unused declarations removed, "
+                + "0 common subexpressions reused, maximum stack depth 1",
+                context.getReport().toString());
+    }
+
+    /**
+     * Tests that an assignment read by a later live one is kept, while the
+     * last assignment of a variable is removed if it is not printed.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testLiveThroughReads() throws SyntacticException {
+        var context = new CompilationContext();
+        assertEquals("1 sa 0 k la 1 + sa 0 k la p P",
+                eliminate("int a;\na = 1;\na = a + 1;\nprint a;\na = a * 2;", context));
+        assertEquals(1, context.getReport().getStatementsEliminated());
+        assertEquals(0, context.getReport().getDeclarationsEliminated());
+        assertEquals("", eliminate("int a;\nfloat b;\na = 1;\nb = 2.0 / a;", new CompilationContext()));
+        assertEquals("la p P", eliminate("int a;\nprint a;", new CompilationContext()));
+    }
+
+    /**
+     * Tests that random programs print the same values with and without the
+     * elimination.
+     *
+     * @throws Exception If a program cannot be parsed or run.
+     */
+    @Test
+    public void testSameOutput() throws Exception {
+        Random random = new Random(22);
+        for (int p = 0; p < 300; p++) {
+            String source = randomProgram(random, 4, 30);
+            String code = compile(source, new CompilationContext());
+            String eliminated = eliminate(source, new CompilationContext());
+            assertEquals(source, run(code), run(eliminated));
+            assertTrue(eliminated.length() <= code.length());
+        }
+    }
+
+    private static String eliminate(String source, CompilationContext context) throws SyntacticException {
+        return compile(source, context, new DeadCodeEliminationVisitor(context));
+    }
+}
@@ -0,0 +1,119 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.Fixtures.compile;
+import static test.Fixtures.variableName;
+
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.FlatAst;
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import parser.FlatParser;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.FlatCodeGenerator;
+import visitor.FlatTypeChecker;
+import visitor.TypeCheckingVisitor;
+
+public class TestFlatAst {
+
+    private static final String[] FILES = { "testTypeCheckCorrect.txt", "testTypeCheckCorrect2.txt",
+            "testTypeGeneral.txt", "testTypeGeneral2.txt", "testRepeatedDeclarations.txt", "testIdNotDeclared.txt",
+            "errorAssignConvert.txt", "errorOp.txt", "testAssociativityAllSigns.txt" };
+
+    /**
+     * Tests that the flat AST, once checked, has the same nodes, types and
+     * conversions as the node objects, and that it reports the same errors.
+     *
+     * @throws FileNotFoundException If a data file is missing.
+     * @throws SyntacticException    If a program is syntactically incorrect.
+     */
+    @Test
+    public void testSameAsNodes() throws FileNotFoundException, SyntacticException {
+        for (String file : FILES) {
+            NodeProgram nP = new Parser(new Scanner("src/test/data/" + file)).parse();
+            FlatAst ast = new FlatParser(new Scanner("src/test/data/" + file)).parse();
+            assertEquals(file, nP.toString(), ast.toNodeProgram().toString());
+
+            var visitor = new TypeCheckingVisitor();
+            nP.accept(visitor);
+            var checker = new FlatTypeChecker(new CompilationContext());
+            assertEquals(file, !visitor.hasErrors(), checker.check(ast));
+            assertEquals(file, visitor.getLoggerString(), checker.getLoggerString());
+            assertEquals(file, nP.toString(), ast.toNodeProgram().toString());
+        }
+    }
+
+    /**
+     * Tests that constants and identifiers are stored once.
+     *
+     * @throws SyntacticException If the program is syntactically incorrect.
+     */
+    @Test
+    public void testInterning() throws SyntacticException {
+        FlatAst ast = new FlatParser(new Scanner(new StringReader("int a;\na = a + 1 + a * 1;\nprint a;"))).parse();
+        assertEquals(10, ast.size());
+        assertEquals(3, ast.getStatementCount());
+        assertEquals(1, ast.getNameCount());
+        assertEquals(ast.getNameIndex(ast.getStatement(0)), ast.getNameIndex(ast.getStatement(2)));
+    }
+
+    /**
+     * Tests that the generated code is the same as the one generated from the
+     * node objects, with spilled variables too. Variables with an even index
+     * are float, and a term led by an int has only int operands.
+     *
+     * @throws SyntacticException If a program is syntactically incorrect.
+     */
+    @Test
+    public void testSameCode() throws SyntacticException {
+        Random random = new Random(3);
+        for (int p = 0; p < 50; p++) {
+            var source = new StringBuilder();
+            int variables = 1 + random.nextInt(40);
+            for (int v = 0; v < variables; v++)
+                source.append(v % 2 == 0 ? "float" : "int").append(' ').append(variableName(v)).append(";\n");
+            for (int s = 0; s < 60; s++) {
+                int target = random.nextInt(variables);
+                if (random.nextInt(5) == 0) {
+                    source.append("print ").append(variableName(target)).append(";\n");
+                    continue;
+                }
+                source.append(variableName(target)).append(" = ").append(target % 2 == 0 ? "1.5" : "2");
+                boolean intTerm = target % 2 != 0;
+                for (int d = random.nextInt(4); d >= 0; d--) {
+                    char op = " +-*/".charAt(1 + random.nextInt(4));
+                    int operand;
+                    if (target % 2 == 0 && (op == '+' || op == '-')) {
+                        operand = random.nextInt(variables);
+                        intTerm = operand % 2 != 0;
+                    } else if (intTerm)
+                        operand = 1 + 2 * random.nextInt(variables / 2 + 1);
+                    else
+                        operand = 2 * random.nextInt((variables + 1) / 2);
+                    source.append(' ').append(op).append(' ').append(operand < variables ? variableName(operand) : "3");
+                }
+                source.append(";\n");
+            }
+            assertSameCode(source.toString());
+        }
+    }
+
+    private static void assertSameCode(String source) throws SyntacticException {
+        String code = compile(source, new CompilationContext());
+
+        FlatAst ast = new FlatParser(new Scanner(new StringReader(source))).parse();
+        var flatContext = new CompilationContext();
+        assertTrue(new FlatTypeChecker(flatContext).check(ast));
+        var generator = new FlatCodeGenerator(flatContext);
+        generator.generate(ast);
+        assertEquals(source, code, generator.getCode());
+    }
+}
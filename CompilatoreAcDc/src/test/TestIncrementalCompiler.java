@@ -0,0 +1,145 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import compiler.IncrementalCompiler;
+import compiler.StreamingCompiler;
+import exception.SyntacticException;
+import scanner.Scanner;
+
+public class TestIncrementalCompiler {
+
+    private static final String[] SNIPPETS = { "a", "b", "1", "2.5", " + b", " * a", ";", "\n", "=", "int c;",
+            "float b;", "print a;", "a = a - 1;", " ", "#", "" };
+
+    /**
+     * Tests that after every random edit the program has the code, type errors
+     * and syntax errors of a whole compilation of the edited source.
+     *
+     * @throws IOException If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testSameAsWholeCompilation() throws IOException {
+        Random random = new Random(17);
+        for (int p = 0; p < 20; p++) {
+            String source = "int a;\nfloat b;\na = 1;\nb = a + 2.5;\nprint b;\na = a * 3;\nprint a;\n";
+            var compiler = new IncrementalCompiler(source);
+            assertSame(source, compiler);
+            for (int e = 0; e < 100; e++) {
+                int offset = random.nextInt(compiler.getSource().length() + 1);
+                int length = random.nextInt(Math.min(4, compiler.getSource().length() - offset) + 1);
+                compiler.edit(offset, length, SNIPPETS[random.nextInt(SNIPPETS.length)]);
+                assertSame(compiler.getSource(), compiler);
+            }
+        }
+    }
+
+    /**
+     * Tests that editing a statement of a large program recompiles only that
+     * statement, and that changing a declaration recompiles the segments from
+     * it on.
+     *
+     * @throws IOException If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testEditIsLocal() throws IOException {
+        var source = new StringBuilder("int a;\nfloat b;\n");
+        for (int i = 0; i < 50000; i++)
+            source.append("a = a + ").append(i).append(";\nb = b / 2.5 + a;\n");
+        source.append("print b;\n");
+        var compiler = new IncrementalCompiler(source.toString());
+        assertFalse(compiler.hasErrors());
+
+        int offset = compiler.getSource().indexOf("a = a + 4000;");
+        compiler.edit(offset + 6, 1, "-");
+        assertEquals(1, compiler.getRecompiled());
+        compiler.edit(offset, 0, "print a;\n");
+        assertEquals(2, compiler.getRecompiled());
+        compiler.edit(offset + 6, 1, "b");
+        assertEquals(1, compiler.getRecompiled());
+        compiler.edit(offset + 4, 1, "");
+        assertEquals(1, compiler.getRecompiled());
+        assertTrue(compiler.hasErrors());
+        assertSame(compiler.getSource(), compiler);
+        compiler.edit(offset + 4, 0, "t");
+        assertFalse(compiler.hasErrors());
+        assertSame(compiler.getSource(), compiler);
+
+        int end = compiler.getSource().lastIndexOf("print b;");
+        compiler.edit(end, 0, "int c;\nc = 1;\n");
+        assertEquals(4, compiler.getRecompiled());
+        assertSame(compiler.getSource(), compiler);
+        compiler.edit(end, 3, "float");
+        assertEquals(4, compiler.getRecompiled());
+        assertSame(compiler.getSource(), compiler);
+
+        compiler.edit(0, 3, "float");
+        assertEquals(100007, compiler.getRecompiled());
+        assertSame(compiler.getSource(), compiler);
+    }
+
+    /**
+     * Tests that the segments an edit near the top of a program and the error
+     * queries after it visit do not grow with the number of segments after the
+     * edit: a program of 100,000 statements, whose errors are at its end, costs
+     * little more than one of 1,000.
+     *
+     * @throws IOException If an I/O error occurs while writing code.
+     */
+    @Test
+    public void testEditCostIsLocal() throws IOException {
+        int[] visited = new int[2];
+        int[] statements = { 1000, 100000 };
+        for (int p = 0; p < statements.length; p++) {
+            var source = new StringBuilder("int a;\nfloat b;\n");
+            for (int i = 0; i < statements[p]; i++)
+                source.append("a = a + ").append(i).append(";\n");
+            source.append("a = b;\nprint ;\n");
+            var compiler = new IncrementalCompiler(source.toString());
+            int offset = compiler.getSource().indexOf("a = a + 1;");
+            for (int e = 0; e < 10; e++) {
+                compiler.edit(offset + 8, 1, String.valueOf(e));
+                assertEquals(1, compiler.getRecompiled());
+                visited[p] = Math.max(visited[p], compiler.getVisited());
+                compiler.edit(offset++, 0, "\n");
+                assertTrue(compiler.hasErrors());
+                assertEquals(statements[p] + e + 5, compiler.getSyntacticException().getRow());
+                assertEquals(String.format("Assignment: Cannot assign 'FLOAT' type to 'INT' type.%n"),
+                        compiler.getLoggerString());
+                visited[p] = Math.max(visited[p], compiler.getVisited());
+            }
+            assertSame(compiler.getSource(), compiler);
+        }
+        assertTrue(visited[1] < 1000);
+        assertTrue(visited[1] < 3 * visited[0]);
+    }
+
+    private static void assertSame(String source, IncrementalCompiler compiler) throws IOException {
+        var writer = new StringWriter();
+        var streaming = new StreamingCompiler(new Scanner(new StringReader(source)), writer);
+        try {
+            streaming.compile();
+        } catch (SyntacticException e) {
+            SyntacticException exception = compiler.getSyntacticException();
+            assertEquals(source, e.getMessage(), exception == null ? null : exception.getMessage());
+            assertEquals(source, e.getCause() == null ? null : e.getCause().getMessage(),
+                    exception.getCause() == null ? null : exception.getCause().getMessage());
+            return;
+        }
+        assertNull(source, compiler.getSyntacticException());
+        assertEquals(source, streaming.getLoggerString(), compiler.getLoggerString());
+        assertEquals(source, streaming.hasErrors(), compiler.hasErrors());
+        if (!streaming.hasErrors())
+            assertEquals(source, writer.toString(), compiler.getCode());
+    }
+}
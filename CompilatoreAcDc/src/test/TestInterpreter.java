@@ -0,0 +1,117 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static test.Fixtures.parse;
+import static test.Fixtures.randomProgram;
+import static test.Fixtures.run;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import exception.SyntacticException;
+import parser.Parser;
+import scanner.Scanner;
+import visitor.CodeGeneratorVisitor;
+import visitor.ConstantFoldingVisitor;
+import visitor.InterpreterVisitor;
+import visitor.TypeCheckingVisitor;
+
+public class TestInterpreter {
+
+    /**
+     * Runs the general test program: a float divided with 5 decimals and an int
+     * truncated to 0.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testGeneral() throws Exception {
+        NodeProgram nP = new Parser(new Scanner("src/test/data/testTypeGeneral2.txt")).parse();
+        var context = new CompilationContext();
+        nP.accept(new TypeCheckingVisitor(context));
+        var out = new ByteArrayOutputStream();
+        var interpreter = new InterpreterVisitor(context, out);
+        nP.accept(interpreter);
+        assertEquals(".16666\n0\n", out.toString(StandardCharsets.ISO_8859_1));
+        assertEquals(BigDecimal.ZERO, interpreter.getValue("b"));
+        assertEquals(BigDecimal.ZERO, interpreter.getValue("a"));
+        assertFalse(interpreter.hasErrors());
+    }
+
+    /**
+     * Tests that a program can be run again from scratch, and that variables
+     * read before being assigned are reported.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testRunAgain() throws Exception {
+        var context = new CompilationContext();
+        var out = new ByteArrayOutputStream();
+        var interpreter = new InterpreterVisitor(context, out);
+        NodeProgram nP = parse("int a;\nint b;\nprint a;\nb = a + 65;\nprint b;\na = 1;", context);
+        nP.accept(interpreter);
+        nP.accept(interpreter);
+        assertEquals("0\n65\nA0\n65\nA", out.toString(StandardCharsets.ISO_8859_1));
+        assertTrue(interpreter.getLoggerString().contains("variable 'a' is not assigned"));
+        assertNull(interpreter.getValue("c"));
+    }
+
+    /**
+     * Tests that conversions set the precision for the rest of the statement,
+     * as the {@code 5 k} they are compiled to.
+     *
+     * @throws Exception If the program cannot be parsed.
+     */
+    @Test
+    public void testConversions() throws Exception {
+        assertSameAsDc("float b;\nint a;\na = 7;\nb = 1.5 * 2 + a / 3;\nprint b;\nb = 1.0 + a;\nb = b * 3 / 7;\nprint b;");
+        assertSameAsDc("int a;\na = 7 / 2 * 3;\nprint a;\na = 1 - 5 - 5;\nprint a;");
+        assertSameAsDc("float f;\nf = 1.5 / 1;\nprint f;\nf = f * 0.5 * 0.5 * 0.5;\nprint f;");
+    }
+
+    /**
+     * Compares the interpreter with the generated code on random programs, with
+     * values growing beyond {@code long}.
+     *
+     * @throws Exception If a program cannot be parsed.
+     */
+    @Test
+    public void testRandomPrograms() throws Exception {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++)
+            assertSameAsDc(randomProgram(random, 4, 20));
+    }
+
+    /**
+     * Checks that a program prints the same with the interpreter and with its dc
+     * code, both folded and not.
+     */
+    private static void assertSameAsDc(String source) throws SyntacticException, IOException {
+        var context = new CompilationContext();
+        NodeProgram nP = parse(source, context);
+        var out = new ByteArrayOutputStream();
+        var interpreter = new InterpreterVisitor(context, out);
+        nP.accept(interpreter);
+        assertFalse(interpreter.getLoggerString(), interpreter.hasErrors());
+        var codeGenVisitor = new CodeGeneratorVisitor(context);
+        nP.accept(codeGenVisitor);
+        String printed = run(codeGenVisitor.getCode());
+        assertEquals(source, printed, out.toString(StandardCharsets.ISO_8859_1));
+
+        nP.accept(new ConstantFoldingVisitor(context));
+        out.reset();
+        nP.accept(interpreter);
+        assertEquals(source, printed, out.toString(StandardCharsets.ISO_8859_1));
+    }
+}
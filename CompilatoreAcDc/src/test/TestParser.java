@@ -6,8 +6,14 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
@@ -36,7 +42,7 @@ public class TestParser {
     @Test
     public void testDecParse() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testDec.txt");
+                "src/test/data/testDec.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         NodeDecSt node = new NodeDecl(LangType.INT, "a");
@@ -62,7 +68,7 @@ public class TestParser {
     @Test
     public void testDSsDclStm() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testDSsDclStm.txt");
+                "src/test/data/testDSsDclStm.txt");
         Parser parser = new Parser(scanner);
         assertThrows(SyntacticException.class, parser::parse);
     }
@@ -89,7 +95,7 @@ public class TestParser {
     @Test
     public void testToString() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testDec.txt");
+                "src/test/data/testDec.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         assertEquals("[Program:[Decl:INT,[Id:a]][Decl:FLOAT,[Id:b]][Print:[Id:a]]]", program.toString());
@@ -105,7 +111,7 @@ public class TestParser {
     @Test
     public void testComplete() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\fileParserCorrect2.txt");
+                "src/test/data/fileParserCorrect2.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         program.toString();
@@ -118,7 +124,7 @@ public class TestParser {
     @Test
     public void testAssociativity() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testAssociativity.txt");
+                "src/test/data/testAssociativity.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         program.toString();
@@ -132,7 +138,7 @@ public class TestParser {
     @Test
     public void testAssociativityPlus() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testAssociativityPlus.txt");
+                "src/test/data/testAssociativityPlus.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         assertEquals("[Program:[Decl:INT,[Id:b]][Assign:[Id:b],[BinOp:[BinOp:[Const:INT,3],PLUS,[Const:INT,2]],PLUS,[Const:INT,7]]][Print:[Id:b]]]", program.toString());
@@ -146,10 +152,98 @@ public class TestParser {
     @Test
     public void testAssociativityAllSigns() throws FileNotFoundException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testAssociativityAllSigns.txt");
+                "src/test/data/testAssociativityAllSigns.txt");
         Parser parser = new Parser(scanner);
         NodeProgram program = assertDoesNotThrow(parser::parse);
         //Checks if associativity prints (3 - (2 * 4)) - 7
         assertEquals("[Program:[Decl:INT,[Id:b]][Assign:[Id:b],[BinOp:[BinOp:[Const:INT,3],MINUS,[BinOp:[Const:INT,2],TIMES,[Const:INT,4]]],MINUS,[Const:INT,7]]][Print:[Id:b]]]", program.toString());
     }
+
+    /**
+     * <p>Stress test on a generated program of 1,000,000 declarations and statements.</p>
+     * 
+     * <p>The program is parsed on a thread with a 512 KB stack, so that any
+     * recursion depth growing with the program length fails the test.</p>
+     * 
+     * @throws IOException If the temporary source file cannot be written.
+     * @throws InterruptedException If interrupted while waiting for the parser thread.
+     */
+    @Test
+    public void testMillionStatements() throws IOException, InterruptedException {
+        int statements = 1000000;
+        Path source = Files.createTempFile("testMillionStatements", ".txt");
+        try (var writer = Files.newBufferedWriter(source)) {
+            writer.write("int a;\n");
+            for (int i = 1; i < statements; i++)
+                writer.write(i % 2 == 0 ? "print a;\n" : "a = a + 1;\n");
+        }
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(new Parser(new Scanner(source.toString())).parse());
+            } catch (Throwable e) {
+                result.set(e);
+            }
+        }, "testMillionStatements", 512 * 1024);
+        thread.start();
+        thread.join();
+        Files.delete(source);
+        assertTrue(result.get() instanceof NodeProgram, () -> "Parser failed with " + result.get());
+        int count = 0;
+        for (NodeDecSt node : (NodeProgram) result.get())
+            count += node != null ? 1 : 0;
+        assertEquals(statements, count);
+    }
+
+    /**
+     * <p>
+     * Parses a program with many syntax errors and a lexical one, recovering
+     * from each of them.
+     * </p>
+     * 
+     * <p>
+     * Tests that every error is found with its row, that the lexical error does
+     * not cause another report, and that the statements without errors are
+     * kept in the program.
+     * </p>
+     * 
+     * @throws FileNotFoundException If the named file does not exist, is a directory rather than a regular file, or for some other reason cannot be opened for reading.
+     */
+    @Test
+    public void testRecovering() throws FileNotFoundException {
+        Parser parser = new Parser(new Scanner("src/test/data/testRecovering.txt"));
+        NodeProgram nP = parser.parseRecovering();
+        List<SyntacticException> errors = parser.getErrors();
+        assertEquals(4, errors.size());
+        assertEquals("Expected token 'SEMI' but was 'ASSIGN' at line 2", errors.get(0).getMessage());
+        assertEquals("Expected token 'INT', 'FLOAT' or 'ID' but was 'SEMI' at line 3", errors.get(1).getMessage());
+        assertEquals("Expected token 'SEMI' but was 'TYINT' at line 6", errors.get(2).getMessage());
+        assertEquals("Something went wrong during scan: Uncorrect decimals in row 7", errors.get(3).getMessage());
+        int[] rows = { 2, 3, 6, 7 };
+        for (int i = 0; i < rows.length; i++)
+            assertEquals(rows[i], errors.get(i).getRow());
+        assertEquals("[Program:[Decl:INT,[Id:a]][Assign:[Id:b],[BinOp:[Deref:[Id:a]],TIMES,[Const:FLOAT,2.5]]]"
+                + "[Decl:INT,[Id:c]][Print:[Id:a]]]", nP.toString());
+
+        SyntacticException e = assertThrows(SyntacticException.class,
+                new Parser(new Scanner("src/test/data/testRecovering.txt"))::parse);
+        assertEquals(errors.get(0).getMessage(), e.getMessage());
+    }
+
+    /**
+     * Tests that a statement holding only a lexical error is left out of the
+     * program, and that an error found scanning the first token of a statement
+     * leaves out that statement rather than the one before.
+     */
+    @Test
+    public void testRecoveringLexicalError() {
+        Parser parser = new Parser(
+                new Scanner(new StringReader("int a;\na = 5@\n;\nprint a;\n@\nprint a;\na = 1;")));
+        NodeProgram nP = parser.parseRecovering();
+        List<SyntacticException> errors = parser.getErrors();
+        assertEquals(2, errors.size());
+        assertEquals(2, errors.get(0).getRow());
+        assertEquals(5, errors.get(1).getRow());
+        assertEquals("[Program:[Decl:INT,[Id:a]][Print:[Id:a]][Assign:[Id:a],[Const:INT,1]]]", nP.toString());
+    }
 }
@@ -0,0 +1,98 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.Fixtures.parse;
+import static test.Fixtures.randomProgram;
+import static test.Fixtures.run;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import dc.CodeSink;
+import dc.PeepholeOptimizer;
+import exception.SyntacticException;
+import visitor.CodeGeneratorVisitor;
+import visitor.ConstantFoldingVisitor;
+
+public class TestPeepholeOptimizer {
+
+    /**
+     * Tests each rewrite on its own, then on the code of the general test
+     * program.
+     */
+    @Test
+    public void testRewrites() {
+        assertEquals("la sb", PeepholeOptimizer.optimize("la 0 k sb 0 k"));
+        assertEquals("la 2 5 k / sa", PeepholeOptimizer.optimize("la 5 k 2 / sa 0 k 5 k"));
+        assertEquals("la 2 5 k / la 0 k", PeepholeOptimizer.optimize("la 5 k 2 / 0 k la 5 k 0 k"));
+        assertEquals("la 3 * 2 /", PeepholeOptimizer.optimize("la 5 k 0 k 3 * 2 /"));
+        assertEquals("7 d sa p P", PeepholeOptimizer.optimize("7 sa 0 k la p P"));
+        assertEquals("7 d 2 :a p P", PeepholeOptimizer.optimize("7 2 :a 0 k 2 ;a p P"));
+        assertEquals("7 2 :a 3 ;a", PeepholeOptimizer.optimize("7 2 :a 3 ;a"));
+        assertEquals("lb", PeepholeOptimizer.optimize("la sa 2 ;a 2 :a lb"));
+        assertEquals("la sb", PeepholeOptimizer.optimize("la 0 + 0 - 1 * sb"));
+        assertEquals("0 la + 1.0 * 0.0 +", PeepholeOptimizer.optimize("0 la + 1.0 * 0.0 +"));
+        assertEquals("la lb k la 2 0 k /", PeepholeOptimizer.optimize("la lb k 0 k la 2 /"));
+        assertEquals("1.0 6 5 k / d sb p P 1 6 0 k / d sa p P la sb",
+                PeepholeOptimizer.optimize("1.0 6 5 k / sb 0 k lb p P 1 6 / sa 0 k la p P la sb 0 k"));
+        assertEquals("", PeepholeOptimizer.optimize(""));
+    }
+
+    /**
+     * Tests that the accesses to an array element are left as they are when
+     * the index is computed, as it may differ between the two accesses.
+     *
+     * @throws IOException If an I/O error occurs while running code.
+     */
+    @Test
+    public void testComputedIndex() throws IOException {
+        for (String code : List.of("5 3 d :a d ;a p", "1 2 :a 2 d ;a d :a 1 ;a p")) {
+            assertEquals(code, PeepholeOptimizer.optimize(code));
+            assertEquals(run(code), run(PeepholeOptimizer.optimize(code)));
+        }
+    }
+
+    /**
+     * Tests that random programs print the same values with and without the
+     * optimizer, and that optimizing while generating gives the same code as
+     * optimizing the whole code afterwards.
+     *
+     * @throws Exception If a program cannot be parsed or run.
+     */
+    @Test
+    public void testSameOutput() throws Exception {
+        Random random = new Random(21);
+        long eliminated = 0;
+        for (int p = 0; p < 300; p++) {
+            String source = randomProgram(random, 30, 40);
+            String code = compile(source, CodeSink.inMemory());
+            String optimized = PeepholeOptimizer.optimize(code);
+            assertEquals(source, run(code), run(optimized));
+
+            CodeSink.Memory memory = CodeSink.inMemory();
+            var optimizer = new PeepholeOptimizer(memory);
+            compile(source, optimizer);
+            assertEquals(source, optimized, memory.getCode());
+            assertEquals(source, code.split(" ").length - optimized.split(" ").length,
+                    optimizer.getInstructionsEliminated());
+            eliminated += optimizer.getInstructionsEliminated();
+        }
+        assertTrue(eliminated > 0);
+    }
+
+    private static String compile(String source, CodeSink sink) throws SyntacticException, IOException {
+        var context = new CompilationContext();
+        NodeProgram nP = parse(source, context);
+        nP.accept(new ConstantFoldingVisitor(context));
+        var codeGenVisitor = new CodeGeneratorVisitor(context, sink);
+        nP.accept(codeGenVisitor);
+        codeGenVisitor.flush();
+        return sink instanceof CodeSink.Memory ? ((CodeSink.Memory) sink).getCode() : null;
+    }
+}
@@ -6,6 +6,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.junit.Test;
 
@@ -18,7 +25,7 @@ public class TestScanner {
 
 	@Test
 	public void testScanId() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testIdKw.txt";
+		String path = "src/test/data/testIdKw.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertTrue(token.getType() == TokenType.TYINT);
@@ -54,7 +61,7 @@ public class TestScanner {
 
 	@Test
 	public void testScanNumber() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testNumbers.txt";
+		String path = "src/test/data/testNumbers.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertTrue(token.getType() == TokenType.INT);
@@ -88,7 +95,7 @@ public class TestScanner {
 
 	@Test
 	public void testScanEOF() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testEOF.txt";
+		String path = "src/test/data/testEOF.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertTrue(token.getType() == TokenType.EOF);
@@ -97,7 +104,7 @@ public class TestScanner {
 
 	@Test
 	public void testPeekToken() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testPeek.txt";
+		String path = "src/test/data/testPeek.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertEquals(token, scanner.peekToken());
@@ -111,7 +118,7 @@ public class TestScanner {
 
 	@Test
 	public void testOperators() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testOperators.txt";
+		String path = "src/test/data/testOperators.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertTrue(token.getType() == TokenType.PLUS);
@@ -135,7 +142,7 @@ public class TestScanner {
 
 	@Test
 	public void testAllTokens() throws IOException, LexicalException {
-		String path = "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testGeneral.txt";
+		String path = "src/test/data/testGeneral.txt";
 		Scanner scanner = new Scanner(path);
 		Token token = scanner.nextToken();
 		assertTrue(token.getType() == TokenType.TYINT);
@@ -200,4 +207,151 @@ public class TestScanner {
 		assertEquals(7, token.getRow());
 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Scans a generated multi-megabyte program, both through a reader and memory
+	 * mapped, and logs the scanner throughput.
+	 *
+	 * @throws IOException If the temporary source file cannot be written or read.
+	 * @throws LexicalException If code is lexically incorrect.
+	 */
+	@Test
+	public void testThroughput() throws IOException, LexicalException {
+		int statements = 200000;
+		Path source = Files.createTempFile("testThroughput", ".txt");
+		try (var writer = Files.newBufferedWriter(source)) {
+			for (int i = 0; i < statements; i++)
+				writer.write("intnome = intnome + 13.454 * 45668;\n");
+		}
+		scanThroughput("Reader", new Scanner(source.toString()), source, statements);
+		scanThroughput("Mapped", Scanner.map(source.toString()), source, statements);
+		Files.delete(source);
+	}
+
+	/**
+	 * Scans the program generated by {@link #testThroughput()} and logs the throughput.
+	 *
+	 * @param mode The scanner mode to be logged.
+	 * @param scanner The scanner reading the program.
+	 * @param source The program file.
+	 * @param statements The number of statements in the program.
+	 * @throws IOException If an I/O error occurs.
+	 * @throws LexicalException If code is lexically incorrect.
+	 */
+	private void scanThroughput(String mode, Scanner scanner, Path source, int statements)
+			throws IOException, LexicalException {
+		Logger logger = Logger.getLogger(this.getClass().getName());
+		long start = System.nanoTime();
+		int count = 0;
+		Token token = scanner.nextToken();
+		while (token.getType() != TokenType.EOF) {
+			if (token.getType() == TokenType.ID)
+				assertEquals("intnome", token.getValue());
+			else if (token.getType() == TokenType.FLOAT)
+				assertEquals("13.454", token.getValue());
+			count++;
+			token = scanner.nextToken();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double megaBytes = Files.size(source) / (1024.0 * 1024.0);
+		assertEquals(statements * 8, count);
+		assertEquals(statements + 1, token.getRow());
+		logger.log(Level.INFO, String.format("%s: scanned %.2f MB in %.3f s: %.2f MB/s", mode, megaBytes, seconds,
+				megaBytes / seconds));
+	}
+
+	/**
+	 * Checks that a memory mapped scanner returns the same tokens and lexical
+	 * errors as a reader based one.
+	 *
+	 * @throws IOException If the temporary source file cannot be written or read.
+	 */
+	@Test
+	public void testMappedTokenStream() throws IOException {
+		Path source = Files.createTempFile("testMappedTokenStream", ".txt");
+		Files.writeString(source,
+				"\n\tint tempa;\n\ttempa = 5.;\nfloat tempb # ;\ntempb = tempa + 3.2 ? \n\t\t98.123456 print tempb;\r\n\n");
+		List<String> expected = scanAll(new Scanner(source.toString()));
+		List<String> actual = scanAll(Scanner.map(source.toString()));
+		Files.delete(source);
+		assertEquals(expected, actual);
+		assertEquals("<EOF,r:8>", actual.get(actual.size() - 1));
+	}
+
+	/**
+	 * Checks that the cursor moves over the same tokens as {@link Scanner#nextToken()},
+	 * for both reader based and memory mapped scanners, and that its lexeme is read
+	 * in place from the source buffer.
+	 *
+	 * @throws IOException If the temporary source file cannot be written or read.
+	 * @throws LexicalException If code is lexically incorrect.
+	 */
+	@Test
+	public void testCursor() throws IOException, LexicalException {
+		Path source = Files.createTempFile("testCursor", ".txt");
+		Files.writeString(source,
+				"\n\tint tempa;\n\ttempa = 5.;\nfloat tempb # ;\ntempb = tempa + 3.2 ? \n\t\t98.123456 print tempb;\r\n\n");
+		List<String> expected = scanAll(new Scanner(source.toString()));
+		assertEquals(expected, scanCursor(new Scanner(source.toString())));
+		assertEquals(expected, scanCursor(Scanner.map(source.toString())));
+		Files.delete(source);
+
+		Scanner scanner = new Scanner(new StringReader("print  abc = 13.454;"));
+		assertEquals(TokenType.PRINT, scanner.advance());
+		assertEquals(0, scanner.getLexemeLength());
+		assertEquals(TokenType.ID, scanner.advance());
+		assertEquals(7, scanner.getLexemeOffset());
+		assertEquals(3, scanner.getLexemeLength());
+		assertEquals('b', scanner.charAt(scanner.getLexemeOffset() + 1));
+		assertEquals(TokenType.ASSIGN, scanner.advance());
+		assertEquals(TokenType.FLOAT, scanner.advance());
+		assertEquals("13.454", scanner.getLexeme());
+		assertEquals(TokenType.SEMI, scanner.advance());
+		assertEquals(TokenType.EOF, scanner.advance());
+		assertEquals(TokenType.EOF, scanner.getType());
+		assertEquals(1, scanner.getRow());
+	}
+
+	/**
+	 * Moves the cursor over every token up to {@code EOF}, recording tokens as
+	 * {@link #scanAll(Scanner)} does.
+	 *
+	 * @param scanner The scanner to be drained.
+	 * @return The string representation of every token and lexical error.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private List<String> scanCursor(Scanner scanner) throws IOException {
+		List<String> tokens = new ArrayList<>();
+		while (tokens.isEmpty() || !tokens.get(tokens.size() - 1).startsWith("<EOF")) {
+			try {
+				TokenType type = scanner.advance();
+				if (scanner.getLexemeLength() > 0)
+					tokens.add(new Token(type, scanner.getRow(), scanner.getLexeme()).toString());
+				else
+					tokens.add(new Token(type, scanner.getRow()).toString());
+			} catch (LexicalException e) {
+				tokens.add(e.getMessage());
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Scans every token up to {@code EOF}, recording lexical errors by message.
+	 *
+	 * @param scanner The scanner to be drained.
+	 * @return The string representation of every token and lexical error.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private List<String> scanAll(Scanner scanner) throws IOException {
+		List<String> tokens = new ArrayList<>();
+		while (tokens.isEmpty() || !tokens.get(tokens.size() - 1).startsWith("<EOF")) {
+			try {
+				tokens.add(scanner.nextToken().toString());
+			} catch (LexicalException e) {
+				tokens.add(e.getMessage());
+			}
+		}
+		return tokens;
+	}
+}
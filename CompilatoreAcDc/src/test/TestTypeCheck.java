@@ -1,10 +1,12 @@
 package test;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.FileNotFoundException;
+import java.io.StringReader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -12,10 +14,10 @@ import org.junit.Test;
 
 import ast.NodeProgram;
 import ast.TypeDescriptor;
+import compiler.CompilationContext;
 import exception.SyntacticException;
 import parser.Parser;
 import scanner.Scanner;
-import symboltable.SymbolTable;
 import visitor.TypeCheckingVisitor;
 
 public class TestTypeCheck {
@@ -29,12 +31,12 @@ public class TestTypeCheck {
     @Test
     public void testRepeatedDeclarations() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testRepeatedDeclarations.txt");
+                "src/test/data/testRepeatedDeclarations.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertEquals(TypeDescriptor.ERROR, nP.getResType());
     }
@@ -47,12 +49,12 @@ public class TestTypeCheck {
     @Test
     public void testTypeCheckCorrect() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testTypeCheckCorrect.txt");
+                "src/test/data/testTypeCheckCorrect.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertEquals(TypeDescriptor.VOID, nP.getResType());
     }
@@ -65,12 +67,12 @@ public class TestTypeCheck {
     @Test
     public void testTypeCheckCorrect2() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testTypeCheckCorrect2.txt");
+                "src/test/data/testTypeCheckCorrect2.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertEquals(TypeDescriptor.VOID, nP.getResType());
     }
@@ -83,12 +85,12 @@ public class TestTypeCheck {
     @Test
     public void testIdNotDeclared() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testIdNotDeclared.txt");
+                "src/test/data/testIdNotDeclared.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertTrue(visitor.hasErrors());
     }
@@ -101,12 +103,12 @@ public class TestTypeCheck {
     @Test
     public void testGeneral() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testTypeGeneral.txt");
+                "src/test/data/testTypeGeneral.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertTrue(visitor.hasErrors());
     }
@@ -119,12 +121,12 @@ public class TestTypeCheck {
     @Test
     public void testGeneral2() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\testTypeGeneral2.txt");
+                "src/test/data/testTypeGeneral2.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertFalse(visitor.hasErrors());
     }
@@ -137,12 +139,12 @@ public class TestTypeCheck {
     @Test
     public void testErrorAssignConvert() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\errorAssignConvert.txt");
+                "src/test/data/errorAssignConvert.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertTrue(visitor.hasErrors());
     }
@@ -155,13 +157,41 @@ public class TestTypeCheck {
     @Test
     public void testErrorOp() throws FileNotFoundException, SyntacticException {
         Scanner scanner = new Scanner(
-                "C:\\Users\\Simone Gattini\\source\\repos\\UPO-Fondamenti-Linguaggi-Traduttori\\CompilatoreAcDc\\src\\test\\data\\errorOp.txt");
+                "src/test/data/errorOp.txt");
         Parser parser = new Parser(scanner);
         NodeProgram nP = parser.parse();
         var visitor = new TypeCheckingVisitor();
         nP.accept(visitor);
-        logger.log(Level.INFO, "{0}", SymbolTable.toStr());
+        logger.log(Level.INFO, "{0}", visitor.getContext().getSymbolTable().toStr());
         logger.log(Level.INFO,visitor.getLoggerString());
         assertTrue(visitor.hasErrors());
     }
+
+    /**
+     * Tests that identifiers are interned by the scanner, and resolved by id in
+     * a symbol table sharing its names, with the same outcome as a table
+     * resolving them by name.
+     * @throws SyntacticException Parser found a Syntactic exception.
+     */
+    @Test
+    public void testInternedNames() throws SyntacticException {
+        var source = new StringBuilder();
+        for (int v = 0; v < 500; v++)
+            source.append("int v").append((char) ('a' + v / 26 % 26)).append((char) ('a' + v % 26)).append(";\n");
+        source.append("print vzz;\nvab = vab + vac;\nprint vab;\n");
+        Scanner scanner = new Scanner(new StringReader(source.toString()));
+        NodeProgram nP = new Parser(scanner).parse();
+        assertEquals(501, scanner.getNames().size());
+        assertSame(scanner.getNames().getName(1), scanner.getNames().getName(scanner.getNames().indexOf("vab")));
+
+        var context = new CompilationContext(scanner.getNames());
+        var visitor = new TypeCheckingVisitor(context);
+        nP.accept(visitor);
+        var byName = new TypeCheckingVisitor();
+        new Parser(new Scanner(new StringReader(source.toString()))).parse().accept(byName);
+        assertEquals(byName.getLoggerString(), visitor.getLoggerString());
+        assertTrue(visitor.hasErrors());
+        assertEquals(1, context.getSymbolTable().lookup("vab").getSlot());
+        assertEquals(context.getSymbolTable().size(), byName.getContext().getSymbolTable().size());
+    }
 }
@@ -0,0 +1,497 @@
+package visitor;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.LangOper;
+import ast.LangType;
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import bytecode.ClassWriter;
+import bytecode.Code;
+import bytecode.Printer;
+import compiler.CompilationContext;
+import symboltable.Attributes;
+
+/**
+ * <p>
+ * Represents a visitor that compiles a type checked program to JVM bytecode,
+ * loaded as a hidden class implementing {@link Runnable}.
+ * </p>
+ *
+ * <p>
+ * {@code int} variables are {@code long} locals and {@code float} variables
+ * {@link BigDecimal} locals, computed with the {@link dc.Arithmetic} of dc. The
+ * precision set by a {@link NodeConvert} is known at compile time, so each
+ * operation is compiled with the {@code k} the dc code would have at that
+ * point: an {@code int} division after a conversion is computed in decimal, as
+ * dc does.
+ * </p>
+ *
+ * <p>
+ * Statements are split in methods small enough to be compiled by the JIT,
+ * each loading the variables it uses from fields into locals and storing back
+ * the ones it assigns. Every run starts with all variables set to {@code 0},
+ * and writes the printed output when done.
+ * </p>
+ *
+ * <p>
+ * Unlike dc, {@code int} values beyond {@code long} and divisions by zero make
+ * the program fail with an {@link ArithmeticException}.
+ * </p>
+ */
+public class BytecodeGeneratorVisitor implements IVisitor {
+
+    private static final String CLASS_NAME = "bytecode/AcProgram";
+    private static final String DECIMAL = "java/math/BigDecimal";
+    private static final String DECIMAL_DESCRIPTOR = "L" + DECIMAL + ";";
+    private static final String CONSTANTS_DESCRIPTOR = "[" + DECIMAL_DESCRIPTOR;
+    private static final String PRINTER_DESCRIPTOR = "L" + Printer.INTERNAL_NAME + ";";
+    private static final String ARITHMETIC = "dc/Arithmetic";
+    private static final String BINARY_DESCRIPTOR = "(" + DECIMAL_DESCRIPTOR + DECIMAL_DESCRIPTOR + ")"
+            + DECIMAL_DESCRIPTOR;
+    private static final String PRECISION_DESCRIPTOR = "(" + DECIMAL_DESCRIPTOR + DECIMAL_DESCRIPTOR + "I)"
+            + DECIMAL_DESCRIPTOR;
+    private static final int FLOAT_PRECISION = 5;
+
+    /**
+     * Size past which a method is closed, well below the 8000 bytes beyond which
+     * HotSpot does not compile a method.
+     */
+    private static final int CHUNK_LENGTH = 4096;
+    private static final int CONSTANTS_LOCAL = 1;
+    private static final int FIRST_VARIABLE_LOCAL = 2;
+
+    private CompilationContext context;
+    private ClassWriter classWriter;
+    private List<Attributes> variables = new ArrayList<>();
+    private List<BigDecimal> constants = new ArrayList<>();
+    private Map<String, Integer> constantIndexes = new HashMap<>();
+    private MethodHandle constructor;
+
+    /**
+     * Method being built and its locals: the local of each variable slot, or
+     * {@code -1} if not used yet.
+     */
+    private Code code;
+    private int chunks;
+    private int[] locals;
+    private Attributes[] definitions;
+    private int nextLocal;
+    private BitSet assigned = new BitSet();
+    private boolean usesConstants;
+
+    /**
+     * {@code true} if the expression last visited leaves a {@link BigDecimal},
+     * {@code false} if it leaves a {@code long}.
+     */
+    private boolean decimal;
+    private int precision;
+
+    /**
+     * Class constructor.
+     *
+     * @param context the compilation the visited program belongs to.
+     */
+    public BytecodeGeneratorVisitor(CompilationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns a new instance of the compiled program.
+     *
+     * @param out the stream receiving the printed output.
+     * @return the compiled program, writing its output to {@code out} at every
+     *         run.
+     * @throws IllegalStateException If no program has been visited.
+     */
+    public Runnable getProgram(OutputStream out) {
+        if (constructor == null)
+            throw new IllegalStateException("No program compiled");
+        try {
+            return (Runnable) constructor.invoke(constants.toArray(new BigDecimal[0]), new Printer(out));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * <p>
+     * Compiles the whole program and loads it.
+     * </p>
+     *
+     * <p>
+     * The statements are compiled to methods of at most about
+     * {@value #CHUNK_LENGTH} bytes, called in order by {@link Runnable#run()}.
+     * </p>
+     *
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        classWriter = new ClassWriter(CLASS_NAME, "java/lang/Object", "java/lang/Runnable");
+        int slots = context.getSymbolTable().size();
+        locals = new int[slots];
+        definitions = new Attributes[slots];
+        startChunk();
+        for (NodeDecSt nodeDecSt : node) {
+            nodeDecSt.accept(this);
+            if (code.length() >= CHUNK_LENGTH) {
+                endChunk();
+                startChunk();
+            }
+        }
+        endChunk();
+
+        classWriter.addField(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_FINAL, "constants", CONSTANTS_DESCRIPTOR);
+        classWriter.addField(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_FINAL, "printer", PRINTER_DESCRIPTOR);
+        for (Attributes variable : variables)
+            classWriter.addField(ClassWriter.ACC_PRIVATE, fieldOf(variable), descriptorOf(variable));
+        addConstructor();
+        addRun();
+        try {
+            Lookup lookup = classWriter.defineHiddenClass();
+            constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, BigDecimal[].class, Printer.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void addConstructor() {
+        var init = new Code(classWriter, 3);
+        init.loadReference(0);
+        init.invokeSpecial("java/lang/Object", "<init>", "()V");
+        init.loadReference(0);
+        init.loadReference(1);
+        init.putField(CLASS_NAME, "constants", CONSTANTS_DESCRIPTOR);
+        init.loadReference(0);
+        init.loadReference(2);
+        init.putField(CLASS_NAME, "printer", PRINTER_DESCRIPTOR);
+        init.returnVoid();
+        classWriter.addMethod(ClassWriter.ACC_PUBLIC, "<init>", "(" + CONSTANTS_DESCRIPTOR + PRINTER_DESCRIPTOR + ")V",
+                init);
+    }
+
+    /**
+     * Adds the {@code run} method, which sets all variables to {@code 0}, calls
+     * the compiled statements and writes the output.
+     */
+    private void addRun() {
+        var run = new Code(classWriter, 1);
+        for (Attributes variable : variables) {
+            run.loadReference(0);
+            if (isInt(variable))
+                run.pushLong(0);
+            else
+                run.getStatic(DECIMAL, "ZERO", DECIMAL_DESCRIPTOR);
+            run.putField(CLASS_NAME, fieldOf(variable), descriptorOf(variable));
+        }
+        for (int i = 0; i < chunks; i++) {
+            run.loadReference(0);
+            run.invokeSpecial(CLASS_NAME, "chunk" + i, "()V");
+        }
+        run.loadReference(0);
+        run.getField(CLASS_NAME, "printer", PRINTER_DESCRIPTOR);
+        run.invokeVirtual(Printer.INTERNAL_NAME, "flush", "()V");
+        run.returnVoid();
+        classWriter.addMethod(ClassWriter.ACC_PUBLIC, "run", "()V", run);
+    }
+
+    private void startChunk() {
+        code = new Code(classWriter, FIRST_VARIABLE_LOCAL);
+        Arrays.fill(locals, -1);
+        nextLocal = FIRST_VARIABLE_LOCAL;
+        assigned.clear();
+        usesConstants = false;
+    }
+
+    /**
+     * Adds the method of the statements compiled since the last one, loading
+     * the variables used from their fields first and storing the ones assigned
+     * last.
+     */
+    private void endChunk() {
+        if (code.length() == 0)
+            return;
+        var method = new Code(classWriter, FIRST_VARIABLE_LOCAL);
+        if (usesConstants) {
+            method.loadReference(0);
+            method.getField(CLASS_NAME, "constants", CONSTANTS_DESCRIPTOR);
+            method.storeReference(CONSTANTS_LOCAL);
+        }
+        for (int slot = 0; slot < locals.length; slot++) {
+            if (locals[slot] < 0)
+                continue;
+            method.loadReference(0);
+            method.getField(CLASS_NAME, fieldOf(definitions[slot]), descriptorOf(definitions[slot]));
+            if (isInt(definitions[slot]))
+                method.storeLong(locals[slot]);
+            else
+                method.storeReference(locals[slot]);
+        }
+        method.append(code);
+        for (int slot = assigned.nextSetBit(0); slot >= 0; slot = assigned.nextSetBit(slot + 1)) {
+            method.loadReference(0);
+            if (isInt(definitions[slot]))
+                method.loadLong(locals[slot]);
+            else
+                method.loadReference(locals[slot]);
+            method.putField(CLASS_NAME, fieldOf(definitions[slot]), descriptorOf(definitions[slot]));
+        }
+        method.returnVoid();
+        classWriter.addMethod(ClassWriter.ACC_PRIVATE, "chunk" + chunks++, "()V", method);
+    }
+
+    /**
+     * Returns the local of a variable in the method being built, giving it one
+     * the first time.
+     */
+    private int localOf(Attributes definition) {
+        int slot = definition.getSlot();
+        if (locals[slot] < 0) {
+            locals[slot] = nextLocal;
+            nextLocal += isInt(definition) ? 2 : 1;
+            definitions[slot] = definition;
+        }
+        return locals[slot];
+    }
+
+    private static boolean isInt(Attributes definition) {
+        return definition.getType() == LangType.INT;
+    }
+
+    private static String fieldOf(Attributes definition) {
+        return "v" + definition.getSlot();
+    }
+
+    private static String descriptorOf(Attributes definition) {
+        return isInt(definition) ? "J" : DECIMAL_DESCRIPTOR;
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     *
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Adds a field for the declared variable.
+     *
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        variables.add(node.getNodeId().getDefinition());
+    }
+
+    /**
+     * <p>
+     * Compiles the left deep chain of operations in a loop.
+     * </p>
+     *
+     * <p>
+     * Operations on two {@code long} values are computed on {@code long}, except
+     * divisions with decimals of precision; any other operation is computed on
+     * {@link BigDecimal}, converting its {@code long} operands.
+     * </p>
+     *
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            boolean leftDecimal = decimal;
+            binOp.getRightOp().accept(this);
+            appendOperator(binOp.getOp(), leftDecimal, decimal);
+        }
+    }
+
+    private void appendOperator(LangOper op, boolean leftDecimal, boolean rightDecimal) {
+        if (!leftDecimal && !rightDecimal && (op != LangOper.DIV || precision == 0)) {
+            switch (op) {
+                case PLUS:
+                    code.invokeStatic("java/lang/Math", "addExact", "(JJ)J");
+                    break;
+                case MINUS:
+                    code.invokeStatic("java/lang/Math", "subtractExact", "(JJ)J");
+                    break;
+                case TIMES:
+                    code.invokeStatic("java/lang/Math", "multiplyExact", "(JJ)J");
+                    break;
+                default:
+                    code.divideLong();
+                    break;
+            }
+            decimal = false;
+            return;
+        }
+        if (!rightDecimal)
+            appendToDecimal();
+        if (!leftDecimal) {
+            code.swapUnderLong();
+            appendToDecimal();
+            code.swap();
+        }
+        switch (op) {
+            case PLUS:
+                code.invokeStatic(ARITHMETIC, "add", BINARY_DESCRIPTOR);
+                break;
+            case MINUS:
+                code.invokeStatic(ARITHMETIC, "subtract", BINARY_DESCRIPTOR);
+                break;
+            case TIMES:
+                code.pushInt(precision);
+                code.invokeStatic(ARITHMETIC, "multiply", PRECISION_DESCRIPTOR);
+                break;
+            default:
+                code.pushInt(precision);
+                code.invokeStatic(ARITHMETIC, "divide", PRECISION_DESCRIPTOR);
+                break;
+        }
+        decimal = true;
+    }
+
+    private void appendToDecimal() {
+        code.invokeStatic(DECIMAL, "valueOf", "(J)" + DECIMAL_DESCRIPTOR);
+    }
+
+    /**
+     * Loads the variable from its local.
+     *
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        appendLoad(node.getId().getDefinition());
+    }
+
+    private void appendLoad(Attributes definition) {
+        if (isInt(definition))
+            code.loadLong(localOf(definition));
+        else
+            code.loadReference(localOf(definition));
+        decimal = !isInt(definition);
+    }
+
+    /**
+     * <p>
+     * Pushes the constant.
+     * </p>
+     *
+     * <p>
+     * Integer constants are {@code long} constants; constants with decimals are
+     * {@link BigDecimal} values passed to the constructor of the program.
+     * </p>
+     *
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        String literal = node.getValue();
+        if (literal.indexOf('.') < 0) {
+            try {
+                code.pushLong(Long.parseLong(literal));
+                decimal = false;
+                return;
+            } catch (NumberFormatException e) {
+                // Beyond long: a decimal constant
+            }
+        }
+        Integer index = constantIndexes.get(literal);
+        if (index == null) {
+            index = constants.size();
+            constants.add(new BigDecimal(literal));
+            constantIndexes.put(literal, index);
+        }
+        usesConstants = true;
+        code.loadReference(CONSTANTS_LOCAL);
+        code.pushInt(index);
+        code.loadArrayElement();
+        decimal = true;
+    }
+
+    /**
+     * Compiles the expression and stores it in the local of the variable. Every
+     * statement starts with no decimals of precision.
+     *
+     * @param node The node representing the assignment.
+     * @throws IllegalStateException If a decimal is assigned to an {@code int}
+     *                               variable, which type checking rules out.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        precision = 0;
+        node.getExpr().accept(this);
+        Attributes definition = node.getId().getDefinition();
+        if (isInt(definition)) {
+            if (decimal)
+                throw new IllegalStateException("Decimal assigned to int variable " + node.getId().getName());
+            code.storeLong(localOf(definition));
+        } else {
+            if (!decimal)
+                appendToDecimal();
+            code.storeReference(localOf(definition));
+        }
+        assigned.set(definition.getSlot());
+        precision = 0;
+    }
+
+    /**
+     * Prints the variable through the {@link Printer} of the program.
+     *
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        code.loadReference(0);
+        code.getField(CLASS_NAME, "printer", PRINTER_DESCRIPTOR);
+        appendLoad(node.getId().getDefinition());
+        code.invokeVirtual(Printer.INTERNAL_NAME, "print", "(" + (decimal ? DECIMAL_DESCRIPTOR : "J") + ")V");
+    }
+
+    /**
+     * Compiles the converted expression, then sets the precision to
+     * {@value #FLOAT_PRECISION} decimals for the rest of the statement.
+     *
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+        precision = FLOAT_PRECISION;
+    }
+}
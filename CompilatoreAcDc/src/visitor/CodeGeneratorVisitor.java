@@ -1,5 +1,12 @@
 package visitor;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import ast.NodeAST;
 import ast.NodeAssign;
 import ast.NodeBinOp;
@@ -7,27 +14,85 @@ import ast.NodeConst;
 import ast.NodeConvert;
 import ast.NodeDecl;
 import ast.NodeDeref;
+import ast.LangOper;
+import ast.NodeExpr;
 import ast.NodeId;
 import ast.NodePrint;
 import ast.NodeProgram;
-import symboltable.SymbolTable;
+import compiler.CompilationContext;
+import compiler.RegisterAllocator;
+import dc.CodeSink;
+import symboltable.Attributes;
 
 /**
+ * <p>
  * Represents a visitor that builds dc (desktop caluclator) language program
  * code.
+ * </p>
+ * 
+ * <p>
+ * The code is appended to a {@link CodeSink} as it is generated: in memory by
+ * default, or straight to a writer or channel. An I/O error of the sink is
+ * thrown as an {@link java.io.UncheckedIOException}.
+ * </p>
+ * 
+ * <p>
+ * The depth of the dc stack is followed while the code is generated, and the
+ * maximum depth reached by each statement is recorded in the
+ * {@link compiler.CompileReport} of the compilation.
+ * </p>
  */
 public class CodeGeneratorVisitor implements IVisitor {
 
-    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
-    private StringBuilder code;
-    private static char[] register = ALPHABET.toCharArray();
-    private static int registerIndex = 0;
+    private CodeSink code;
+    private CodeSink.Memory memory;
+    private CompilationContext context;
+    private RegisterAllocator registers;
+    private boolean rangesAllocated = false;
 
     /**
-     * Class constructor.
+     * Stack needs of the operations of the statement being generated.
+     */
+    private Map<NodeExpr, Label> labels = new IdentityHashMap<>();
+    private int depth;
+    private int maxDepth;
+
+    /**
+     * Class constructor, starting a new compilation.
      */
     public CodeGeneratorVisitor() {
-        code = new StringBuilder();
+        this(new CompilationContext());
+    }
+
+    /**
+     * Class constructor.
+     * 
+     * @param context the compilation the visited program belongs to.
+     */
+    public CodeGeneratorVisitor(CompilationContext context) {
+        this(context, CodeSink.inMemory());
+    }
+
+    /**
+     * Class constructor, appending the code to a sink.
+     * 
+     * @param context the compilation the visited program belongs to.
+     * @param sink    the sink receiving the code.
+     */
+    public CodeGeneratorVisitor(CompilationContext context, CodeSink sink) {
+        this.code = sink;
+        this.memory = sink instanceof CodeSink.Memory ? (CodeSink.Memory) sink : null;
+        this.context = context;
+        this.registers = context.getRegisters();
+    }
+
+    /**
+     * Returns the compilation the visited program belongs to.
+     * 
+     * @return the compilation the visited program belongs to.
+     */
+    public CompilationContext getContext() {
+        return context;
     }
 
     /**
@@ -39,44 +104,110 @@ public class CodeGeneratorVisitor implements IVisitor {
      * Visits the whole AST and creates code.
      * </p>
      * 
+     * <p>
+     * Registers are allocated beforehand from the live ranges of the variables,
+     * so that a register is reused once its variable is dead.
+     * </p>
+     * 
      * @param node The node containing the whole AST.
      */
     @Override
     public void visit(NodeProgram node) {
-        SymbolTable.init();
+        var liveness = new LivenessVisitor();
+        node.accept(liveness);
+        registers.allocate(liveness.getRanges());
+        rangesAllocated = true;
         for (NodeAST nodeAST : node)
             nodeAST.accept(this);
     }
 
     /**
-     * <p>
-     * Gets a char to identify the register associated to a variable.
-     * </p>
+     * Appends the code pushing the value of a variable, from its register or
+     * from the spill array.
      * 
-     * <p>
-     * Increments automatically the register index.
-     * </p>
+     * @param definition the attributes of the variable.
+     */
+    private void appendLoad(Attributes definition) {
+        grow(1);
+        if (definition.isSpilled())
+            code.instruction().append(definition.getSpillSlot()).append(" ;").append(RegisterAllocator.SPILL_ARRAY);
+        else
+            code.instruction().append('l').append(definition.getRegister());
+    }
+
+    /**
+     * Appends the code popping a value into a variable, to its register or to
+     * the spill array.
      * 
-     * @return a char that identifies the register.
+     * @param definition the attributes of the variable.
      */
-    private static char newRegister() {
-        return register[registerIndex++];
+    private void appendStore(Attributes definition) {
+        grow(-1);
+        if (definition.isSpilled())
+            code.instruction().append(definition.getSpillSlot()).append(" :").append(RegisterAllocator.SPILL_ARRAY);
+        else
+            code.instruction().append('s').append(definition.getRegister());
     }
 
     /**
-     * Inserts a space in the code stringbuilder.
+     * Appends the code setting the precision, which pushes it before {@code k}
+     * pops it.
+     * 
+     * @param precision the number of decimals.
      */
-    private void insertSpace() {
-        code.append(" ");
+    private void appendPrecision(char precision) {
+        code.instruction().append(precision).append(" k");
+        grow(1);
+        grow(-1);
     }
 
     /**
-     * Returns the trimmed code.
+     * Follows the depth of the dc stack.
      * 
-     * @return the trimmed code.
+     * @param values the number of values pushed, or popped if negative.
+     */
+    private void grow(int values) {
+        depth += values;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Starts following the stack of a new statement.
+     */
+    private void startStatement() {
+        labels.clear();
+        depth = 0;
+        maxDepth = 0;
+    }
+
+    /**
+     * Records the maximum depth the stack reached in the statement.
+     */
+    private void endStatement() {
+        context.getReport().addStackDepth(maxDepth);
+    }
+
+    /**
+     * Returns the code, if it is kept in memory.
+     * 
+     * @return the code.
+     * @throws IllegalStateException If the code is appended to a writer or
+     *                               channel.
      */
     public String getCode() {
-        return code.toString().trim();
+        if (memory == null)
+            throw new IllegalStateException("The code is not kept in memory");
+        return memory.getCode();
+    }
+
+    /**
+     * Hands the code generated so far over to the destination of the sink, and
+     * flushes it.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        code.flush();
     }
 
     /**
@@ -95,14 +226,16 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Sets the register for the corresponding {@link NodeId} node.
+     * Sets the register for the corresponding {@link NodeId} node, unless the
+     * registers of the whole program have already been allocated.
      * </p>
      * 
      * @param node The node representing the declaration.
      */
     @Override
     public void visit(NodeDecl node) {
-        node.getNodeId().getDefinition().setRegister(newRegister());
+        if (!rangesAllocated)
+            registers.allocate(node.getNodeId().getDefinition());
     }
 
     /**
@@ -112,27 +245,137 @@ public class CodeGeneratorVisitor implements IVisitor {
      * 
      * <p>
      * Triggers the visit to both expressions parts and then appends the operation
-     * sign. Adds the operation to code stringbuilder (e.g.: {@code 4 4 + 5 +}).
+     * sign. Adds the operation to the code (e.g.: {@code 4 4 + 5 +}).
+     * </p>
+     * 
+     * <p>
+     * The left deep chain of operations built by the parser is walked in a loop,
+     * so that the visit depth does not grow with the chain length.
+     * </p>
+     * 
+     * <p>
+     * Operands are ordered as Sethi and Ullman do: the operand needing more
+     * stack is evaluated first, so that the value of the other one is not kept
+     * on the stack meanwhile. The operands of {@code -} and {@code /} evaluated
+     * right first are swapped back with {@code r}. Operands whose evaluation
+     * sets the precision or saves a value to a temporary variable are kept in
+     * order, as the operations after them depend on it.
+     * </p>
+     * 
+     * <p>
+     * An operation whose right operand duplicates the left one appends
+     * {@code d} instead of the operand, and an operation whose result is saved
+     * stores a copy of it to its temporary variable.
      * </p>
      * 
      * @param node The node representing a binary operation.
      */
     @Override
     public void visit(NodeBinOp node) {
-        node.getLeftOp().accept(this);
-        node.getRightOp().accept(this);
+        label(node);
+        List<NodeBinOp> chain = new ArrayList<>();
+        NodeExpr leftOp = node;
+        int swapped = -1;
+        while (leftOp instanceof NodeBinOp && swapped < 0) {
+            if (labels.get(leftOp).swapped)
+                swapped = chain.size();
+            chain.add((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        int i = chain.size() - 1;
+        if (swapped >= 0) {
+            // The operations below the swapped one are a chain of their own
+            NodeBinOp binOp = chain.get(i--);
+            binOp.getRightOp().accept(this);
+            leftOp.accept(this);
+            if (binOp.getOp() == LangOper.MINUS || binOp.getOp() == LangOper.DIV)
+                code.instruction().append('r');
+            appendOperator(binOp);
+            appendSave(binOp);
+        } else
+            leftOp.accept(this);
+        for (; i >= 0; i--) {
+            NodeBinOp binOp = chain.get(i);
+            if (binOp.isDuplicate()) {
+                code.instruction().append('d');
+                grow(1);
+            } else
+                binOp.getRightOp().accept(this);
+            appendOperator(binOp);
+            appendSave(binOp);
+        }
+    }
+
+    /**
+     * Appends the code storing a copy of the result of an operation to its
+     * temporary variable, if it is saved.
+     * 
+     * @param node The node representing a binary operation.
+     */
+    private void appendSave(NodeBinOp node) {
+        if (node.getSavedTo() != null) {
+            code.instruction().append('d');
+            grow(1);
+            appendStore(node.getSavedTo().getDefinition());
+        }
+    }
+
+    /**
+     * Returns the stack an expression needs, labelling the operations of left
+     * deep chains in a loop.
+     * 
+     * @param expr The node representing an expression.
+     * @return the label of the expression.
+     */
+    private Label label(NodeExpr expr) {
+        if (expr instanceof NodeConvert) {
+            Label converted = label(((NodeConvert) expr).getExpr());
+            return new Label(Math.max(converted.need, 2), true, false);
+        }
+        if (!(expr instanceof NodeBinOp))
+            return Label.LEAF;
+        Label known = labels.get(expr);
+        if (known != null)
+            return known;
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = expr;
+        while (leftOp instanceof NodeBinOp && !labels.containsKey(leftOp)) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        Label left = label(leftOp);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            Label right = binOp.isDuplicate() ? Label.LEAF : label(binOp.getRightOp());
+            boolean swapped = !binOp.isDuplicate() && !left.pinned && !right.pinned && right.need > left.need;
+            int need = swapped ? Math.max(right.need, left.need + 1) : Math.max(left.need, right.need + 1);
+            if (binOp.getSavedTo() != null)
+                need = Math.max(need, 2);
+            left = new Label(need, left.pinned || right.pinned || binOp.getSavedTo() != null, swapped);
+            labels.put(binOp, left);
+        }
+        return left;
+    }
+
+    /**
+     * Appends the operation sign of a binary operation to the code.
+     * 
+     * @param node The node representing a binary operation.
+     */
+    private void appendOperator(NodeBinOp node) {
+        grow(-1);
         switch (node.getOp()) {
             case DIV:
-                code.append("/ ");
+                code.instruction().append('/');
                 break;
             case MINUS:
-                code.append("- ");
+                code.instruction().append('-');
                 break;
             case PLUS:
-                code.append("+ ");
+                code.instruction().append('+');
                 break;
             case TIMES:
-                code.append("* ");
+                code.instruction().append('*');
                 break;
             default:
                 break;
@@ -146,8 +389,8 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Gets the register associated with the variable. Appends it in code
-     * stringbuilder.
+     * Gets the register associated with the variable. Appends it to the
+     * code.
      * </p>
      * 
      * @param node The node representing a dereferencing (e.g.: {@code b = b + 1}.
@@ -156,9 +399,7 @@ public class CodeGeneratorVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeDeref node) {
-        char reg = node.getId().getDefinition().getRegister();
-        code.append("l" + reg);
-        insertSpace();
+        appendLoad(node.getId().getDefinition());
     }
 
     /**
@@ -167,8 +408,12 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Gets the node value and appends it to code stringbuilder.
-     * Appends a trailing space.
+     * Gets the node value and appends it to the code.
+     * </p>
+     * 
+     * <p>
+     * Negative values, which only come from folded constants, are written with
+     * the dc negative sign {@code _}.
      * </p>
      * 
      * @param node The node representing a constant (e.g.: {@code 4} in source
@@ -176,8 +421,12 @@ public class CodeGeneratorVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeConst node) {
-        code.append(node.getValue());
-        insertSpace();
+        grow(1);
+        String value = node.getValue();
+        if (value.startsWith("-"))
+            code.instruction().append('_').append(value, 1, value.length());
+        else
+            code.instruction().append(value);
     }
 
     /**
@@ -186,8 +435,7 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Gets the variable assigned register, appends the code to stringbuilder, a
-     * trailing space and
+     * Gets the variable assigned register, appends the code and
      * then sets precision to 0 decimals ({@code int} type).
      * </p>
      * 
@@ -195,11 +443,11 @@ public class CodeGeneratorVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeAssign node) {
-        char assignedRegister = node.getId().getDefinition().getRegister();
+        startStatement();
         node.getExpr().accept(this);
-        code.append("s").append(assignedRegister);
-        insertSpace();
-        code.append("0 k ");
+        appendStore(node.getId().getDefinition());
+        appendPrecision('0');
+        endStatement();
     }
 
     /**
@@ -208,16 +456,19 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Gets the variable assigned register and appends the dc code to code
-     * stringbuilder.
+     * Gets the variable assigned register and appends the dc code to the
+     * code.
      * </p>
      * 
      * @param node The node representing the print statement.
      */
     @Override
     public void visit(NodePrint node) {
-        char reg = node.getId().getDefinition().getRegister();
-        code.append("l" + reg + " p P ");
+        startStatement();
+        appendLoad(node.getId().getDefinition());
+        code.instruction().append("p P");
+        grow(-1);
+        endStatement();
     }
 
     /**
@@ -226,7 +477,7 @@ public class CodeGeneratorVisitor implements IVisitor {
      * </p>
      * 
      * <p>
-     * Visits the expression and appends to code stringbuilder the 5 decimal
+     * Visits the expression and appends to the code the 5 decimal
      * precision ({@code float} type)
      * </p>
      * 
@@ -236,7 +487,35 @@ public class CodeGeneratorVisitor implements IVisitor {
     @Override
     public void visit(NodeConvert node) {
         node.getExpr().accept(this);
-        code.append("5 k ");
+        appendPrecision('5');
     }
 
+    /**
+     * Stack needed by an expression, as labelled by Sethi and Ullman.
+     */
+    private static class Label {
+        private static final Label LEAF = new Label(1, false, false);
+
+        /**
+         * Maximum number of values the expression pushes on the stack.
+         */
+        private int need;
+
+        /**
+         * {@code true} if evaluating the expression sets the precision or saves
+         * a value, so that it cannot be moved.
+         */
+        private boolean pinned;
+
+        /**
+         * {@code true} if the right operand of the operation is evaluated first.
+         */
+        private boolean swapped;
+
+        private Label(int need, boolean pinned, boolean swapped) {
+            this.need = need;
+            this.pinned = pinned;
+            this.swapped = swapped;
+        }
+    }
 }
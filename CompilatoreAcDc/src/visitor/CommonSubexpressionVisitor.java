@@ -0,0 +1,370 @@
+package visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.LangOper;
+import ast.LangType;
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import ast.TypeDescriptor;
+import compiler.CompilationContext;
+import compiler.CompileReport;
+import symboltable.Attributes;
+import symboltable.SymbolTable;
+
+/**
+ * <p>
+ * Represents a visitor that makes a type checked program compute once the
+ * operations it computes several times with the same operands, the common
+ * subexpressions.
+ * </p>
+ *
+ * <p>
+ * Every expression gets a value number, equal for the expressions sure to
+ * compute the same value: a constant is numbered by its value, a variable by
+ * the assignment it was last given its value by, a conversion as the
+ * expression converted, and an operation by its operator, the numbers of its
+ * operands and, for {@code *} and {@code /}, the precision {@code k} it runs
+ * with. The precision is 0 at the start of every statement and 5 once a
+ * conversion has been evaluated, so an operation following a conversion never
+ * shares its number with the same operation in an {@code int} context.
+ * </p>
+ *
+ * <p>
+ * The first occurrence of an operation whose number occurs more than once
+ * saves a copy of its result to a temporary variable, declared right before
+ * its statement, and the later occurrences read the temporary variable
+ * instead. A later occurrence containing a conversion, read while the
+ * precision is still 0, is read through a conversion, so that the operations
+ * after it run with the same precision as before. An operation whose right
+ * operand is the only later occurrence of its left one duplicates the left
+ * one instead, with no temporary variable. Temporary variables are named with
+ * a {@code $}, so they never clash with the program variables.
+ * </p>
+ *
+ * <p>
+ * Variables are indexed by their symbol table slot. The occurrences no longer
+ * computed are counted in the {@link CompileReport} of the compilation.
+ * </p>
+ */
+public class CommonSubexpressionVisitor implements IVisitor {
+
+    /**
+     * Precision of the key of an operation whose result does not depend on it.
+     */
+    private static final int ANY_PRECISION = 2;
+
+    private CompileReport report;
+    private SymbolTable symbolTable;
+
+    private int values = 0;
+    private int[] variableValues;
+    private int[] occurrences = new int[16];
+    private Map<String, Integer> constantValues = new HashMap<>();
+    private Map<Long, Integer> operationValues = new HashMap<>();
+    private Map<NodeBinOp, Integer> numbers = new IdentityHashMap<>();
+    private Set<NodeBinOp> converting = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Map<Integer, Temporary> temporaries = new HashMap<>();
+    private List<Temporary> created = new ArrayList<>();
+
+    /**
+     * Value number of the expression last visited.
+     */
+    private int value;
+
+    /**
+     * {@code true} if the expression last visited contains a conversion.
+     */
+    private boolean converts;
+
+    /**
+     * {@code true} if a conversion has set the precision to 5 in the statement
+     * being numbered or rewritten.
+     */
+    private boolean converted;
+
+    /**
+     * Class constructor.
+     *
+     * @param context the compilation the visited program belongs to.
+     */
+    public CommonSubexpressionVisitor(CompilationContext context) {
+        this.report = context.getReport();
+        this.symbolTable = context.getSymbolTable();
+    }
+
+    /**
+     * Numbers the expressions of every statement, then rewrites the statements
+     * in order, declaring the temporary variables they save results to.
+     *
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        variableValues = new int[symbolTable.size()];
+        Arrays.setAll(variableValues, slot -> newValue());
+        for (NodeDecSt nodeDecSt : node)
+            nodeDecSt.accept(this);
+
+        List<NodeDecSt> decSts = new ArrayList<>();
+        for (NodeDecSt nodeDecSt : node) {
+            int saved = created.size();
+            if (nodeDecSt instanceof NodeAssign) {
+                var assign = (NodeAssign) nodeDecSt;
+                converted = false;
+                assign.setExpr(rewrite(assign.getExpr()));
+            }
+            for (Temporary temporary : created.subList(saved, created.size()))
+                decSts.add(temporary.declaration);
+            decSts.add(nodeDecSt);
+        }
+
+        Set<NodeDecSt> unused = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Temporary temporary : created) {
+            if (temporary.reuses == 1 && temporary.duplicating != null) {
+                temporary.duplicating.setRightOp(temporary.duplicated);
+                temporary.duplicating.setDuplicate(true);
+            } else if (temporary.reuses > 0)
+                continue;
+            temporary.save.setSavedTo(null);
+            unused.add(temporary.declaration);
+        }
+        if (!unused.isEmpty())
+            decSts.removeIf(unused::contains);
+        node.setDecSts(decSts);
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     *
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Visits a {@link NodeDecl} node.
+     *
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        // Empty method
+    }
+
+    /**
+     * Numbers the operations of the left deep chain in a loop, after their
+     * operands.
+     *
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            int left = value;
+            boolean leftConverts = converts;
+            binOp.getRightOp().accept(this);
+            number(binOp, left, value, leftConverts || converts);
+        }
+    }
+
+    /**
+     * Numbers the variable read by its last assignment.
+     *
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        value = variableValues[node.getId().getDefinition().getSlot()];
+        converts = false;
+    }
+
+    /**
+     * Numbers the constant by its value.
+     *
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        value = constantValues.computeIfAbsent(node.getValue(), constant -> newValue());
+        converts = false;
+    }
+
+    /**
+     * Numbers the expression, then gives the variable assigned a new number.
+     *
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        converted = false;
+        node.getExpr().accept(this);
+        variableValues[node.getId().getDefinition().getSlot()] = newValue();
+    }
+
+    /**
+     * Visits a {@link NodePrint} node.
+     *
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        // Empty method
+    }
+
+    /**
+     * Numbers the conversion as the expression converted, and records that the
+     * precision is now 5.
+     *
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+        converted = true;
+        converts = true;
+    }
+
+    private int newValue() {
+        if (values == occurrences.length)
+            occurrences = Arrays.copyOf(occurrences, values * 2);
+        return values++;
+    }
+
+    /**
+     * Numbers an operation by its operator, the numbers of its operands and
+     * the precision it runs with, if it depends on it.
+     */
+    private void number(NodeBinOp node, int left, int right, boolean converts) {
+        LangOper op = node.getOp();
+        int precision = op == LangOper.TIMES || op == LangOper.DIV ? (converted ? 1 : 0) : ANY_PRECISION;
+        long key = (long) left << 34 | (long) right << 4 | op.ordinal() << 2 | precision;
+        value = operationValues.computeIfAbsent(key, operation -> newValue());
+        occurrences[value]++;
+        numbers.put(node, value);
+        if (converts)
+            converting.add(node);
+        this.converts = converts;
+    }
+
+    /**
+     * Rewrites an expression in evaluation order, replacing the operations
+     * already saved with reads of their temporary variable, and saving the
+     * first occurrence of the operations occurring more than once.
+     */
+    private NodeExpr rewrite(NodeExpr expr) {
+        if (expr instanceof NodeConvert) {
+            var convert = (NodeConvert) expr;
+            convert.setExpr(rewrite(convert.getExpr()));
+            converted = true;
+            return convert;
+        }
+        if (!(expr instanceof NodeBinOp))
+            return expr;
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = expr;
+        while (leftOp instanceof NodeBinOp && !temporaries.containsKey(numbers.get(leftOp))) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        NodeExpr left = leftOp instanceof NodeBinOp ? reuse((NodeBinOp) leftOp) : rewrite(leftOp);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            binOp.setLeftOp(left);
+            NodeExpr rightOp = binOp.getRightOp();
+            Temporary temporary = rightOp instanceof NodeBinOp ? temporaries.get(numbers.get(rightOp)) : null;
+            binOp.setRightOp(rewrite(rightOp));
+            if (temporary != null && temporary.save == left) {
+                temporary.duplicating = binOp;
+                temporary.duplicated = rightOp;
+            }
+            save(binOp);
+            left = binOp;
+        }
+        return left;
+    }
+
+    /**
+     * Returns the read of the temporary variable an operation was saved to.
+     */
+    private NodeExpr reuse(NodeBinOp node) {
+        Temporary temporary = temporaries.get(numbers.get(node));
+        temporary.reuses++;
+        report.addSubexpressionsEliminated(1);
+        var load = new NodeDeref(temporary.id);
+        load.setResType(node.getResType());
+        if (!converting.contains(node) || converted)
+            return load;
+        var convert = new NodeConvert(load);
+        convert.setResType(TypeDescriptor.FLOAT);
+        converted = true;
+        return convert;
+    }
+
+    /**
+     * Saves the result of an operation to a new temporary variable, if its
+     * number occurs more than once.
+     */
+    private void save(NodeBinOp node) {
+        int number = numbers.get(node);
+        if (occurrences[number] < 2)
+            return;
+        LangType type = node.getResType() == TypeDescriptor.FLOAT ? LangType.FLOAT : LangType.INT;
+        var id = new NodeId("$" + created.size());
+        id.setDefinition(new Attributes(type));
+        node.setSavedTo(id);
+        var temporary = new Temporary(id, node, new NodeDecl(type, id));
+        temporaries.put(number, temporary);
+        created.add(temporary);
+    }
+
+    /**
+     * Temporary variable an operation is saved to.
+     */
+    private static class Temporary {
+        private NodeId id;
+        private NodeBinOp save;
+        private NodeDecl declaration;
+        private int reuses;
+
+        /**
+         * Operation whose right operand is the only reuse, if it follows the
+         * saved operation, and its operand before the rewrite.
+         */
+        private NodeBinOp duplicating;
+        private NodeExpr duplicated;
+
+        private Temporary(NodeId id, NodeBinOp save, NodeDecl declaration) {
+            this.id = id;
+            this.save = save;
+            this.declaration = declaration;
+        }
+    }
+}
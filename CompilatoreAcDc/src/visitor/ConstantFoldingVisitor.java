@@ -0,0 +1,375 @@
+package visitor;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+
+import ast.LangOper;
+import ast.LangType;
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import ast.TypeDescriptor;
+import compiler.CompilationContext;
+import compiler.CompileReport;
+import dc.Arithmetic;
+
+/**
+ * <p>
+ * Represents a visitor that simplifies the expressions of a type checked
+ * program before code generation.
+ * </p>
+ * 
+ * <p>
+ * Operations on constants are computed at compile time, exactly as dc would
+ * compute them, and identities such as {@code x * 1} and {@code x + 0} are
+ * removed. The instructions no longer generated are counted in the
+ * {@link CompileReport} of the compilation.
+ * </p>
+ * 
+ * <p>
+ * A {@link NodeConvert} sets the precision to {@value #FLOAT_PRECISION} decimals
+ * for the rest of its statement, which changes the result of later products and
+ * quotients. The visit tracks whether a conversion has already run, and a folded
+ * constant that swallowed a conversion is itself converted, so that the
+ * precision changes where it did before.
+ * </p>
+ */
+public class ConstantFoldingVisitor implements IVisitor {
+
+    private static final int FLOAT_PRECISION = 5;
+
+    private CompileReport report;
+
+    /**
+     * {@code true} once a conversion has run in the current statement.
+     */
+    private boolean converted;
+
+    /**
+     * The simplified expression last visited, the number of instructions it
+     * generates and whether they change the precision.
+     */
+    private NodeExpr result;
+    private int size;
+    private boolean setsPrecision;
+
+    /**
+     * The number of instructions the current statement generated before
+     * simplification.
+     */
+    private int visited;
+
+    /**
+     * Class constructor.
+     * 
+     * @param context the compilation the visited program belongs to.
+     */
+    public ConstantFoldingVisitor(CompilationContext context) {
+        this.report = context.getReport();
+    }
+
+    /**
+     * Simplifies every statement.
+     * 
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        for (NodeDecSt nodeDecSt : node)
+            nodeDecSt.accept(this);
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     * 
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Visits a {@link NodeDecl} node.
+     * 
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        // Empty method
+    }
+
+    /**
+     * <p>
+     * Simplifies the operands of the left deep chain of operations in a loop,
+     * then each operation in turn.
+     * </p>
+     * 
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        boolean convertedAtStart = converted;
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            NodeExpr left = result;
+            int leftSize = size;
+            boolean leftSetsPrecision = setsPrecision;
+            binOp.getRightOp().accept(this);
+            visited++;
+            if (!fold(binOp, left, leftSetsPrecision, convertedAtStart)
+                    && !simplify(binOp, left, leftSize, leftSetsPrecision, convertedAtStart)) {
+                binOp.setLeftOp(left);
+                binOp.setRightOp(result);
+                result = binOp;
+                size += leftSize + 1;
+                setsPrecision |= leftSetsPrecision;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Replaces an operation on two constants with its result.
+     * </p>
+     * 
+     * <p>
+     * Divisions by zero are left to dc, which reports them.
+     * </p>
+     * 
+     * @param node              the operation, whose right operand is the
+     *                          current result.
+     * @param left              the simplified left operand.
+     * @param leftSetsPrecision whether the left operand changes the precision.
+     * @param convertedAtStart  whether a conversion ran before the operation
+     *                          chain.
+     * @return {@code true} if the operation has been folded.
+     */
+    private boolean fold(NodeBinOp node, NodeExpr left, boolean leftSetsPrecision, boolean convertedAtStart) {
+        BigDecimal l = valueOf(left);
+        BigDecimal r = valueOf(result);
+        if (l == null || r == null || (node.getOp() == LangOper.DIV && r.signum() == 0))
+            return false;
+        boolean rightSetsPrecision = setsPrecision;
+        int k = converted ? FLOAT_PRECISION : 0;
+        BigDecimal value;
+        switch (node.getOp()) {
+            case PLUS:
+                value = Arithmetic.add(l, r);
+                break;
+            case MINUS:
+                value = Arithmetic.subtract(l, r);
+                break;
+            case TIMES:
+                value = Arithmetic.multiply(l, r, k);
+                break;
+            default:
+                value = Arithmetic.divide(l, r, k);
+                break;
+        }
+        var constant = new NodeConst(value.toPlainString(),
+                node.getResType() == TypeDescriptor.FLOAT ? LangType.FLOAT : LangType.INT);
+        constant.setResType(node.getResType());
+        result = constant;
+        size = 1;
+        setsPrecision = false;
+        if ((leftSetsPrecision || rightSetsPrecision) && !convertedAtStart)
+            convertResult();
+        return true;
+    }
+
+    /**
+     * <p>
+     * Replaces {@code x + 0}, {@code 0 + x}, {@code x - 0}, {@code x * 1} and
+     * {@code 1 * x} with {@code x}, and {@code x / 1} with {@code x} if
+     * {@code x} is an {@code int} divided with no decimals.
+     * </p>
+     * 
+     * <p>
+     * Only constants with no decimals are identities: {@code x + 0.0} has at
+     * least one decimal even if {@code x} has none. A left constant must not
+     * change the precision, since {@code x} would then be computed with another
+     * one.
+     * </p>
+     * 
+     * @param node              the operation, whose right operand is the
+     *                          current result.
+     * @param left              the simplified left operand.
+     * @param leftSize          the instructions of the left operand.
+     * @param leftSetsPrecision whether the left operand changes the precision.
+     * @param convertedAtStart  whether a conversion ran before the operation
+     *                          chain.
+     * @return {@code true} if the operation has been simplified.
+     */
+    private boolean simplify(NodeBinOp node, NodeExpr left, int leftSize, boolean leftSetsPrecision,
+            boolean convertedAtStart) {
+        BigDecimal l = left instanceof NodeConst ? valueOf(left) : null;
+        BigDecimal r = valueOf(result);
+        switch (node.getOp()) {
+            case PLUS:
+                if (isInteger(r, 0))
+                    return keepLeft(left, leftSize, leftSetsPrecision, convertedAtStart);
+                return isInteger(l, 0);
+            case MINUS:
+                return isInteger(r, 0) && keepLeft(left, leftSize, leftSetsPrecision, convertedAtStart);
+            case TIMES:
+                if (isInteger(r, 1))
+                    return keepLeft(left, leftSize, leftSetsPrecision, convertedAtStart);
+                return isInteger(l, 1);
+            default:
+                return isInteger(r, 1) && !converted && left.getResType() == TypeDescriptor.INT
+                        && keepLeft(left, leftSize, leftSetsPrecision, convertedAtStart);
+        }
+    }
+
+    /**
+     * Replaces the current result, a right identity, with the left operand,
+     * converted if the identity changed the precision and nothing else does.
+     * 
+     * @param left              the simplified left operand.
+     * @param leftSize          the instructions of the left operand.
+     * @param leftSetsPrecision whether the left operand changes the precision.
+     * @param convertedAtStart  whether a conversion ran before the operation
+     *                          chain.
+     * @return {@code true}.
+     */
+    private boolean keepLeft(NodeExpr left, int leftSize, boolean leftSetsPrecision, boolean convertedAtStart) {
+        boolean rightSetsPrecision = setsPrecision;
+        result = left;
+        size = leftSize;
+        setsPrecision = leftSetsPrecision;
+        if (rightSetsPrecision && !leftSetsPrecision && !convertedAtStart)
+            convertResult();
+        return true;
+    }
+
+    /**
+     * Wraps the current result in a {@link NodeConvert}, so that it sets the
+     * precision once computed.
+     */
+    private void convertResult() {
+        var convert = new NodeConvert(result);
+        convert.setResType(TypeDescriptor.FLOAT);
+        result = convert;
+        size += 2;
+        setsPrecision = true;
+    }
+
+    /**
+     * Returns the value of a constant, converted or not.
+     * 
+     * @param node the expression.
+     * @return the value of the constant, {@code null} if the expression is not
+     *         a constant.
+     */
+    private static BigDecimal valueOf(NodeExpr node) {
+        if (node instanceof NodeConvert)
+            node = ((NodeConvert) node).getExpr();
+        return node instanceof NodeConst ? new BigDecimal(((NodeConst) node).getValue()) : null;
+    }
+
+    /**
+     * Returns {@code true} if a constant is the given integer, with no decimals.
+     * 
+     * @param value the value of the constant, {@code null} if there is none.
+     * @param integer the integer.
+     * @return {@code true} if the constant is the integer, otherwise {@code false}.
+     */
+    private static boolean isInteger(BigDecimal value, int integer) {
+        return value != null && value.scale() == 0 && value.compareTo(BigDecimal.valueOf(integer)) == 0;
+    }
+
+    /**
+     * Keeps the dereferenced variable as it is.
+     * 
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        leaf(node);
+    }
+
+    /**
+     * Keeps the constant as it is.
+     * 
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        leaf(node);
+    }
+
+    private void leaf(NodeExpr node) {
+        result = node;
+        size = 1;
+        setsPrecision = false;
+        visited++;
+    }
+
+    /**
+     * <p>
+     * Simplifies the assigned expression and counts the instructions eliminated.
+     * </p>
+     * 
+     * <p>
+     * Every statement starts with no decimals of precision. A conversion left
+     * at the end of the expression is dropped, since the assignment is not
+     * affected by the precision and resets it.
+     * </p>
+     * 
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        converted = false;
+        visited = 0;
+        node.getExpr().accept(this);
+        if (result instanceof NodeConvert) {
+            result = ((NodeConvert) result).getExpr();
+            size -= 2;
+        }
+        node.setExpr(result);
+        report.addInstructionsEliminated(visited - size);
+    }
+
+    /**
+     * Visits a {@link NodePrint} node.
+     * 
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        // Empty method
+    }
+
+    /**
+     * Simplifies the converted expression. The conversion is dropped if another
+     * one already set the precision.
+     * 
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        boolean before = converted;
+        node.getExpr().accept(this);
+        converted = true;
+        visited += 2;
+        if (!before)
+            convertResult();
+    }
+}
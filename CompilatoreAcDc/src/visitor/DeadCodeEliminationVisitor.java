@@ -0,0 +1,200 @@
+package visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import compiler.CompileReport;
+import symboltable.SymbolTable;
+
+/**
+ * <p>
+ * Represents a visitor that removes from a type checked program the
+ * assignments whose value is never printed, and the declarations of the
+ * variables no longer referenced.
+ * </p>
+ * 
+ * <p>
+ * Programs have no branches, so a backward pass over the statements computes
+ * the live variables exactly: a print makes its variable live, and an
+ * assignment kills its variable and makes the ones it reads live. An
+ * assignment to a variable not live after it is dead and is removed, and so
+ * are the reads of its expression, which may in turn make earlier assignments
+ * dead. A declaration is removed if none of the statements left refers to its
+ * variable, so that it gets no register.
+ * </p>
+ * 
+ * <p>
+ * Variables are indexed by their symbol table slot. The statements and
+ * declarations removed are counted in the {@link CompileReport} of the
+ * compilation.
+ * </p>
+ */
+public class DeadCodeEliminationVisitor implements IVisitor {
+
+    private CompileReport report;
+    private SymbolTable symbolTable;
+    private boolean[] live;
+    private boolean[] referenced;
+
+    /**
+     * {@code true} if the declaration or statement last visited is kept.
+     */
+    private boolean kept;
+
+    /**
+     * Class constructor.
+     * 
+     * @param context the compilation the visited program belongs to.
+     */
+    public DeadCodeEliminationVisitor(CompilationContext context) {
+        this.report = context.getReport();
+        this.symbolTable = context.getSymbolTable();
+    }
+
+    /**
+     * Visits the declarations and statements from last to first, and keeps the
+     * live ones.
+     * 
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        live = new boolean[symbolTable.size()];
+        referenced = new boolean[symbolTable.size()];
+        List<NodeDecSt> decSts = new ArrayList<>();
+        for (NodeDecSt nodeDecSt : node)
+            decSts.add(nodeDecSt);
+        List<NodeDecSt> keptDecSts = new ArrayList<>(decSts.size());
+        for (int i = decSts.size() - 1; i >= 0; i--) {
+            decSts.get(i).accept(this);
+            if (kept)
+                keptDecSts.add(decSts.get(i));
+        }
+        Collections.reverse(keptDecSts);
+        node.setDecSts(keptDecSts);
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     * 
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Keeps the declaration if a statement kept refers to its variable.
+     * 
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        kept = referenced[slotOf(node.getNodeId())];
+        if (!kept)
+            report.addDeclarationsEliminated(1);
+    }
+
+    /**
+     * Visits the operands of the left deep chain of operations in a loop.
+     * 
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty())
+            chain.pop().getRightOp().accept(this);
+    }
+
+    /**
+     * Makes the variable read live.
+     * 
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        read(node.getId());
+    }
+
+    /**
+     * Visits a {@link NodeConst} node.
+     * 
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        // Empty method
+    }
+
+    /**
+     * Removes the assignment if its variable is not live after it, otherwise
+     * kills the variable and makes the variables of the expression live.
+     * 
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        int slot = slotOf(node.getId());
+        kept = live[slot];
+        if (!kept) {
+            report.addStatementsEliminated(1);
+            return;
+        }
+        live[slot] = false;
+        referenced[slot] = true;
+        node.getExpr().accept(this);
+    }
+
+    /**
+     * Makes the printed variable live.
+     * 
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        read(node.getId());
+        kept = true;
+    }
+
+    /**
+     * Visits the converted expression.
+     * 
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+    }
+
+    private void read(NodeId id) {
+        int slot = slotOf(id);
+        live[slot] = true;
+        referenced[slot] = true;
+    }
+
+    private static int slotOf(NodeId id) {
+        return id.getDefinition().getSlot();
+    }
+}
@@ -0,0 +1,216 @@
+package visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ast.FlatAst;
+import ast.LangOper;
+import compiler.CompilationContext;
+import compiler.LiveRange;
+import compiler.RegisterAllocator;
+import symboltable.Attributes;
+
+/**
+ * <p>
+ * Generator of dc code from a type checked {@link FlatAst}, producing the
+ * same code as {@link CodeGeneratorVisitor}.
+ * </p>
+ *
+ * <p>
+ * Nodes are in post-order, which is the order of dc code but for the operands
+ * {@link CodeGeneratorVisitor} evaluates right first: a single pass in index
+ * order labels every operation with the stack it needs, as Sethi and Ullman
+ * do, and a second one emits every statement, walking the expressions of
+ * assignments in the order of their labels. A first pass computes the
+ * {@link LiveRange} of every variable, as {@link LivenessVisitor} does, for
+ * the {@link RegisterAllocator}.
+ * </p>
+ */
+public class FlatCodeGenerator {
+
+    private StringBuilder code = new StringBuilder();
+    private RegisterAllocator registers;
+
+    /**
+     * Stack needed by every node, {@code true} if it sets the precision, so
+     * that it cannot be moved, and {@code true} if its right operand is
+     * evaluated first.
+     */
+    private int[] needs;
+    private boolean[] pinned;
+    private boolean[] swapped;
+
+    /**
+     * Class constructor.
+     *
+     * @param context the compilation the program belongs to.
+     */
+    public FlatCodeGenerator(CompilationContext context) {
+        this.registers = context.getRegisters();
+    }
+
+    /**
+     * Returns the trimmed code.
+     *
+     * @return the trimmed code.
+     */
+    public String getCode() {
+        return code.toString().trim();
+    }
+
+    /**
+     * Allocates the registers and generates the code of the whole program.
+     *
+     * @param ast the program.
+     */
+    public void generate(FlatAst ast) {
+        registers.allocate(liveRanges(ast));
+        label(ast);
+        for (int s = 0; s < ast.getStatementCount(); s++) {
+            int node = ast.getStatement(s);
+            switch (ast.getKind(node)) {
+                case FlatAst.ASSIGN:
+                    appendExpression(ast, ast.getLeft(node));
+                    appendStore(definitionOf(ast, node));
+                    code.append("0 k ");
+                    break;
+                case FlatAst.PRINT:
+                    appendLoad(definitionOf(ast, node));
+                    code.append("p P ");
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Labels every node with the stack it needs, operands first.
+     */
+    private void label(FlatAst ast) {
+        needs = new int[ast.size()];
+        pinned = new boolean[ast.size()];
+        swapped = new boolean[ast.size()];
+        for (int node = 0; node < ast.size(); node++) {
+            needs[node] = 1;
+            if (ast.getKind(node) == FlatAst.BINOP) {
+                int left = ast.getLeft(node);
+                int right = ast.getRight(node);
+                swapped[node] = !pinned[left] && !pinned[right] && needs[right] > needs[left];
+                needs[node] = swapped[node] ? Math.max(needs[right], needs[left] + 1)
+                        : Math.max(needs[left], needs[right] + 1);
+                pinned[node] = pinned[left] || pinned[right];
+            }
+            if (ast.isConverted(node)) {
+                needs[node] = Math.max(needs[node], 2);
+                pinned[node] = true;
+            }
+        }
+    }
+
+    /**
+     * Appends the code of an expression, walking it with a stack of the nodes
+     * to evaluate and, complemented, of the operations whose operands are
+     * evaluated.
+     */
+    private void appendExpression(FlatAst ast, int root) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (node < 0) {
+                node = ~node;
+                if (swapped[node] && (ast.getOp(node) == LangOper.MINUS || ast.getOp(node) == LangOper.DIV))
+                    code.append("r ");
+                appendOperator(ast, node);
+            } else if (ast.getKind(node) == FlatAst.BINOP) {
+                if (top + 3 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = ~node;
+                stack[top++] = swapped[node] ? ast.getLeft(node) : ast.getRight(node);
+                stack[top++] = swapped[node] ? ast.getRight(node) : ast.getLeft(node);
+                continue;
+            } else if (ast.getKind(node) == FlatAst.CONST) {
+                String value = ast.getConstant(node);
+                if (value.startsWith("-"))
+                    code.append('_').append(value, 1, value.length());
+                else
+                    code.append(value);
+                code.append(' ');
+            } else
+                appendLoad(definitionOf(ast, node));
+            if (ast.isConverted(node))
+                code.append("5 k ");
+        }
+    }
+
+    /**
+     * Returns the live ranges of the declared variables, in declaration order.
+     */
+    private static List<LiveRange> liveRanges(FlatAst ast) {
+        List<LiveRange> declared = new ArrayList<>();
+        LiveRange[] ranges = new LiveRange[ast.getNameCount()];
+        int node = 0;
+        for (int s = 0; s < ast.getStatementCount(); s++) {
+            int statement = ast.getStatement(s);
+            for (; node <= statement; node++) {
+                int name = ast.getNameIndex(node);
+                switch (ast.getKind(node)) {
+                    case FlatAst.DECL:
+                        ranges[name] = new LiveRange(ast.getDefinition(name), declared.size());
+                        declared.add(ranges[name]);
+                        break;
+                    case FlatAst.ASSIGN:
+                        ranges[name].access(s, false);
+                        break;
+                    case FlatAst.PRINT:
+                    case FlatAst.DEREF:
+                        ranges[name].access(s, true);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return declared;
+    }
+
+    private static Attributes definitionOf(FlatAst ast, int node) {
+        return ast.getDefinition(ast.getNameIndex(node));
+    }
+
+    private void appendOperator(FlatAst ast, int node) {
+        switch (ast.getOp(node)) {
+            case DIV:
+                code.append("/ ");
+                break;
+            case MINUS:
+                code.append("- ");
+                break;
+            case PLUS:
+                code.append("+ ");
+                break;
+            default:
+                code.append("* ");
+                break;
+        }
+    }
+
+    private void appendLoad(Attributes definition) {
+        if (definition.isSpilled())
+            code.append(definition.getSpillSlot()).append(" ;").append(RegisterAllocator.SPILL_ARRAY);
+        else
+            code.append("l").append(definition.getRegister());
+        code.append(' ');
+    }
+
+    private void appendStore(Attributes definition) {
+        if (definition.isSpilled())
+            code.append(definition.getSpillSlot()).append(" :").append(RegisterAllocator.SPILL_ARRAY);
+        else
+            code.append("s").append(definition.getRegister());
+        code.append(' ');
+    }
+}
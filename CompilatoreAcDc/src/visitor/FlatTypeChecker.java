@@ -0,0 +1,181 @@
+package visitor;
+
+import ast.FlatAst;
+import ast.TypeDescriptor;
+import compiler.CompilationContext;
+import symboltable.Attributes;
+import symboltable.SymbolTable;
+
+/**
+ * <p>
+ * Type checker of a {@link FlatAst}, with the rules and the messages of
+ * {@link TypeCheckingVisitor}.
+ * </p>
+ *
+ * <p>
+ * Nodes are checked in a single pass in index order, operands before their
+ * operation. Where {@link TypeCheckingVisitor} inserts a conversion node, the
+ * converted operand is flagged instead.
+ * </p>
+ */
+public class FlatTypeChecker {
+
+    /**
+     * <p>
+     * Internal logger based on {@link StringBuilder} class.
+     * </p>
+     *
+     * <p>
+     * Used to log all errors found during the check.
+     * </p>
+     */
+    private StringBuilder logger = new StringBuilder();
+
+    private SymbolTable symbolTable;
+    private FlatAst ast;
+
+    /**
+     * Class constructor.
+     *
+     * @param context the compilation the checked program belongs to.
+     */
+    public FlatTypeChecker(CompilationContext context) {
+        this.symbolTable = context.getSymbolTable();
+    }
+
+    /**
+     * Returns {@code true} if the checker found errors.
+     *
+     * @return {@code true} if has errors, otherwise {@code false}.
+     */
+    public boolean hasErrors() {
+        return logger.length() != 0;
+    }
+
+    /**
+     * Returns a string representing all errors found.
+     *
+     * @return a string representing all errors found.
+     */
+    public String getLoggerString() {
+        return logger.toString();
+    }
+
+    /**
+     * <p>
+     * Checks every declaration and statement, setting the type of each node.
+     * </p>
+     *
+     * <p>
+     * The variable of an assignment is checked before its expression, as
+     * {@link TypeCheckingVisitor} does, so that errors are logged in the same
+     * order.
+     * </p>
+     *
+     * @param ast the program.
+     * @return {@code true} if the program has no errors, otherwise
+     *         {@code false}.
+     */
+    public boolean check(FlatAst ast) {
+        this.ast = ast;
+        int node = 0;
+        for (int s = 0; s < ast.getStatementCount(); s++) {
+            int statement = ast.getStatement(s);
+            TypeDescriptor target = null;
+            if (ast.getKind(statement) == FlatAst.ASSIGN)
+                target = checkId(statement);
+            for (; node < statement; node++)
+                checkExpr(node);
+            checkStatement(statement, target);
+            node = statement + 1;
+        }
+        return !hasErrors();
+    }
+
+    private void checkStatement(int node, TypeDescriptor target) {
+        switch (ast.getKind(node)) {
+            case FlatAst.DECL:
+                String name = ast.getName(node);
+                if (symbolTable.lookup(name) != null) {
+                    ast.setResType(node, TypeDescriptor.ERROR);
+                    logger.append(String.format("Declaration: variable \'%s\' already declared.%n", name));
+                } else {
+                    Attributes attr = new Attributes(ast.getLangType(node));
+                    symbolTable.enter(name, attr);
+                    ast.setDefinition(ast.getNameIndex(node), attr);
+                }
+                break;
+            case FlatAst.ASSIGN:
+                TypeDescriptor expr = ast.getResType(ast.getLeft(node));
+                if (isCompatible(target, expr))
+                    ast.setResType(node, expr);
+                else {
+                    ast.setResType(node, TypeDescriptor.ERROR);
+                    logger.append(
+                            String.format("Assignment: Cannot assign \'%s\' type to \'%s\' type.%n", expr, target));
+                }
+                break;
+            default:
+                ast.setResType(node, checkId(node));
+                break;
+        }
+    }
+
+    private void checkExpr(int node) {
+        switch (ast.getKind(node)) {
+            case FlatAst.CONST:
+                ast.setResType(node, TypeDescriptor.valueOf(ast.getLangType(node).toString()));
+                break;
+            case FlatAst.DEREF:
+                ast.setResType(node, checkId(node));
+                break;
+            default:
+                checkBinOp(node);
+                break;
+        }
+    }
+
+    /**
+     * Checks if the types of an operation are correct, flagging an
+     * {@code INT} right operand of a {@code FLOAT} left one as converted.
+     */
+    private void checkBinOp(int node) {
+        TypeDescriptor left = ast.getResType(ast.getLeft(node));
+        TypeDescriptor right = ast.getResType(ast.getRight(node));
+        if (left.equals(TypeDescriptor.ERROR) || right.equals(TypeDescriptor.ERROR))
+            ast.setResType(node, TypeDescriptor.ERROR);
+        else if (left.equals(right))
+            ast.setResType(node, left);
+        else if (isCompatible(left, right)) {
+            ast.setConverted(ast.getRight(node));
+            ast.setResType(node, left);
+        } else {
+            ast.setResType(node, TypeDescriptor.ERROR);
+            logger.append(String.format(
+                    "BinaryOperation: Expected type FLOAT and INT for expressions, but was \'%s\' and \'%s\'.%n", left,
+                    right));
+        }
+    }
+
+    /**
+     * Returns the type of the variable of a node, reporting it if not declared.
+     */
+    private TypeDescriptor checkId(int node) {
+        Attributes attr = symbolTable.lookup(ast.getName(node));
+        if (attr == null) {
+            logger.append(String.format("Variable: variable \'%s\' is not declared.%n", ast.getName(node)));
+            return TypeDescriptor.ERROR;
+        }
+        ast.setDefinition(ast.getNameIndex(node), attr);
+        return TypeDescriptor.valueOf(attr.getType().toString());
+    }
+
+    /**
+     * Returns {@code true} if a value of type {@code t2} can be used where one of
+     * type {@code t1} is expected.
+     */
+    private static boolean isCompatible(TypeDescriptor t1, TypeDescriptor t2) {
+        return ((t1.equals(TypeDescriptor.FLOAT) && t2.equals(TypeDescriptor.INT)) || t1.equals(t2))
+                && t1 != TypeDescriptor.ERROR && t2 != TypeDescriptor.ERROR;
+    }
+}
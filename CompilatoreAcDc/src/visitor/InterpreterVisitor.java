@@ -0,0 +1,365 @@
+package visitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import compiler.CompilationContext;
+import dc.Arithmetic;
+import dc.Output;
+import symboltable.Attributes;
+import symboltable.SymbolTable;
+
+/**
+ * <p>
+ * Represents a visitor that runs a type checked program directly, with the
+ * same results and output as its dc code.
+ * </p>
+ *
+ * <p>
+ * Values are dc numbers: an unscaled {@code long} and a scale, or a
+ * {@link BigDecimal} when they do not fit a {@code long}. Variables live in
+ * primitive arrays at the slot of their {@link Attributes}. A
+ * {@link NodeConvert} sets 5 decimals of precision for the rest of its
+ * statement, as the {@code 5 k} it is compiled to.
+ * </p>
+ *
+ * <p>
+ * Every visit of a {@link NodeProgram} runs it from scratch and writes its
+ * output, so that a program can be parsed and checked once and run many times.
+ * </p>
+ */
+public class InterpreterVisitor implements IVisitor {
+
+    private static final int FLOAT_PRECISION = 5;
+
+    private SymbolTable symbolTable;
+    private OutputStream out;
+    private Output output = new Output();
+
+    /**
+     * <p>
+     * Internal logger based on {@link StringBuilder} class.
+     * </p>
+     *
+     * <p>
+     * Used to log all errors found while running.
+     * </p>
+     */
+    private StringBuilder logger = new StringBuilder();
+
+    /**
+     * Variable values, indexed by {@link Attributes#getSlot()}.
+     */
+    private long[] unscaled = new long[16];
+    private int[] scales = new int[16];
+    private BigDecimal[] bigs = new BigDecimal[16];
+    private boolean[] assigned = new boolean[16];
+
+    /**
+     * Value of the expression last visited, {@link #big} is {@code null} if it
+     * fits {@link #value} and {@link #scale}.
+     */
+    private long value;
+    private int scale;
+    private BigDecimal big;
+
+    private int precision;
+
+    /**
+     * Class constructor.
+     *
+     * @param context the compilation the visited program belongs to.
+     * @param out     the stream receiving the printed output.
+     */
+    public InterpreterVisitor(CompilationContext context, OutputStream out) {
+        this.symbolTable = context.getSymbolTable();
+        this.out = out;
+    }
+
+    /**
+     * Returns {@code true} if errors were found while running.
+     *
+     * @return {@code true} if errors were found, otherwise {@code false}.
+     */
+    public boolean hasErrors() {
+        return logger.length() != 0;
+    }
+
+    /**
+     * Returns a string representing all errors found while running.
+     *
+     * @return a string representing all errors found while running.
+     */
+    public String getLoggerString() {
+        return logger.toString();
+    }
+
+    /**
+     * Returns the value of a variable.
+     *
+     * @param id the variable name.
+     * @return the value of the variable, {@code null} if it is not declared or
+     *         not assigned.
+     */
+    public BigDecimal getValue(String id) {
+        Attributes definition = symbolTable.lookup(id);
+        if (definition == null || definition.getSlot() >= assigned.length || !assigned[definition.getSlot()])
+            return null;
+        int slot = definition.getSlot();
+        return bigs[slot] != null ? bigs[slot] : BigDecimal.valueOf(unscaled[slot], scales[slot]);
+    }
+
+    /**
+     * Writes the output printed so far.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        output.writeTo(out);
+    }
+
+    /**
+     * Runs every declaration and statement, with no variable assigned, then
+     * writes the output.
+     *
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        Arrays.fill(assigned, false);
+        for (NodeDecSt nodeDecSt : node)
+            nodeDecSt.accept(this);
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     *
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Makes room for the declared variable.
+     *
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        int slot = node.getNodeId().getDefinition().getSlot();
+        if (slot >= assigned.length) {
+            int length = Math.max(slot + 1, assigned.length * 2);
+            unscaled = Arrays.copyOf(unscaled, length);
+            scales = Arrays.copyOf(scales, length);
+            bigs = Arrays.copyOf(bigs, length);
+            assigned = Arrays.copyOf(assigned, length);
+        }
+    }
+
+    /**
+     * Computes the left deep chain of operations in a loop.
+     *
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            long leftValue = value;
+            int leftScale = scale;
+            BigDecimal leftBig = big;
+            binOp.getRightOp().accept(this);
+            apply(operatorOf(binOp), leftValue, leftScale, leftBig);
+        }
+    }
+
+    /**
+     * <p>
+     * Replaces the current value, the right operand, with the result of an
+     * operation.
+     * </p>
+     *
+     * <p>
+     * A division by zero is reported and, as in dc, leaves the divisor as the
+     * result.
+     * </p>
+     */
+    private void apply(char op, long leftValue, int leftScale, BigDecimal leftBig) {
+        if (op == '/' && (big != null ? big.signum() : Long.signum(value)) == 0) {
+            logger.append("Division by zero.").append(System.lineSeparator());
+            return;
+        }
+        if (leftBig == null && big == null) {
+            try {
+                long result = Arithmetic.apply(op, leftValue, leftScale, value, scale, precision);
+                scale = Arithmetic.scaleOf(op, leftScale, scale, precision);
+                value = result;
+                return;
+            } catch (ArithmeticException e) {
+                // Falls back to BigDecimal
+            }
+        }
+        BigDecimal left = leftBig != null ? leftBig : BigDecimal.valueOf(leftValue, leftScale);
+        BigDecimal right = big != null ? big : BigDecimal.valueOf(value, scale);
+        setValue(Arithmetic.apply(op, left, right, precision));
+    }
+
+    private static char operatorOf(NodeBinOp node) {
+        switch (node.getOp()) {
+            case PLUS:
+                return '+';
+            case MINUS:
+                return '-';
+            case TIMES:
+                return '*';
+            default:
+                return '/';
+        }
+    }
+
+    /**
+     * Sets the current value, as an unscaled {@code long} if it fits.
+     */
+    private void setValue(BigDecimal decimal) {
+        if (decimal.unscaledValue().bitLength() < Long.SIZE) {
+            value = decimal.unscaledValue().longValue();
+            scale = decimal.scale();
+            big = null;
+        } else {
+            big = decimal;
+            scale = decimal.scale();
+        }
+    }
+
+    /**
+     * Loads the value of the variable. A variable never assigned is reported
+     * and read as {@code 0}.
+     *
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        load(node.getId());
+    }
+
+    private void load(NodeId id) {
+        int slot = id.getDefinition().getSlot();
+        if (!assigned[slot]) {
+            logger.append(String.format("Variable: variable '%s' is not assigned.%n", id.getName()));
+            value = 0;
+            scale = 0;
+            big = null;
+            return;
+        }
+        value = unscaled[slot];
+        scale = scales[slot];
+        big = bigs[slot];
+    }
+
+    /**
+     * Reads the value of the constant, with the scale of its decimals.
+     *
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        String literal = node.getValue();
+        boolean negative = literal.startsWith("-");
+        long digits = 0;
+        int significant = 0;
+        int decimals = -1;
+        for (int i = negative ? 1 : 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '.')
+                decimals = 0;
+            else {
+                digits = digits * 10 + (c - '0');
+                significant += digits != 0 ? 1 : 0;
+                decimals += decimals >= 0 ? 1 : 0;
+            }
+        }
+        if (significant > 18) {
+            setValue(new BigDecimal(literal));
+            return;
+        }
+        value = negative ? -digits : digits;
+        scale = Math.max(decimals, 0);
+        big = null;
+    }
+
+    /**
+     * Computes the expression and stores it in the variable. Every statement
+     * starts with no decimals of precision.
+     *
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        precision = 0;
+        node.getExpr().accept(this);
+        int slot = node.getId().getDefinition().getSlot();
+        unscaled[slot] = value;
+        scales[slot] = scale;
+        bigs[slot] = big;
+        assigned[slot] = true;
+        precision = 0;
+    }
+
+    /**
+     * Prints the value of the variable as dc {@code p} and {@code P} do.
+     *
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        load(node.getId());
+        if (big == null) {
+            output.printNumber(value, scale);
+            output.printBytes(value, scale);
+        } else {
+            output.printNumber(big);
+            output.printBytes(big);
+        }
+    }
+
+    /**
+     * Computes the converted expression, then sets the precision to
+     * {@value #FLOAT_PRECISION} decimals.
+     *
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+        precision = FLOAT_PRECISION;
+    }
+}
@@ -0,0 +1,164 @@
+package visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+import compiler.LiveRange;
+import symboltable.Attributes;
+
+/**
+ * <p>
+ * Represents a visitor that computes the {@link LiveRange} of every declared
+ * variable of a type checked program.
+ * </p>
+ * 
+ * <p>
+ * Programs have no branches, so the range of a variable spans the statements
+ * from its first to its last access.
+ * </p>
+ */
+public class LivenessVisitor implements IVisitor {
+
+    private Map<Attributes, LiveRange> ranges = new IdentityHashMap<>();
+    private List<LiveRange> declared = new ArrayList<>();
+    private int statement = 0;
+
+    /**
+     * Returns the live ranges of the declared variables, in declaration order.
+     * 
+     * @return the live ranges of the declared variables.
+     */
+    public List<LiveRange> getRanges() {
+        return declared;
+    }
+
+    /**
+     * Visits every declaration and statement, counting them.
+     * 
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        for (NodeDecSt nodeDecSt : node) {
+            nodeDecSt.accept(this);
+            statement++;
+        }
+    }
+
+    /**
+     * Visits a {@link NodeId} node.
+     * 
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        // Empty method
+    }
+
+    /**
+     * Starts the live range of the declared variable.
+     * 
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        LiveRange range = new LiveRange(node.getNodeId().getDefinition(), declared.size());
+        ranges.put(range.getDefinition(), range);
+        declared.add(range);
+    }
+
+    /**
+     * Visits the operands of the left deep chain of operations in a loop, and
+     * records the writes of the temporary variables results are saved to.
+     * 
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            if (!binOp.isDuplicate())
+                binOp.getRightOp().accept(this);
+            if (binOp.getSavedTo() != null)
+                // The result is saved before the statement reads its other
+                // variables, so the range starts before the statement
+                ranges.get(binOp.getSavedTo().getDefinition()).access(statement - 1, false);
+        }
+    }
+
+    /**
+     * Records a read of the variable.
+     * 
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        access(node.getId(), true);
+    }
+
+    /**
+     * Visits a {@link NodeConst} node.
+     * 
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        // Empty method
+    }
+
+    /**
+     * Records the reads of the expression, then the write of the variable.
+     * 
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        node.getExpr().accept(this);
+        access(node.getId(), false);
+    }
+
+    /**
+     * Records a read of the variable.
+     * 
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        access(node.getId(), true);
+    }
+
+    /**
+     * Visits the converted expression.
+     * 
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+    }
+
+    private void access(NodeId id, boolean read) {
+        ranges.get(id.getDefinition()).access(statement, read);
+    }
+}
@@ -0,0 +1,170 @@
+package visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import ast.NodeAST;
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+
+/**
+ * <p>
+ * Represents a visitor that copies an AST as the parser builds it, with no
+ * types, definitions or optimizations, so that the copy can be checked and
+ * compiled while the original is kept for later compilations.
+ * </p>
+ *
+ * <p>
+ * The copy is made of the nodes the parser creates: visiting a checked AST
+ * copies the conversions the type checker added as well.
+ * </p>
+ */
+public class NodeCopyingVisitor implements IVisitor {
+
+    private NodeAST copy;
+
+    /**
+     * Returns the copy of the node last visited.
+     *
+     * @return the copy of the node last visited.
+     */
+    public NodeAST getCopy() {
+        return copy;
+    }
+
+    /**
+     * Copies a declaration or statement.
+     *
+     * @param node the declaration or statement.
+     * @return its copy.
+     */
+    public static NodeDecSt copy(NodeDecSt node) {
+        var visitor = new NodeCopyingVisitor();
+        node.accept(visitor);
+        return (NodeDecSt) visitor.getCopy();
+    }
+
+    /**
+     * Copies the program and every declaration and statement.
+     *
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        var decSts = new ArrayList<NodeDecSt>();
+        for (NodeDecSt nodeDecSt : node) {
+            nodeDecSt.accept(this);
+            decSts.add((NodeDecSt) copy);
+        }
+        copy = new NodeProgram(decSts);
+    }
+
+    /**
+     * Copies the variable name, with the id it is interned with.
+     *
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        copy = new NodeId(node.getName(), node.getId());
+    }
+
+    /**
+     * Copies the declaration and its variable name.
+     *
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        node.getNodeId().accept(this);
+        copy = new NodeDecl(node.getType(), (NodeId) copy);
+    }
+
+    /**
+     * Copies the operations of the left deep chain in a loop, after their
+     * operands.
+     *
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            NodeExpr left = (NodeExpr) copy;
+            binOp.getRightOp().accept(this);
+            copy = new NodeBinOp(left, (NodeExpr) copy, binOp.getOp());
+        }
+    }
+
+    /**
+     * Copies the dereferencing and its variable name.
+     *
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        node.getId().accept(this);
+        copy = new NodeDeref((NodeId) copy);
+    }
+
+    /**
+     * Copies the constant.
+     *
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        copy = new NodeConst(node.getValue(), node.getType());
+    }
+
+    /**
+     * Copies the assignment, its variable name and its expression.
+     *
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        node.getId().accept(this);
+        NodeId id = (NodeId) copy;
+        node.getExpr().accept(this);
+        copy = new NodeAssign(id, (NodeExpr) copy);
+    }
+
+    /**
+     * Copies the print statement and its variable name.
+     *
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        node.getId().accept(this);
+        copy = new NodePrint((NodeId) copy);
+    }
+
+    /**
+     * Copies the conversion and its expression.
+     *
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        node.getExpr().accept(this);
+        copy = new NodeConvert((NodeExpr) copy);
+    }
+}
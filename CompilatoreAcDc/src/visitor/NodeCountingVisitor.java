@@ -0,0 +1,138 @@
+package visitor;
+
+import ast.NodeAssign;
+import ast.NodeBinOp;
+import ast.NodeConst;
+import ast.NodeConvert;
+import ast.NodeDecSt;
+import ast.NodeDecl;
+import ast.NodeDeref;
+import ast.NodeExpr;
+import ast.NodeId;
+import ast.NodePrint;
+import ast.NodeProgram;
+
+/**
+ * <p>
+ * Represents a visitor that counts the nodes of an AST, the {@link NodeId} of
+ * declarations, statements and dereferencings included.
+ * </p>
+ */
+public class NodeCountingVisitor implements IVisitor {
+
+    private long count = 0;
+
+    /**
+     * Returns the number of nodes visited.
+     *
+     * @return the number of nodes visited.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Counts the program and visits every declaration and statement.
+     *
+     * @param node The node containing the whole AST.
+     */
+    @Override
+    public void visit(NodeProgram node) {
+        count++;
+        for (NodeDecSt nodeDecSt : node)
+            nodeDecSt.accept(this);
+    }
+
+    /**
+     * Counts the variable name.
+     *
+     * @param node The node representing the variable name.
+     */
+    @Override
+    public void visit(NodeId node) {
+        count++;
+    }
+
+    /**
+     * Counts the declaration and its variable name.
+     *
+     * @param node The node representing the declaration.
+     */
+    @Override
+    public void visit(NodeDecl node) {
+        count++;
+        node.getNodeId().accept(this);
+    }
+
+    /**
+     * Counts the operations of the left deep chain in a loop, and visits their
+     * operands.
+     *
+     * @param node The node representing a binary operation.
+     */
+    @Override
+    public void visit(NodeBinOp node) {
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            count++;
+            ((NodeBinOp) leftOp).getRightOp().accept(this);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+    }
+
+    /**
+     * Counts the dereferencing and its variable name.
+     *
+     * @param node The node representing a dereferencing.
+     */
+    @Override
+    public void visit(NodeDeref node) {
+        count++;
+        node.getId().accept(this);
+    }
+
+    /**
+     * Counts the constant.
+     *
+     * @param node The node representing a constant.
+     */
+    @Override
+    public void visit(NodeConst node) {
+        count++;
+    }
+
+    /**
+     * Counts the assignment, its variable name and its expression.
+     *
+     * @param node The node representing the assignment.
+     */
+    @Override
+    public void visit(NodeAssign node) {
+        count++;
+        node.getId().accept(this);
+        node.getExpr().accept(this);
+    }
+
+    /**
+     * Counts the print statement and its variable name.
+     *
+     * @param node The node representing the print statement.
+     */
+    @Override
+    public void visit(NodePrint node) {
+        count++;
+        node.getId().accept(this);
+    }
+
+    /**
+     * Counts the conversion and its expression.
+     *
+     * @param node The node representing the conversion.
+     */
+    @Override
+    public void visit(NodeConvert node) {
+        count++;
+        node.getExpr().accept(this);
+    }
+}
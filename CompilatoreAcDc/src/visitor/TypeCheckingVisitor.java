@@ -1,5 +1,7 @@
 package visitor;
 
+import java.util.ArrayDeque;
+
 import ast.NodeAssign;
 import ast.NodeBinOp;
 import ast.NodeConst;
@@ -12,6 +14,7 @@ import ast.NodeId;
 import ast.NodePrint;
 import ast.NodeProgram;
 import ast.TypeDescriptor;
+import compiler.CompilationContext;
 import symboltable.Attributes;
 import symboltable.SymbolTable;
 
@@ -33,13 +36,49 @@ public class TypeCheckingVisitor implements IVisitor {
      */
     private StringBuilder logger = new StringBuilder();
 
+    /**
+     * The compilation the visited program belongs to.
+     */
+    private CompilationContext context;
+
+    /**
+     * The symbol table of the compilation.
+     */
+    private SymbolTable symbolTable;
+
+    /**
+     * Class constructor, starting a new compilation.
+     */
+    public TypeCheckingVisitor() {
+        this(new CompilationContext());
+    }
+
+    /**
+     * Class constructor.
+     * 
+     * @param context the compilation the visited program belongs to.
+     */
+    public TypeCheckingVisitor(CompilationContext context) {
+        this.context = context;
+        this.symbolTable = context.getSymbolTable();
+    }
+
+    /**
+     * Returns the compilation the visited program belongs to.
+     * 
+     * @return the compilation the visited program belongs to.
+     */
+    public CompilationContext getContext() {
+        return context;
+    }
+
     /**
      * Returns {@code true} if the visitor found errors in visited AST.
      * 
      * @return {@code true} if has errors in AST, otherwise {@code false}.
      */
     public boolean hasErrors() {
-        return !logger.toString().isEmpty();
+        return logger.length() != 0;
     }
 
     /**
@@ -64,7 +103,6 @@ public class TypeCheckingVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeProgram node) {
-        SymbolTable.init();
         for (NodeDecSt nodeDecSt : node) {
             nodeDecSt.accept(this);
         }
@@ -92,8 +130,8 @@ public class TypeCheckingVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeId node) {
-        if (SymbolTable.lookup(node.getName()) != null) {
-            Attributes attr = SymbolTable.lookup(node.getName());
+        Attributes attr = symbolTable.lookup(node);
+        if (attr != null) {
             node.setResType(TypeDescriptor.valueOf(attr.getType().toString()));
             node.setDefinition(attr);
         } else {
@@ -120,14 +158,12 @@ public class TypeCheckingVisitor implements IVisitor {
      */
     @Override
     public void visit(NodeDecl node) {
-        if (SymbolTable.lookup(node.getNodeId().getName()) != null) {
+        if (symbolTable.enter(node.getNodeId(), new Attributes(node.getType())))
+            node.getNodeId().accept(this);
+        else {
             node.setResType(TypeDescriptor.ERROR);
             logger.append(
                     String.format("Declaration: variable \'%s\' already declared.%n", node.getNodeId().getName()));
-        } else {
-            Attributes attr = new Attributes(node.getType());
-            SymbolTable.enter(node.getNodeId().getName(), attr);
-            node.getNodeId().accept(this);
         }
     }
 
@@ -143,13 +179,37 @@ public class TypeCheckingVisitor implements IVisitor {
      * <p>
      * Visit checks also if expressions contain FLOAT -> INT operations.
      * </p>
+     * <p>
+     * The left deep chain of operations built by the parser is walked in a loop,
+     * so that the visit depth does not grow with the chain length.
+     * </p>
      * 
      * @param node the binary operation node.
      */
     @Override
     public void visit(NodeBinOp node) {
-        node.getLeftOp().accept(this);
-        node.getRightOp().accept(this);
+        ArrayDeque<NodeBinOp> chain = new ArrayDeque<>();
+        NodeExpr leftOp = node;
+        while (leftOp instanceof NodeBinOp) {
+            chain.push((NodeBinOp) leftOp);
+            leftOp = ((NodeBinOp) leftOp).getLeftOp();
+        }
+        leftOp.accept(this);
+        while (!chain.isEmpty()) {
+            NodeBinOp binOp = chain.pop();
+            binOp.getRightOp().accept(this);
+            checkBinOp(binOp);
+        }
+    }
+
+    /**
+     * <p>
+     * Checks if the types of an operation with already visited operands are correct.
+     * </p>
+     * 
+     * @param node the binary operation node.
+     */
+    private void checkBinOp(NodeBinOp node) {
         if (node.getLeftOp().getResType().equals(TypeDescriptor.ERROR)
                 || node.getRightOp().getResType().equals(TypeDescriptor.ERROR)) {
             node.setResType(TypeDescriptor.ERROR);
@@ -274,7 +334,7 @@ public class TypeCheckingVisitor implements IVisitor {
     @Override
     public void visit(NodePrint node) {
         node.getId().accept(this);
-        if (node.getId().getResType() != TypeDescriptor.ERROR && SymbolTable.lookup(node.getId().getName()) != null) {
+        if (node.getId().getResType() != TypeDescriptor.ERROR) {
             node.setResType(node.getId().getResType());
         } else
             node.setResType(TypeDescriptor.ERROR);
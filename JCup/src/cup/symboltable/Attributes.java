@@ -22,6 +22,11 @@ public class Attributes {
 	 */
 	private char register;
 
+	/**
+	 * Index of the variable in the spill array, {@code -1} if it has a register.
+	 */
+	private int spillSlot = -1;
+
 	/**
 	 * Returns the register value associated in {@link SymbolTable}.
 	 * 
@@ -40,6 +45,34 @@ public class Attributes {
 		this.register = register;
 	}
 
+	/**
+	 * Returns {@code true} if the variable is kept in the spill array rather
+	 * than in a register.
+	 * 
+	 * @return {@code true} if the variable is spilled, otherwise {@code false}.
+	 */
+	public boolean isSpilled() {
+		return spillSlot >= 0;
+	}
+
+	/**
+	 * Returns the index of the variable in the spill array.
+	 * 
+	 * @return the index of the variable in the spill array, {@code -1} if it has a register.
+	 */
+	public int getSpillSlot() {
+		return spillSlot;
+	}
+
+	/**
+	 * Sets the index of the variable in the spill array
+	 * 
+	 * @param spillSlot the index in the spill array
+	 */
+	public void setSpillSlot(int spillSlot) {
+		this.spillSlot = spillSlot;
+	}
+
 	/**
 	 * Class constructor.
 	 * 